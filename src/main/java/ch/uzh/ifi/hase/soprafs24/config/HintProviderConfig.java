@@ -0,0 +1,65 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.CompositeHintProvider;
+import ch.uzh.ifi.hase.soprafs24.service.CorpusHintProvider;
+import ch.uzh.ifi.hase.soprafs24.service.HintCorpus;
+import ch.uzh.ifi.hase.soprafs24.service.HintProvider;
+import ch.uzh.ifi.hase.soprafs24.service.LlmHintProvider;
+import ch.uzh.ifi.hase.soprafs24.service.StubHintProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the hint provider from hints.provider:
+ * - composite: fresh corpus sets, then the LLM within the latency budget, then any stored set
+ * - llm, corpus, stub: only that provider
+ * Without hints.llm.api-key the LLM is left out of the composite, and llm does not start.
+ */
+@Configuration
+public class HintProviderConfig {
+
+    private final Logger log = LoggerFactory.getLogger(HintProviderConfig.class);
+
+    @Bean
+    public HintProvider hintProvider(
+            @Value("${hints.provider:composite}") String provider,
+            @Value("${hints.budget-ms:4000}") long budgetMillis,
+            @Value("${hints.llm.timeout-ms:5000}") long llmTimeoutMillis,
+            @Value("${hints.llm.max-attempts:3}") int llmMaxAttempts,
+            @Value("${hints.llm.api-key:}") String llmApiKey,
+            HintCorpus hintCorpus) {
+        Duration llmTimeout = Duration.ofMillis(llmTimeoutMillis);
+        boolean llmEnabled = !llmApiKey.isBlank();
+        switch (provider) {
+            case "llm":
+                if (!llmEnabled) {
+                    throw new IllegalStateException("hints.provider=llm needs hints.llm.api-key");
+                }
+                return new LlmHintProvider(hintCorpus, llmApiKey, llmTimeout, llmMaxAttempts);
+            case "corpus":
+                return new CorpusHintProvider(hintCorpus, false);
+            case "stub":
+                return new StubHintProvider();
+            case "composite":
+                List<HintProvider> chain = new ArrayList<>();
+                chain.add(new CorpusHintProvider(hintCorpus, true));
+                if (llmEnabled) {
+                    chain.add(new LlmHintProvider(hintCorpus, llmApiKey, llmTimeout, llmMaxAttempts));
+                }
+                else {
+                    log.warn("No hints.llm.api-key set, hints are only served from the corpus");
+                }
+                chain.add(new CorpusHintProvider(hintCorpus, false));
+                return new CompositeHintProvider(chain, budgetMillis);
+            default:
+                throw new IllegalStateException("Unknown hints.provider: " + provider);
+        }
+    }
+}
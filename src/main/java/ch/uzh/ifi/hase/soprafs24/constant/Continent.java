@@ -0,0 +1,16 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+/**
+ * Continent groups the hint rotation cycles through, in rotation order.
+ * North and South America share one group.
+ */
+public enum Continent {
+    Europe, Asia, Americas, Africa, Oceania;
+
+    public static Continent of(String continent) {
+        if (continent.equals("NorthAmerica") || continent.equals("SouthAmerica")) {
+            return Americas;
+        }
+        return valueOf(continent);
+    }
+}
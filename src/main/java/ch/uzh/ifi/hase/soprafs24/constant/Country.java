@@ -199,12 +199,18 @@ public enum Country {
     Zimbabwe("Africa");
 
     private final String continent;
+    private final Continent region;
 
     Country(String continent) {
         this.continent = continent;
+        this.region = Continent.of(continent);
     }
 
     public String getContinent() {
         return this.continent;
     }
+
+    public Continent getRegion() {
+        return this.region;
+    }
 }
@@ -0,0 +1,67 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Countries grouped by continent and by difficulty, built once when the class
+ * is loaded. Picking a target country is an array lookup, no list is built or
+ * filtered per hint.
+ */
+public final class CountryIndex {
+
+    private static final Map<Continent, Country[]> BY_CONTINENT = new EnumMap<>(Continent.class);
+
+    private static final Country[] EASY = {
+        // Europe
+        Country.UnitedKingdom, Country.Russia, Country.Germany, Country.France, Country.Italy, Country.Spain, Country.Netherlands,
+        Country.Austria, Country.Sweden, Country.Norway, Country.Greece, Country.Finland, Country.Ukraine, Country.Hungary,
+        Country.Switzerland, Country.Poland, Country.Belgium, Country.Portugal, Country.Denmark, Country.Iceland,
+        Country.Romania, Country.Czechia,
+        // Asia
+        Country.China, Country.Japan, Country.SouthKorea, Country.India, Country.Thailand, Country.Singapore,
+        Country.SaudiArabia, Country.Iran, Country.Turkey, Country.Indonesia, Country.Mongolia, Country.UnitedArabEmirates,
+        // Americas
+        Country.Canada, Country.UnitedStates, Country.Mexico, Country.Brazil, Country.Chile, Country.Argentina, Country.Colombia,
+        // Africa
+        Country.Egypt, Country.SouthAfrica, Country.Ethiopia, Country.DemocraticRepublicOfTheCongo,
+        Country.Morocco, Country.Algeria, Country.Madagascar,
+        // Oceania
+        Country.Australia, Country.NewZealand
+    };
+
+    static {
+        Map<Continent, List<Country>> grouped = new EnumMap<>(Continent.class);
+        for (Continent continent : Continent.values()) {
+            grouped.put(continent, new ArrayList<>());
+        }
+        for (Country country : Country.values()) {
+            grouped.get(country.getRegion()).add(country);
+        }
+        for (Map.Entry<Continent, List<Country>> entry : grouped.entrySet()) {
+            BY_CONTINENT.put(entry.getKey(), entry.getValue().toArray(new Country[0]));
+        }
+    }
+
+    private CountryIndex() {}
+
+    public static Country randomIn(Continent continent) {
+        Country[] countries = BY_CONTINENT.get(continent);
+        return countries[ThreadLocalRandom.current().nextInt(countries.length)];
+    }
+
+    public static Country randomEasy() {
+        return EASY[ThreadLocalRandom.current().nextInt(EASY.length)];
+    }
+
+    public static List<Country> countriesIn(Continent continent) {
+        return List.of(BY_CONTINENT.get(continent));
+    }
+
+    public static List<Country> easyCountries() {
+        return List.of(EASY);
+    }
+}
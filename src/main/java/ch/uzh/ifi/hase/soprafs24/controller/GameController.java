@@ -4,9 +4,14 @@ import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GamePostDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardEntryDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyUpdateDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
+import ch.uzh.ifi.hase.soprafs24.service.LeaderboardService;
+import ch.uzh.ifi.hase.soprafs24.service.LobbyService;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -28,9 +33,13 @@ import java.util.List;
 public class GameController {
 
   private final GameService gameService;
+  private final LobbyService lobbyService;
+  private final LeaderboardService leaderboardService;
 
-  GameController(GameService gameService) {
+  GameController(GameService gameService, LobbyService lobbyService, LeaderboardService leaderboardService) {
       this.gameService = gameService;
+      this.lobbyService = lobbyService;
+      this.leaderboardService = leaderboardService;
   }
 
   @PostMapping("/games")
@@ -44,11 +53,25 @@ public class GameController {
       return DTOMapper.INSTANCE.convertGameEntityToGameGetDTO(createdGame);
   }
 
+  // one filtered page of rooms, pass nextCursor as cursor for the next one
+  @GetMapping("/lobby")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public LobbyPageDTO getGameLobby(@RequestParam(required = false) String difficulty,
+                                   @RequestParam(required = false) Integer minOpenSlots,
+                                   @RequestParam(required = false) Boolean locked,
+                                   @RequestParam(required = false) Integer time,
+                                   @RequestParam(required = false) Long cursor,
+                                   @RequestParam(required = false) Integer size) {
+    return lobbyService.page(difficulty, minOpenSlots, locked, time, cursor, size);
+  }
+
+  // snapshot of every room for a new /topic/lobby subscriber, answered from memory
   @PutMapping("/lobby")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
-  public void getGameLobby() {
-    gameService.getGameLobby();
+  public LobbyUpdateDTO refreshGameLobby() {
+    return lobbyService.snapshot();
   }
 
   @PutMapping("/lobbyIn/{userId}")
@@ -84,8 +107,24 @@ public class GameController {
   @GetMapping("/leaderboard")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
-  public List<UserGetDTO> getLeaderboard() {
-    return gameService.getLeaderboard();
+  public List<LeaderboardEntryDTO> getLeaderboard(@RequestParam(required = false) Integer offset,
+                                                  @RequestParam(required = false) Integer limit) {
+    return leaderboardService.top(offset, limit);
+  }
+
+  @GetMapping("/leaderboard/{userId}")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public LeaderboardEntryDTO getLeaderboardRank(@PathVariable Long userId) {
+    return leaderboardService.rankOf(userId);
+  }
+
+  @GetMapping("/leaderboard/{userId}/around")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<LeaderboardEntryDTO> getLeaderboardAround(@PathVariable Long userId,
+                                                        @RequestParam(required = false) Integer radius) {
+    return leaderboardService.around(userId, radius);
   }
 
   @PutMapping("/submit/{userId}")
@@ -0,0 +1,47 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Presence Listener
+ * Maps the STOMP sessions on /ws to users. Clients name their user in the
+ * "userId" and "token" headers of the CONNECT frame, sessions without them or
+ * with a token of another user are not tracked.
+ */
+@Component
+public class PresenceListener {
+
+    static final String USER_ID_HEADER = "userId";
+    static final String TOKEN_HEADER = "token";
+
+    private final UserService userService;
+
+    public PresenceListener(UserService userService) {
+        this.userService = userService;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String userId = accessor.getFirstNativeHeader(USER_ID_HEADER);
+        String token = accessor.getFirstNativeHeader(TOKEN_HEADER);
+        if (userId == null || token == null || accessor.getSessionId() == null) { return; }
+        try {
+            userService.sessionConnected(accessor.getSessionId(), Long.valueOf(userId), token);
+        }
+        catch (NumberFormatException e) {
+            // not one of our users, the session still works, it is just not tracked
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        userService.sessionDisconnected(event.getSessionId());
+    }
+}
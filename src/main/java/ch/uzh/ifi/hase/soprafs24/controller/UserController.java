@@ -1,6 +1,9 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryBucketDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
@@ -109,25 +112,46 @@ public class UserController {
     return DTOMapper.INSTANCE.convertEntityToUserGetDTO(updatedUser);
   }
 
+  // newest games first, pass nextCursor as cursor for the older ones
   @GetMapping("/history/{userId}")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
-  public UserGetDTO getHistory(@PathVariable Long userId){
-    return userService.getHistory(userId);
+  public HistoryPageDTO getHistory(@PathVariable Long userId,
+                                   @RequestParam(required = false) String modeType,
+                                   @RequestParam(required = false) String difficulty,
+                                   @RequestParam(required = false) Long cursor,
+                                   @RequestParam(required = false) Integer size){
+    return userService.getHistory(userId, modeType, difficulty, cursor, size);
+  }
+
+  // older games summed up per month, mode and difficulty
+  @GetMapping("/history/{userId}/months")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<HistoryBucketDTO> getHistoryMonths(@PathVariable Long userId){
+    return userService.getHistoryMonths(userId);
   }
 
   @GetMapping("/users/{userId}/statistics")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
-  public UserGetDTO getStatistics(@PathVariable Long userId){
-    return userService.getLearningTracking(userId);
+  public UserStatisticsDTO getStatistics(@PathVariable Long userId){
+    return userService.getStatistics(userId);
   }
 
   @PostMapping("/heartbeat/{userId}")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
-  public List<UserGetDTO> updateUserHeartBeatTime(@PathVariable Long userId){
-    return userService.updateUserHeartBeatTime(userId);
+  public void updateUserHeartBeatTime(@PathVariable Long userId){
+    userService.updateUserHeartBeatTime(userId);
+  }
+
+  // who is online right now, changes follow on /topic/presence
+  @GetMapping("/presence")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<Long> getOnlineUsers(){
+    return userService.getOnlineUsers();
   }
 
 }
@@ -1,5 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -7,6 +9,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.time.LocalDateTime;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Internal User Representation
@@ -18,8 +22,10 @@ import java.time.LocalDateTime;
  * - unique = true -> this value must be unqiue across the database -> composes
  * the primary key
  */
+// a lazy User.game is a proxy, its Hibernate internals are not part of the JSON
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "GAME")
+@Table(name = "GAME", indexes = @Index(name = "idx_game_mode_id", columnList = "modeType, gameId"))
 public class Game implements Serializable {
 
   private static final long serialVersionUID = 1L;
@@ -42,12 +48,12 @@ public class Game implements Serializable {
   @Column(name = "userId")
   private List<Long> players = new ArrayList<>();
   
+  // score, correct and total answers, ready status and summary of each player, one row per player
   @ElementCollection
-  @CollectionTable(name = "scoreboard", joinColumns = @JoinColumn(name = "gameId"))
+  @CollectionTable(name = "game_player_stats", joinColumns = @JoinColumn(name = "gameId"))
   @MapKeyColumn(name = "userId")
-  @Column(name = "userscore")
-  private Map<Long, Integer> scoreBoard = new HashMap<>();
-  
+  private Map<Long, PlayerStats> playerStats = new HashMap<>();
+
   @Column(nullable = false)
   private int hintsNumber;
 
@@ -80,30 +86,6 @@ public class Game implements Serializable {
 
   @Column(nullable = false)
   private String difficulty;
-  
-  @ElementCollection
-  @CollectionTable(name = "correct_answers", joinColumns = @JoinColumn(name = "gameId"))
-  @MapKeyColumn(name = "userId")
-  @Column(name = "correct")
-  private Map<Long, Integer> correctAnswersMap = new HashMap<>();
-  
-  @ElementCollection
-  @CollectionTable(name = "total_questions", joinColumns = @JoinColumn(name = "gameId"))
-  @MapKeyColumn(name = "userId")
-  @Column(name = "total")
-  private Map<Long, Integer> totalQuestionsMap = new HashMap<>();
-  
-  @ElementCollection
-  @CollectionTable(name = "result_summaries", joinColumns = @JoinColumn(name = "gameId"))
-  @MapKeyColumn(name = "userId")
-  @Column(name = "summary")
-  private Map<Long, String> resultSummaryMap = new HashMap<>();
-
-  @ElementCollection
-  @CollectionTable(name = "readymap", joinColumns = @JoinColumn(name = "gameId"))
-  @MapKeyColumn(name = "userId")
-  @Column(name = "readystatus")
-  private Map<Long, Boolean> readyMap = new HashMap<>();
 
   public Long getGameId() {
     return gameId;
@@ -157,23 +139,54 @@ public class Game implements Serializable {
       player.setGame(null); 
   }
 
-  //get scoreBoard
+  // the row of the player, created on first use
+  private PlayerStats statsOf(Long userId) {
+      return playerStats.computeIfAbsent(userId, id -> new PlayerStats());
+  }
+
+  private <T> T valueOf(Long userId, Function<PlayerStats, T> field) {
+      PlayerStats stats = playerStats.get(userId);
+      return stats == null ? null : field.apply(stats);
+  }
+
+  // one value of every player that has it, as a copy
+  private <T> Map<Long, T> column(Function<PlayerStats, T> field) {
+      Map<Long, T> values = new HashMap<>();
+      for (Map.Entry<Long, PlayerStats> stats : playerStats.entrySet()) {
+          T value = field.apply(stats.getValue());
+          if (value != null) { values.put(stats.getKey(), value); }
+      }
+      return values;
+  }
+
+  // replaces one value of every player, rows left without any value are dropped
+  private <T> void setColumn(Map<Long, T> values, BiConsumer<PlayerStats, T> field) {
+      for (PlayerStats stats : playerStats.values()) {
+          field.accept(stats, null);
+      }
+      if (values != null) {
+          values.forEach((userId, value) -> field.accept(statsOf(userId), value));
+      }
+      playerStats.values().removeIf(PlayerStats::isEmpty);
+  }
+
+  //get scoreBoard, a copy
   public Map<Long, Integer> getScoreBoard() {
-      return scoreBoard;
+      return column(PlayerStats::getScore);
   }
 
   public void setScoreBoard(Map<Long, Integer> scoreBoard) {
-      this.scoreBoard = scoreBoard;
+      setColumn(scoreBoard, PlayerStats::setScore);
   }
 
   // update scoreBoard
   public void updateScore(Long userId, int score) {
-      scoreBoard.put(userId, score);
+      statsOf(userId).setScore(score);
   }
 
   // get specific user's score
   public Integer getScore(Long userId) {
-      return scoreBoard.get(userId);
+      return valueOf(userId, PlayerStats::getScore);
   }
 
   // remove specific user's score
@@ -262,43 +275,43 @@ public class Game implements Serializable {
   }
 
   public Map<Long, String> getResultSummaryMap() {
-    return resultSummaryMap;
+    return column(PlayerStats::getSummary);
   }
 
   public void setResultSummaryMap(Map<Long, String> resultSummaryMap) {
-    this.resultSummaryMap = resultSummaryMap;
+    setColumn(resultSummaryMap, PlayerStats::setSummary);
   }
 
   public Map<Long, Integer> getTotalQuestionsMap() {
-    return totalQuestionsMap;
+    return column(PlayerStats::getTotalQuestions);
   }
 
   public void setTotalQuestionsMap(Map<Long, Integer> totalQuestionsMap) {
-    this.totalQuestionsMap = totalQuestionsMap;
+    setColumn(totalQuestionsMap, PlayerStats::setTotalQuestions);
   }
 
   public void updateTotalQuestions(Long userId, int number) {
-    totalQuestionsMap.put(userId, number);
+    statsOf(userId).setTotalQuestions(number);
   }
 
   public Integer getTotalQuestions(Long userId) {
-      return totalQuestionsMap.get(userId);
+      return valueOf(userId, PlayerStats::getTotalQuestions);
   }
 
   public Map<Long, Integer> getCorrectAnswersMap() {
-    return correctAnswersMap;
+    return column(PlayerStats::getCorrectAnswers);
   }
 
   public void setCorrectAnswersMap(Map<Long, Integer> correctAnswersMap) {
-    this.correctAnswersMap = correctAnswersMap;
+    setColumn(correctAnswersMap, PlayerStats::setCorrectAnswers);
   }
 
   public void updateCorrectAnswers(Long userId, int number) {
-    correctAnswersMap.put(userId, number);
+    statsOf(userId).setCorrectAnswers(number);
   }
 
   public Integer getCorrectAnswers(Long userId) {
-      return correctAnswersMap.get(userId);
+      return valueOf(userId, PlayerStats::getCorrectAnswers);
   }
 
   public String getDifficulty() {
@@ -310,30 +323,38 @@ public class Game implements Serializable {
   }
 
   public void setReadyStatus(Long userId) {
-      readyMap.put(userId, true);
+      statsOf(userId).setReady(true);
   }
 
   public Boolean setNotReadyStatus(Long userId) {
-      return readyMap.put(userId, false);
+      Boolean previous = getReadyStatus(userId);
+      statsOf(userId).setReady(false);
+      return previous;
   }
 
   public void removeReadyStatus(Long userId) {
-      readyMap.remove(userId);
+      PlayerStats stats = playerStats.get(userId);
+      if (stats == null) { return; }
+      stats.setReady(null);
+      if (stats.isEmpty()) { playerStats.remove(userId); }
   }
 
   public Boolean getReadyStatus(Long userId) {
-      return readyMap.get(userId);
+      return valueOf(userId, PlayerStats::getReady);
   }
 
   public Boolean switchReadyStatus(Long userId, Boolean status) {
-      return readyMap.put(userId, !status);
+      Boolean previous = getReadyStatus(userId);
+      statsOf(userId).setReady(!status);
+      return previous;
   }
 
+  // a copy, change it through the methods above
   public Map<Long, Boolean> getReadyMap() {
-      return this.readyMap;
+      return column(PlayerStats::getReady);
   }
 
   public void setReadyMap(Map<Long, Boolean> readyMap) {
-      this.readyMap = readyMap;
+      setColumn(readyMap, PlayerStats::setReady);
   }
 }
\ No newline at end of file
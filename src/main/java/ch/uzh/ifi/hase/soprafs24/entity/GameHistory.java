@@ -0,0 +1,129 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Game History
+ * One finished or abandoned game of one user. Rows are only appended, a user's
+ * history is read page by page, newest first, through the (userId,
+ * gameCreationDate) index.
+ */
+@Entity
+@Table(name = "GAME_HISTORY", indexes = @Index(name = "idx_history_user_date", columnList = "userId, gameCreationDate"))
+public class GameHistory implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue
+  private Long historyId;
+
+  @Column(nullable = false)
+  private Long userId;
+
+  @Column(nullable = false)
+  private String gameName;
+
+  @Column(nullable = false)
+  private int score;
+
+  @Column(nullable = false)
+  private int correctAnswers;
+
+  @Column(nullable = false)
+  private int totalQuestions;
+
+  @Column(nullable = false)
+  private LocalDateTime gameCreationDate;
+
+  @Column(nullable = false)
+  private int gameTime;
+
+  @Column(nullable = false)
+  private String modeType;
+
+  @Column(nullable = false)
+  private String difficulty;
+
+  public Long getHistoryId() {
+    return historyId;
+  }
+
+  public void setHistoryId(Long historyId) {
+    this.historyId = historyId;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getGameName() {
+    return gameName;
+  }
+
+  public void setGameName(String gameName) {
+    this.gameName = gameName;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(int correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public int getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(int totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+
+  public LocalDateTime getGameCreationDate() {
+    return gameCreationDate;
+  }
+
+  public void setGameCreationDate(LocalDateTime gameCreationDate) {
+    this.gameCreationDate = gameCreationDate;
+  }
+
+  public int getGameTime() {
+    return gameTime;
+  }
+
+  public void setGameTime(int gameTime) {
+    this.gameTime = gameTime;
+  }
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+}
@@ -0,0 +1,126 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * History Bucket
+ * The games of one user in one month, mode and difficulty, summed up. Old rows
+ * of the game history are folded into these buckets by the compaction job.
+ */
+@Entity
+@Table(name = "HISTORY_BUCKET",
+    uniqueConstraints = @UniqueConstraint(name = "uk_bucket_user_month", columnNames = {"userId", "monthStart", "modeType", "difficulty"}))
+public class HistoryBucket implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue
+  private Long bucketId;
+
+  @Column(nullable = false)
+  private Long userId;
+
+  // first day of the month
+  @Column(nullable = false)
+  private LocalDate monthStart;
+
+  @Column
+  private String modeType;
+
+  @Column
+  private String difficulty;
+
+  @Column(nullable = false)
+  private int games;
+
+  @Column(nullable = false)
+  private long totalScore;
+
+  @Column(nullable = false)
+  private long correctAnswers;
+
+  @Column(nullable = false)
+  private long totalQuestions;
+
+  public void add(GameHistory history) {
+    games++;
+    totalScore += history.getScore();
+    correctAnswers += history.getCorrectAnswers();
+    totalQuestions += history.getTotalQuestions();
+  }
+
+  public Long getBucketId() {
+    return bucketId;
+  }
+
+  public void setBucketId(Long bucketId) {
+    this.bucketId = bucketId;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public LocalDate getMonthStart() {
+    return monthStart;
+  }
+
+  public void setMonthStart(LocalDate monthStart) {
+    this.monthStart = monthStart;
+  }
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  public void setGames(int games) {
+    this.games = games;
+  }
+
+  public long getTotalScore() {
+    return totalScore;
+  }
+
+  public void setTotalScore(long totalScore) {
+    this.totalScore = totalScore;
+  }
+
+  public long getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(long correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public long getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(long totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+}
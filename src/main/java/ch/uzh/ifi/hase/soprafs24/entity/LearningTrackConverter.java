@@ -0,0 +1,47 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Learning Track Converter
+ * Stores the correct answers per country, an int array indexed by Country
+ * ordinal, as one short text column such as "Japan:3,Switzerland:1". Countries
+ * are written by name and only when counted, so the column stays small and
+ * survives changes to the order of the enum; unknown names are skipped.
+ */
+@Converter
+public class LearningTrackConverter implements AttributeConverter<int[], String> {
+
+    private static final Country[] COUNTRIES = Country.values();
+
+    @Override
+    public String convertToDatabaseColumn(int[] track) {
+        StringBuilder column = new StringBuilder();
+        for (int i = 0; track != null && i < Math.min(track.length, COUNTRIES.length); i++) {
+            if (track[i] == 0) { continue; }
+            if (column.length() > 0) { column.append(','); }
+            column.append(COUNTRIES[i].name()).append(':').append(track[i]);
+        }
+        return column.toString();
+    }
+
+    @Override
+    public int[] convertToEntityAttribute(String column) {
+        int[] track = new int[COUNTRIES.length];
+        if (column == null || column.isEmpty()) { return track; }
+        for (String entry : column.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) { continue; }
+            try {
+                track[Country.valueOf(entry.substring(0, separator)).ordinal()] = Integer.parseInt(entry.substring(separator + 1));
+            }
+            catch (IllegalArgumentException e) {
+                // a country that no longer exists, or a broken count
+            }
+        }
+        return track;
+    }
+}
@@ -0,0 +1,92 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Player Stats
+ * Everything a game keeps about one of its players, stored as one row keyed by
+ * (gameId, userId). A field is null while the game has no value for the player,
+ * e.g. no ready status before they joined the ready check.
+ */
+@Embeddable
+public class PlayerStats implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "score")
+  private Integer score;
+
+  @Column(name = "correct")
+  private Integer correctAnswers;
+
+  @Column(name = "total")
+  private Integer totalQuestions;
+
+  @Column(name = "ready")
+  private Boolean ready;
+
+  @Column(name = "summary")
+  private String summary;
+
+  boolean isEmpty() {
+    return score == null && correctAnswers == null && totalQuestions == null && ready == null && summary == null;
+  }
+
+  public Integer getScore() {
+    return score;
+  }
+
+  public void setScore(Integer score) {
+    this.score = score;
+  }
+
+  public Integer getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(Integer correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public Integer getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(Integer totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+
+  public Boolean getReady() {
+    return ready;
+  }
+
+  public void setReady(Boolean ready) {
+    this.ready = ready;
+  }
+
+  public String getSummary() {
+    return summary;
+  }
+
+  public void setSummary(String summary) {
+    this.summary = summary;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) { return true; }
+    if (!(o instanceof PlayerStats)) { return false; }
+    PlayerStats other = (PlayerStats) o;
+    return Objects.equals(score, other.score) && Objects.equals(correctAnswers, other.correctAnswers)
+        && Objects.equals(totalQuestions, other.totalQuestions) && Objects.equals(ready, other.ready)
+        && Objects.equals(summary, other.summary);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(score, correctAnswers, totalQuestions, ready, summary);
+  }
+}
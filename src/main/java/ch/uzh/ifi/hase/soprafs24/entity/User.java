@@ -7,10 +7,7 @@ import javax.persistence.*;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
 
 
@@ -30,100 +27,6 @@ public class User implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    @Embeddable
-    public static class GameQuickSave {
-
-        public GameQuickSave() {
-        }
-        @Column(name = "gameName", nullable = false)
-        private String gameName;
-
-        @Column(name = "score", nullable = false)
-        private int score;
-
-        @Column(name = "correctanswers", nullable = false)
-        private int correctAnswers;
-
-        @Column(name = "totalQuestions", nullable = false)
-        private int totalQuestions;
-
-        @Column(name = "gameCreationDate", nullable = false)
-        private LocalDateTime gameCreationDate;
-
-        @Column(name = "gameTime", nullable = false)
-        private int gameTime;
-
-        @Column(name = "modeType", nullable = false)
-        private String modeType;
-
-        @Column(name = "Difficulty", nullable = false)
-        private String difficulty;
-
-        public String getGameName() {
-            return gameName;
-        }
-
-        public void setGameName(String gameName) {
-            this.gameName = gameName;
-        }
-
-        public int getScore() {
-            return score;
-        }
-
-        public void setScore(int score) {
-            this.score = score;
-        }
-
-        public int getCorrectAnswers() {
-            return correctAnswers;
-        }
-
-        public void setCorrectAnswers(int correctAnswers) {
-            this.correctAnswers = correctAnswers;
-        }
-
-        public int getTotalQuestions() {
-            return totalQuestions;
-        }
-
-        public void setTotalQuestions(int totalQuestions) {
-            this.totalQuestions = totalQuestions;
-        }
-
-        public LocalDateTime getGameCreationDate() {
-            return gameCreationDate;
-        }
-        
-        public void setGameCreationDate(LocalDateTime gameCreationDate) {
-            this.gameCreationDate = gameCreationDate;
-        }
-
-        public int getGameTime() {
-            return gameTime;
-        }
-        
-        public void setGameTime(int gameTime) {
-            this.gameTime = gameTime;
-        }
-
-        public String getModeType() {
-            return modeType;
-         }
-       
-        public void setModeType(String modeType) {
-           this.modeType = modeType;
-        }
-
-        public String getDifficulty() {
-            return difficulty;
-        }
-
-        public void setDifficulty(String difficulty) {
-            this.difficulty = difficulty;
-  }
-    }
-
     @Id
     @GeneratedValue
     private Long userId;
@@ -149,24 +52,19 @@ public class User implements Serializable {
     @Column(nullable = false)
     private String bio;
 
-    @ManyToOne
+    // loaded on first access, reads that only need the game's id or columns use the repository projections;
+    // player lists sent as entities still carry the whole game, initialised while they are serialised
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "gameId", nullable = true)
     private Game game;
 
     @Column(precision = 8, scale = 1) 
     private BigDecimal level = new BigDecimal("0.0");
 
-    @ElementCollection
-    @CollectionTable(name = "userGameHistory", joinColumns = @JoinColumn(name = "userId"))
-    @OrderBy("gameCreationDate DESC")
-    @MapKeyColumn(name = "gameId")
-    private List<GameQuickSave> gameHistory = new ArrayList<>();
-
-    @ElementCollection
-    @CollectionTable(name = "userLearningTrack", joinColumns = @JoinColumn(name = "userId"))
-    @MapKeyColumn(name = "Country")
-    @Column(name = "Counter")
-    private Map<Country, Integer> learningTracking = new HashMap<>();
+    // correct combat answers per country, indexed by Country ordinal
+    @Convert(converter = LearningTrackConverter.class)
+    @Column(name = "learningTrack", length = 4096)
+    private int[] learningTrack = new int[Country.values().length];
 
     public Long getUserId() {
         return userId;
@@ -248,37 +146,24 @@ public class User implements Serializable {
         this.level = level;
     }
 
-
-    public void setGameHistory(String gameName, int score, int correct, int total, LocalDateTime gameCreationDate, int gameTime, String modeType, String difficulty) {
-        GameQuickSave gameQuickSave = new GameQuickSave();
-        gameQuickSave.setGameName(gameName); 
-        gameQuickSave.setScore(score);
-        gameQuickSave.setCorrectAnswers(correct);
-        gameQuickSave.setTotalQuestions(total);
-        gameQuickSave.setGameCreationDate(gameCreationDate);
-        gameQuickSave.setGameTime(gameTime);
-        gameQuickSave.setModeType(modeType);
-        gameQuickSave.setDifficulty(difficulty);
-        gameHistory.add(gameQuickSave);
-    }
-
-    public List<GameQuickSave> getGameHistory(){
-        return gameHistory;
+    public void updateLearningTrack(Country country){
+        learningTrack[country.ordinal()]++;
     }
 
-    public void updateGameHistory(String username){
-        for(GameQuickSave gameQuickSave : gameHistory){
-            if(gameQuickSave.getModeType().equals("solo")){
-                gameQuickSave.setGameName(username+"-Solo");
-            }
+    /** Adds the correct answers of a game, indexed by Country ordinal. */
+    public void addLearningTrack(int[] countryCorrect){
+        for (int i = 0; i < Math.min(countryCorrect.length, learningTrack.length); i++) {
+            learningTrack[i] += countryCorrect[i];
         }
     }
-    
-    public void updateLearningTrack(Country country){
-        learningTracking.merge(country, 1, Integer::sum);
-    }
 
+    // the counted countries only
     public Map<Country,Integer> getLearningTracking(){
+        Map<Country, Integer> learningTracking = new EnumMap<>(Country.class);
+        Country[] countries = Country.values();
+        for (int i = 0; i < learningTrack.length; i++) {
+            if (learningTrack[i] > 0) { learningTracking.put(countries[i], learningTrack[i]); }
+        }
         return learningTracking;
     }
 }
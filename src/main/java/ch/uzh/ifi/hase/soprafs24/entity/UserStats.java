@@ -0,0 +1,196 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * User Stats
+ * Running totals of one user's games in one mode and difficulty, added to
+ * whenever a game of the user is settled. A user has a handful of these rows,
+ * so statistics are read without looking at the game history.
+ */
+@Entity
+@Table(name = "USER_STATS",
+    uniqueConstraints = @UniqueConstraint(name = "uk_stats_user_mode", columnNames = {"userId", "modeType", "difficulty"}))
+public class UserStats implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue
+  private Long statsId;
+
+  @Column(nullable = false)
+  private Long userId;
+
+  @Column
+  private String modeType;
+
+  @Column
+  private String difficulty;
+
+  @Column(nullable = false)
+  private int gamesPlayed;
+
+  @Column(nullable = false)
+  private long totalScore;
+
+  @Column(nullable = false)
+  private long correctAnswers;
+
+  @Column(nullable = false)
+  private long totalQuestions;
+
+  // correct answers per continent
+  @Column(nullable = false)
+  private long europeCorrect;
+
+  @Column(nullable = false)
+  private long asiaCorrect;
+
+  @Column(nullable = false)
+  private long americasCorrect;
+
+  @Column(nullable = false)
+  private long africaCorrect;
+
+  @Column(nullable = false)
+  private long oceaniaCorrect;
+
+  /** Adds one settled game, continentCorrect is indexed by Continent ordinal. */
+  public void add(GameHistory history, int[] continentCorrect) {
+    gamesPlayed++;
+    totalScore += history.getScore();
+    correctAnswers += history.getCorrectAnswers();
+    totalQuestions += history.getTotalQuestions();
+    for (Continent continent : Continent.values()) {
+      addCorrect(continent, continentCorrect[continent.ordinal()]);
+    }
+  }
+
+  public long getCorrect(Continent continent) {
+    switch (continent) {
+      case Europe: return europeCorrect;
+      case Asia: return asiaCorrect;
+      case Americas: return americasCorrect;
+      case Africa: return africaCorrect;
+      default: return oceaniaCorrect;
+    }
+  }
+
+  private void addCorrect(Continent continent, long correct) {
+    switch (continent) {
+      case Europe: europeCorrect += correct; break;
+      case Asia: asiaCorrect += correct; break;
+      case Americas: americasCorrect += correct; break;
+      case Africa: africaCorrect += correct; break;
+      default: oceaniaCorrect += correct;
+    }
+  }
+
+  public Long getStatsId() {
+    return statsId;
+  }
+
+  public void setStatsId(Long statsId) {
+    this.statsId = statsId;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  public int getGamesPlayed() {
+    return gamesPlayed;
+  }
+
+  public void setGamesPlayed(int gamesPlayed) {
+    this.gamesPlayed = gamesPlayed;
+  }
+
+  public long getTotalScore() {
+    return totalScore;
+  }
+
+  public void setTotalScore(long totalScore) {
+    this.totalScore = totalScore;
+  }
+
+  public long getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(long correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public long getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(long totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+
+  public long getEuropeCorrect() {
+    return europeCorrect;
+  }
+
+  public void setEuropeCorrect(long europeCorrect) {
+    this.europeCorrect = europeCorrect;
+  }
+
+  public long getAsiaCorrect() {
+    return asiaCorrect;
+  }
+
+  public void setAsiaCorrect(long asiaCorrect) {
+    this.asiaCorrect = asiaCorrect;
+  }
+
+  public long getAmericasCorrect() {
+    return americasCorrect;
+  }
+
+  public void setAmericasCorrect(long americasCorrect) {
+    this.americasCorrect = americasCorrect;
+  }
+
+  public long getAfricaCorrect() {
+    return africaCorrect;
+  }
+
+  public void setAfricaCorrect(long africaCorrect) {
+    this.africaCorrect = africaCorrect;
+  }
+
+  public long getOceaniaCorrect() {
+    return oceaniaCorrect;
+  }
+
+  public void setOceaniaCorrect(long oceaniaCorrect) {
+    this.oceaniaCorrect = oceaniaCorrect;
+  }
+}
@@ -0,0 +1,18 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chat Membership
+ * What the chat checks about a game and a sender, read in one select without
+ * loading the game's collections or the user.
+ */
+public interface ChatMembership {
+  Long getGameId();
+
+  LocalDateTime getEndTime();
+
+  Long getUserId();
+
+  boolean getParticipant();
+}
@@ -0,0 +1,37 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository("gameHistoryRepository")
+public interface GameHistoryRepository extends JpaRepository<GameHistory, Long> {
+
+  // keyset page of a user's games older than the cursor row, newest first, a null filter matches every game
+  @Query("select h from GameHistory h where h.userId = :userId "
+      + "and (:modeType is null or h.modeType = :modeType) "
+      + "and (:difficulty is null or h.difficulty = :difficulty) "
+      + "and (:cursor is null "
+      + "or h.gameCreationDate < (select c.gameCreationDate from GameHistory c where c.historyId = :cursor) "
+      + "or (h.gameCreationDate = (select c.gameCreationDate from GameHistory c where c.historyId = :cursor) "
+      + "and h.historyId < :cursor)) "
+      + "order by h.gameCreationDate desc, h.historyId desc")
+  List<GameHistory> findHistoryPage(@Param("userId") Long userId, @Param("modeType") String modeType,
+      @Param("difficulty") String difficulty, @Param("cursor") Long cursor, Pageable pageable);
+
+  // users after the given userId with more than keep games, in userId order
+  @Query("select h.userId from GameHistory h where h.userId > :after "
+      + "group by h.userId having count(h) > :keep order by h.userId")
+  List<Long> findUsersToCompact(@Param("after") Long after, @Param("keep") long keep, Pageable pageable);
+
+  @Modifying
+  @Query("update GameHistory h set h.gameName = :gameName where h.userId = :userId and h.modeType = :modeType")
+  int renameGames(@Param("userId") Long userId, @Param("modeType") String modeType, @Param("gameName") String gameName);
+}
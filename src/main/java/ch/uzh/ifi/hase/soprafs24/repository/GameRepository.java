@@ -4,7 +4,11 @@ import ch.uzh.ifi.hase.soprafs24.entity.Game;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository("gameRepository")
@@ -19,6 +23,34 @@ public interface GameRepository extends JpaRepository<Game, Long> {
 
   Game findBygameCode(String gameGame);
 
+  // the player stats come in the same select, the lobby maps every room with its scoreboard
+  @EntityGraph(attributePaths = "playerStats")
+  List<Game> findByModeType(String modeType);
+
+  // one row if both the game and the user exist, participant tells whether the user plays in it
+  @Query("select g.gameId as gameId, g.endTime as endTime, u.userId as userId, "
+      + "case when u.userId in (select p from Game pg join pg.players p where pg.gameId = g.gameId) "
+      + "then true else false end as participant "
+      + "from Game g, User u where g.gameId = :gameId and u.username = :username")
+  ChatMembership findChatMembership(@Param("gameId") Long gameId, @Param("username") String username);
+
+  // keyset page of combat rooms after the cursor, a null filter matches every room
+  @Query("select g.gameId as gameId, g.gameName as gameName, g.ownerId as ownerId, g.difficulty as difficulty, "
+      + "g.time as time, g.playersNumber as playersNumber, g.realPlayersNumber as realPlayersNumber, "
+      + "g.gameRunning as gameRunning, "
+      + "case when g.password is null or g.password = '' then false else true end as locked "
+      + "from Game g where g.modeType = 'combat' and g.gameId > :cursor "
+      + "and (:difficulty is null or g.difficulty = :difficulty) "
+      + "and g.playersNumber - g.realPlayersNumber >= :minOpenSlots "
+      + "and (:locked is null "
+      + "or (:locked = true and g.password is not null and g.password <> '') "
+      + "or (:locked = false and (g.password is null or g.password = ''))) "
+      + "and (:time is null or g.time = :time) "
+      + "order by g.gameId")
+  List<LobbyRoom> findLobbyRooms(@Param("cursor") Long cursor, @Param("difficulty") String difficulty,
+      @Param("minOpenSlots") int minOpenSlots, @Param("locked") Boolean locked, @Param("time") Integer time,
+      Pageable pageable);
+
   void deleteByGameId(Long gameId);
 
 }
@@ -0,0 +1,15 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.HistoryBucket;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository("historyBucketRepository")
+public interface HistoryBucketRepository extends JpaRepository<HistoryBucket, Long> {
+  List<HistoryBucket> findByUserId(Long userId);
+
+  List<HistoryBucket> findByUserIdOrderByMonthStartDesc(Long userId);
+}
@@ -0,0 +1,17 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Leaderboard Row
+ * The columns of a user the leaderboard is seeded with at startup.
+ */
+public interface LeaderboardRow {
+  Long getUserId();
+
+  String getUsername();
+
+  String getAvatar();
+
+  BigDecimal getLevel();
+}
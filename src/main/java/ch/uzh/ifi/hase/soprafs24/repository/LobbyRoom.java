@@ -0,0 +1,26 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+/**
+ * Lobby Room
+ * The columns of a combat room the lobby shows, read without loading the
+ * element collections of the game.
+ */
+public interface LobbyRoom {
+  Long getGameId();
+
+  String getGameName();
+
+  Long getOwnerId();
+
+  String getDifficulty();
+
+  int getTime();
+
+  int getPlayersNumber();
+
+  int getRealPlayersNumber();
+
+  boolean getGameRunning();
+
+  boolean getLocked();
+}
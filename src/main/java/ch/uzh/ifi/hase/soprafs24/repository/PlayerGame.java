@@ -0,0 +1,13 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+/**
+ * Player Game
+ * The game a user is in, read without loading the user or the game.
+ */
+public interface PlayerGame {
+  Long getUserId();
+
+  Long getGameId();
+
+  String getModeType();
+}
@@ -1,9 +1,15 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository("userRepository")
 public interface UserRepository extends JpaRepository<User, Long> {
   User findByUsername(String username);
@@ -11,4 +17,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
   User findByUserId(Long userId);
 
   User findByToken(String token);
+
+  @Query("SELECT u.userId AS userId, u.username AS username, u.avatar AS avatar, u.level AS level FROM User u")
+  List<LeaderboardRow> findLeaderboardRows();
+
+  // the status alone, for the presence checks on heartbeats and new sessions
+  @Query("select u.status from User u where u.userId = :userId")
+  UserStatus findStatusByUserId(@Param("userId") Long userId);
+
+  // the game of each user that is in one, users without a game are left out
+  @Query("select u.userId as userId, g.gameId as gameId, g.modeType as modeType from User u join u.game g "
+      + "where u.userId in :userIds")
+  List<PlayerGame> findPlayerGames(@Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,15 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.UserStats;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository("userStatsRepository")
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+  List<UserStats> findByUserId(Long userId);
+
+  UserStats findByUserIdAndModeTypeAndDifficulty(Long userId, String modeType, String difficulty);
+}
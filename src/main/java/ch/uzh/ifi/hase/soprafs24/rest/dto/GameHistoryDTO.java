@@ -0,0 +1,96 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.time.LocalDateTime;
+
+public class GameHistoryDTO {
+
+  private Long historyId;
+
+  private String gameName;
+
+  private int score;
+
+  private int correctAnswers;
+
+  private int totalQuestions;
+
+  private LocalDateTime gameCreationDate;
+
+  private int gameTime;
+
+  private String modeType;
+
+  private String difficulty;
+
+  public Long getHistoryId() {
+    return historyId;
+  }
+
+  public void setHistoryId(Long historyId) {
+    this.historyId = historyId;
+  }
+
+  public String getGameName() {
+    return gameName;
+  }
+
+  public void setGameName(String gameName) {
+    this.gameName = gameName;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(int correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public int getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(int totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+
+  public LocalDateTime getGameCreationDate() {
+    return gameCreationDate;
+  }
+
+  public void setGameCreationDate(LocalDateTime gameCreationDate) {
+    this.gameCreationDate = gameCreationDate;
+  }
+
+  public int getGameTime() {
+    return gameTime;
+  }
+
+  public void setGameTime(int gameTime) {
+    this.gameTime = gameTime;
+  }
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+}
@@ -0,0 +1,76 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.time.LocalDate;
+
+public class HistoryBucketDTO {
+
+  private LocalDate monthStart;
+
+  private String modeType;
+
+  private String difficulty;
+
+  private int games;
+
+  private long totalScore;
+
+  private long correctAnswers;
+
+  private long totalQuestions;
+
+  public LocalDate getMonthStart() {
+    return monthStart;
+  }
+
+  public void setMonthStart(LocalDate monthStart) {
+    this.monthStart = monthStart;
+  }
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  public void setGames(int games) {
+    this.games = games;
+  }
+
+  public long getTotalScore() {
+    return totalScore;
+  }
+
+  public void setTotalScore(long totalScore) {
+    this.totalScore = totalScore;
+  }
+
+  public long getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public void setCorrectAnswers(long correctAnswers) {
+    this.correctAnswers = correctAnswers;
+  }
+
+  public long getTotalQuestions() {
+    return totalQuestions;
+  }
+
+  public void setTotalQuestions(long totalQuestions) {
+    this.totalQuestions = totalQuestions;
+  }
+}
@@ -0,0 +1,26 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+public class HistoryPageDTO {
+
+  private List<GameHistoryDTO> gameHistory;
+
+  private Long nextCursor;
+
+  public List<GameHistoryDTO> getGameHistory() {
+    return gameHistory;
+  }
+
+  public void setGameHistory(List<GameHistoryDTO> gameHistory) {
+    this.gameHistory = gameHistory;
+  }
+
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(Long nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
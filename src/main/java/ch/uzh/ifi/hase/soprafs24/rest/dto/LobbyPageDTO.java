@@ -0,0 +1,36 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+public class LobbyPageDTO {
+
+  private long version;
+
+  private List<LobbyRoomDTO> rooms;
+
+  private Long nextCursor;
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public List<LobbyRoomDTO> getRooms() {
+    return rooms;
+  }
+
+  public void setRooms(List<LobbyRoomDTO> rooms) {
+    this.rooms = rooms;
+  }
+
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(Long nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
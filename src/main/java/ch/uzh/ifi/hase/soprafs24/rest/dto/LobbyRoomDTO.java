@@ -0,0 +1,104 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+public class LobbyRoomDTO {
+
+  private Long gameId;
+
+  private String gameName;
+
+  private Long ownerId;
+
+  private String difficulty;
+
+  private int time;
+
+  private int playersNumber;
+
+  private int realPlayersNumber;
+
+  private int openSlots;
+
+  private boolean locked;
+
+  private boolean gameRunning;
+
+  public Long getGameId() {
+    return gameId;
+  }
+
+  public void setGameId(Long gameId) {
+    this.gameId = gameId;
+  }
+
+  public String getGameName() {
+    return gameName;
+  }
+
+  public void setGameName(String gameName) {
+    this.gameName = gameName;
+  }
+
+  public Long getOwnerId() {
+    return ownerId;
+  }
+
+  public void setOwnerId(Long ownerId) {
+    this.ownerId = ownerId;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  public int getTime() {
+    return time;
+  }
+
+  public void setTime(int time) {
+    this.time = time;
+  }
+
+  public int getPlayersNumber() {
+    return playersNumber;
+  }
+
+  public void setPlayersNumber(int playersNumber) {
+    this.playersNumber = playersNumber;
+  }
+
+  public int getRealPlayersNumber() {
+    return realPlayersNumber;
+  }
+
+  public void setRealPlayersNumber(int realPlayersNumber) {
+    this.realPlayersNumber = realPlayersNumber;
+  }
+
+  public int getOpenSlots() {
+    return openSlots;
+  }
+
+  public void setOpenSlots(int openSlots) {
+    this.openSlots = openSlots;
+  }
+
+  public boolean getLocked() {
+    return locked;
+  }
+
+  public void setLocked(boolean locked) {
+    this.locked = locked;
+  }
+
+  public boolean getGameRunning() {
+    return gameRunning;
+  }
+
+  public void setGameRunning(boolean gameRunning) {
+    this.gameRunning = gameRunning;
+  }
+}
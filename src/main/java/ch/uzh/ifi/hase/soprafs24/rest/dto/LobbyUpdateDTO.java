@@ -0,0 +1,59 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+public class LobbyUpdateDTO {
+
+  public static final String DELTA = "delta";
+  public static final String SNAPSHOT = "snapshot";
+
+  private String type;
+
+  private long version;
+
+  private List<GameGetDTO> added;
+
+  private List<GameGetDTO> updated;
+
+  private List<Long> removed;
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public List<GameGetDTO> getAdded() {
+    return added;
+  }
+
+  public void setAdded(List<GameGetDTO> added) {
+    this.added = added;
+  }
+
+  public List<GameGetDTO> getUpdated() {
+    return updated;
+  }
+
+  public void setUpdated(List<GameGetDTO> updated) {
+    this.updated = updated;
+  }
+
+  public List<Long> getRemoved() {
+    return removed;
+  }
+
+  public void setRemoved(List<Long> removed) {
+    this.removed = removed;
+  }
+}
@@ -0,0 +1,54 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+public class ModeStatisticsDTO {
+
+  private String modeType;
+
+  private String difficulty;
+
+  private int gamesPlayed;
+
+  private double accuracy;
+
+  private double averageScore;
+
+  public String getModeType() {
+    return modeType;
+  }
+
+  public void setModeType(String modeType) {
+    this.modeType = modeType;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  public int getGamesPlayed() {
+    return gamesPlayed;
+  }
+
+  public void setGamesPlayed(int gamesPlayed) {
+    this.gamesPlayed = gamesPlayed;
+  }
+
+  public double getAccuracy() {
+    return accuracy;
+  }
+
+  public void setAccuracy(double accuracy) {
+    this.accuracy = accuracy;
+  }
+
+  public double getAverageScore() {
+    return averageScore;
+  }
+
+  public void setAverageScore(double averageScore) {
+    this.averageScore = averageScore;
+  }
+}
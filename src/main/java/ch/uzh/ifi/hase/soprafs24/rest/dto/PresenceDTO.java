@@ -0,0 +1,24 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+public class PresenceDTO {
+
+  private Long userId;
+
+  private boolean online;
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public boolean getOnline() {
+    return online;
+  }
+
+  public void setOnline(boolean online) {
+    this.online = online;
+  }
+}
@@ -0,0 +1,39 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+public class ScoreBoardUpdateDTO {
+
+  public static final String DELTA = "delta";
+  public static final String SNAPSHOT = "snapshot";
+
+  private String type;
+
+  private long version;
+
+  private List<ScoreEntryDTO> entries;
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public List<ScoreEntryDTO> getEntries() {
+    return entries;
+  }
+
+  public void setEntries(List<ScoreEntryDTO> entries) {
+    this.entries = entries;
+  }
+}
@@ -0,0 +1,54 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+public class ScoreEntryDTO {
+
+  private Long userId;
+
+  private String username;
+
+  private int score;
+
+  private int rank;
+
+  private int rankChange;
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getRank() {
+    return rank;
+  }
+
+  public void setRank(int rank) {
+    this.rank = rank;
+  }
+
+  public int getRankChange() {
+    return rankChange;
+  }
+
+  public void setRankChange(int rankChange) {
+    this.rankChange = rankChange;
+  }
+}
@@ -5,7 +5,6 @@ import java.util.List;
 
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
-import ch.uzh.ifi.hase.soprafs24.entity.User.GameQuickSave;
 
 public class UserGetDTO {
 
@@ -17,7 +16,6 @@ public class UserGetDTO {
   private String email;
   private String bio;
   private int level;
-  private List<GameQuickSave> gameHistory;
   private Map<Country, Integer> learningTracking;
   private Map<Long, Boolean> readyMap;
   private boolean isPlayingGame;
@@ -86,14 +84,6 @@ public class UserGetDTO {
     this.level = level;
   }
 
-  public void setGameHistory(List<GameQuickSave> gameHistory){
-    this.gameHistory = gameHistory;
-  }
-
-  public List<GameQuickSave> getGameHistory(){
-    return gameHistory;
-  }
-
   public void setLearningTracking(Map<Country,Integer> learningTracking){
     this.learningTracking = learningTracking;
   }
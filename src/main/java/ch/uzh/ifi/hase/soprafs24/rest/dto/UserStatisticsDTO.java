@@ -0,0 +1,60 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import java.util.List;
+import java.util.Map;
+
+public class UserStatisticsDTO {
+
+  private Map<Country, Integer> learningTracking;
+
+  private int gamesPlayed;
+
+  private double accuracy;
+
+  private List<ModeStatisticsDTO> modes;
+
+  private Map<Continent, Long> continentCorrect;
+
+  public Map<Country, Integer> getLearningTracking() {
+    return learningTracking;
+  }
+
+  public void setLearningTracking(Map<Country, Integer> learningTracking) {
+    this.learningTracking = learningTracking;
+  }
+
+  public int getGamesPlayed() {
+    return gamesPlayed;
+  }
+
+  public void setGamesPlayed(int gamesPlayed) {
+    this.gamesPlayed = gamesPlayed;
+  }
+
+  public double getAccuracy() {
+    return accuracy;
+  }
+
+  public void setAccuracy(double accuracy) {
+    this.accuracy = accuracy;
+  }
+
+  public List<ModeStatisticsDTO> getModes() {
+    return modes;
+  }
+
+  public void setModes(List<ModeStatisticsDTO> modes) {
+    this.modes = modes;
+  }
+
+  public Map<Continent, Long> getContinentCorrect() {
+    return continentCorrect;
+  }
+
+  public void setContinentCorrect(Map<Continent, Long> continentCorrect) {
+    this.continentCorrect = continentCorrect;
+  }
+}
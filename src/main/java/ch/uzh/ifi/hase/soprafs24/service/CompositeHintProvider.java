@@ -0,0 +1,97 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asks the providers in order and returns the first answer. Local providers are
+ * called directly; remote ones only get what is left of the latency budget and
+ * are given up on when it runs out, the rest of the chain is tried after that.
+ * A remote answer that arrives late still completes in the background, so the
+ * LLM provider keeps it in the corpus.
+ */
+public class CompositeHintProvider implements HintProvider {
+
+    private final Logger log = LoggerFactory.getLogger(CompositeHintProvider.class);
+
+    private final List<HintProvider> providers;
+    private final long budgetMillis;
+
+    public CompositeHintProvider(List<HintProvider> providers, long budgetMillis) {
+        this.providers = providers;
+        this.budgetMillis = budgetMillis;
+    }
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+        return generateAll(List.of(country), clueNumber, difficulty);
+    }
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generateAll(List<Country> countries, int clueNumber, String difficulty) {
+        return generateAllAsync(countries, clueNumber, difficulty).join();
+    }
+
+    /**
+     * Each provider only gets the countries the providers before it could not
+     * answer, a remote one all of them in a single call.
+     */
+    @Override
+    public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        return ask(0, new ArrayList<>(countries), new HashMap<>(), clueNumber, difficulty, deadline);
+    }
+
+    private CompletableFuture<Map<Country, List<Map<String, Object>>>> ask(int index, List<Country> missing, Map<Country, List<Map<String, Object>>> result,
+                                                                           int clueNumber, String difficulty, long deadline) {
+        if (index == providers.size() || missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result.isEmpty() ? null : result);
+        }
+        HintProvider provider = providers.get(index);
+        List<Country> asked = List.copyOf(missing);
+        CompletableFuture<Map<Country, List<Map<String, Object>>>> answer;
+        if (provider.isLocal()) {
+            answer = provider.generateAllAsync(asked, clueNumber, difficulty);
+        }
+        else {
+            long remainingNanos = deadline - System.nanoTime();
+            answer = remainingNanos <= 0
+                ? CompletableFuture.completedFuture(null)
+                : provider.generateAllAsync(asked, clueNumber, difficulty).copy().orTimeout(remainingNanos, TimeUnit.NANOSECONDS);
+        }
+
+        return answer
+            .exceptionally(error -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    log.warn("{} exceeded the hint latency budget for {}", provider.getClass().getSimpleName(), asked);
+                }
+                else {
+                    log.warn("{} failed for {}: {}", provider.getClass().getSimpleName(), asked, cause.getMessage());
+                }
+                return null;
+            })
+            .thenCompose(clues -> {
+                if (clues != null) {
+                    for (Country country : asked) {
+                        List<Map<String, Object>> clueList = clues.get(country);
+                        if (clueList != null && !clueList.isEmpty()) {
+                            result.put(country, clueList);
+                            missing.remove(country);
+                        }
+                    }
+                }
+                return ask(index + 1, missing, result, clueNumber, difficulty, deadline);
+            });
+    }
+}
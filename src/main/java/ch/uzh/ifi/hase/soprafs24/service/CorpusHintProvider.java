@@ -0,0 +1,33 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves stored clue sets from the hint corpus. With freshOnly it only answers
+ * for countries the corpus has enough recent sets for, otherwise it answers
+ * whenever any set is stored.
+ */
+public class CorpusHintProvider implements HintProvider {
+
+    private final HintCorpus hintCorpus;
+    private final boolean freshOnly;
+
+    public CorpusHintProvider(HintCorpus hintCorpus, boolean freshOnly) {
+        this.hintCorpus = hintCorpus;
+        this.freshOnly = freshOnly;
+    }
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+        if (freshOnly && hintCorpus.needsNewClues(country)) { return null; }
+        return hintCorpus.pick(country);
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+}
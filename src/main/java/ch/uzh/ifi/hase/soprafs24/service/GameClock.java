@@ -0,0 +1,196 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Game Clock
+ * Shared hashed timing wheel that drives every time based event of the running
+ * games (countdowns, delayed stages, ...). One ticker thread advances the wheel
+ * and hands expired tasks to one worker thread, so no game ever holds a thread
+ * while it waits.
+ */
+@Component
+public class GameClock {
+
+    static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512; // power of two, ~51s per revolution
+    private static final long TICKS_PER_SECOND = 1000 / TICK_MILLIS;
+
+    private final Logger log = LoggerFactory.getLogger(GameClock.class);
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Timeout>[] wheel = new ArrayDeque[WHEEL_SIZE];
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Countdown> countdowns = new ConcurrentHashMap<>();
+
+    private volatile long currentTick = 0;
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService worker;
+
+    public GameClock() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "game-clock-ticker"));
+        worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "game-clock-worker"));
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        worker.shutdownNow();
+    }
+
+    public static class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public void cancel() { cancelled = true; }
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long delayTicks = Math.max(1, (unit.toMillis(delay) + TICK_MILLIS - 1) / TICK_MILLIS);
+        return scheduleAtTick(task, currentTick + delayTicks);
+    }
+
+    private Timeout scheduleAtTick(Runnable task, long deadlineTick) {
+        Timeout timeout = new Timeout(deadlineTick, task);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // only called from the ticker thread, the buckets are never touched by anyone else
+    void tick() {
+        try {
+            Timeout pending;
+            while ((pending = pendingTimeouts.poll()) != null) {
+                if (!pending.cancelled) {
+                    wheel[(int) (Math.max(pending.deadlineTick, currentTick) & (WHEEL_SIZE - 1))].add(pending);
+                }
+            }
+
+            Iterator<Timeout> bucket = wheel[(int) (currentTick & (WHEEL_SIZE - 1))].iterator();
+            while (bucket.hasNext()) {
+                Timeout timeout = bucket.next();
+                if (timeout.cancelled) {
+                    bucket.remove();
+                }
+                else if (timeout.deadlineTick <= currentTick) {
+                    bucket.remove();
+                    worker.execute(() -> runSafely(timeout));
+                }
+            }
+            currentTick++;
+        }
+        catch (Exception e) {
+            log.error("Game clock tick {} failed", currentTick, e);
+        }
+    }
+
+    private void runSafely(Timeout timeout) {
+        if (timeout.cancelled) { return; }
+        try {
+            timeout.task.run();
+        }
+        catch (Exception e) {
+            log.error("Scheduled game task failed", e);
+        }
+    }
+
+    private class Countdown implements Runnable {
+        private final Long gameId;
+        private final IntConsumer onTick;
+        private final Runnable onEnd;
+        private volatile int remainingSeconds;
+        private volatile Timeout next;
+        private long nextTick; // deadlines advance from the previous one, so late ticks do not drift
+
+        Countdown(Long gameId, int seconds, IntConsumer onTick, Runnable onEnd) {
+            this.gameId = gameId;
+            this.remainingSeconds = seconds;
+            this.onTick = onTick;
+            this.onEnd = onEnd;
+        }
+
+        @Override
+        public void run() {
+            if (countdowns.get(gameId) != this) { return; }
+            if (remainingSeconds < 0) {
+                countdowns.remove(gameId, this);
+                onEnd.run();
+                return;
+            }
+            onTick.accept(remainingSeconds);
+            remainingSeconds--;
+            nextTick += TICKS_PER_SECOND;
+            next = scheduleAtTick(this, nextTick);
+        }
+
+        void cancel() {
+            Timeout scheduled = next;
+            if (scheduled != null) { scheduled.cancel(); }
+        }
+    }
+
+    /**
+     * Counts down from the given seconds, calling onTick once per second (down to 0)
+     * and onEnd one second after the last tick. A game has at most one countdown,
+     * starting it again while it is still running has no effect.
+     */
+    public boolean startCountdown(Long gameId, int seconds, IntConsumer onTick, Runnable onEnd) {
+        Countdown countdown = new Countdown(gameId, seconds, onTick, onEnd);
+        if (countdowns.putIfAbsent(gameId, countdown) != null) {
+            log.info("Countdown for game {} is already running", gameId);
+            return false;
+        }
+        countdown.nextTick = currentTick + 1;
+        countdown.next = scheduleAtTick(countdown, countdown.nextTick);
+        return true;
+    }
+
+    public void stopCountdown(Long gameId) {
+        Countdown countdown = countdowns.remove(gameId);
+        if (countdown != null) {
+            countdown.cancel();
+        }
+    }
+
+    public Integer getRemainingSeconds(Long gameId) {
+        Countdown countdown = countdowns.get(gameId);
+        return countdown == null ? null : Math.max(countdown.remainingSeconds, 0);
+    }
+
+    public int activeCountdowns() {
+        return countdowns.size();
+    }
+}
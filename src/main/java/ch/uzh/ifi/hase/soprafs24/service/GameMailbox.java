@@ -0,0 +1,148 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Game Mailbox
+ * Every live game has a mailbox. Messages to the same mailbox run one after
+ * another in the order they were posted, messages to different mailboxes run in
+ * parallel on a shared pool. As long as a game is only changed from its own
+ * mailbox it needs no locks, and nothing is dropped because someone else holds
+ * one. Mailboxes are created on the first message and removed once they run dry.
+ */
+@Component
+public class GameMailbox {
+
+    // messages a mailbox runs in a row before it gives its pool thread to the others
+    static final int BATCH_SIZE = 32;
+
+    private static final ThreadLocal<Object> current = new ThreadLocal<>();
+
+    private final ConcurrentMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+
+    @Autowired
+    public GameMailbox(@Value("${games.mailbox.threads:0}") int threads) {
+        this(Executors.newFixedThreadPool(threads > 0 ? threads : 2 * Runtime.getRuntime().availableProcessors(),
+            r -> new Thread(r, "game-mailbox")));
+    }
+
+    GameMailbox(Executor executor) {
+        this.executor = executor;
+        this.ownExecutor = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+    }
+
+    private final class Mailbox implements Runnable {
+        private final Object key;
+        private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(Object key) {
+            this.key = key;
+        }
+
+        private boolean idle() {
+            return !scheduled.get() && messages.isEmpty();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Object previous = current.get();
+            current.set(key);
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Runnable message = messages.poll();
+                    if (message == null) { break; }
+                    message.run();
+                }
+            }
+            finally {
+                current.set(previous);
+                scheduled.set(false);
+                // a message may have come in after the last poll, or the batch was used up
+                if (!messages.isEmpty()) {
+                    schedule();
+                }
+                else {
+                    mailboxes.computeIfPresent(key, (k, box) -> box == this && box.idle() ? null : box);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownExecutor != null) { ownExecutor.shutdownNow(); }
+    }
+
+    /** Posts a message and returns its result once the mailbox has run it. */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> message) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        post(key, () -> {
+            try {
+                reply.complete(message.get());
+            }
+            catch (Throwable e) {
+                reply.completeExceptionally(e);
+            }
+        });
+        return reply;
+    }
+
+    /**
+     * Runs the message in the mailbox and waits for it, exceptions of the message
+     * are rethrown to the caller. Called from inside the same mailbox the message
+     * runs right away, it would wait for itself otherwise.
+     */
+    public <T> T call(Object key, Supplier<T> message) {
+        if (key.equals(current.get())) {
+            return message.get();
+        }
+        try {
+            return submit(key, message).join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            if (e.getCause() instanceof Error) { throw (Error) e.getCause(); }
+            throw e;
+        }
+    }
+
+    public int size() {
+        return mailboxes.size();
+    }
+
+    private void post(Object key, Runnable message) {
+        // adding under compute keeps a mailbox from being removed while it gets a message
+        Mailbox mailbox = mailboxes.compute(key, (k, box) -> {
+            Mailbox target = box != null ? box : new Mailbox(k);
+            target.messages.add(message);
+            return target;
+        });
+        mailbox.schedule();
+    }
+}
@@ -0,0 +1,53 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Game Players
+ * The players of one game, loaded with a single query when a game starts or is
+ * settled. Every step of the start or the settlement works on these instances,
+ * and the changed players go back in one saveAll and one flush, which the JDBC
+ * batch settings turn into one batch of updates.
+ */
+final class GamePlayers {
+
+    private final UserRepository userRepository;
+    private final Map<Long, User> players = new LinkedHashMap<>();
+
+    private GamePlayers(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    static GamePlayers load(UserRepository userRepository, Collection<Long> userIds) {
+        GamePlayers gamePlayers = new GamePlayers(userRepository);
+        for (User user : userRepository.findAllById(userIds)) {
+            gamePlayers.players.put(user.getUserId(), user);
+        }
+        return gamePlayers;
+    }
+
+    /** The player with the given id, BAD_REQUEST if the user does not exist. */
+    User get(Long userId) {
+        User player = players.get(userId);
+        if (player == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Player " + userId + " is not found");
+        }
+        return player;
+    }
+
+    Collection<User> all() {
+        return players.values();
+    }
+
+    void saveAll() {
+        userRepository.saveAll(players.values());
+        userRepository.flush();
+    }
+}
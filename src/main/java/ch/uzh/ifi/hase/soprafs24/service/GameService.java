@@ -2,7 +2,10 @@ package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.repository.ChatMembership;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.PlayerGame;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
@@ -17,19 +20,20 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 import ch.uzh.ifi.hase.soprafs24.service.UtilService.HintList;
+import ch.uzh.ifi.hase.soprafs24.service.LiveGameStore.LiveGame;
 
 /**
  * User Service
@@ -47,13 +51,10 @@ public class GameService {
     private final GameRepository gameRepository;
     private final UserRepository userRepository;
 
-    private Map<Country, List<Map<String, Object>>> generatedHints;
-
-    private Map<Long, Country> answers = new HashMap<>();
-
-    private final ConcurrentHashMap<Long, ReentrantLock> userLocks = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Long, ReentrantLock> gameLocks = new ConcurrentHashMap<>();
-    private final ConcurrentMap<Long, AtomicBoolean> refillInProgress = new ConcurrentHashMap<>();
+    private static final int READY_SECONDS = 5;
+    private static final long READY_DELAY_MILLIS = 6000;
+    private static final long SUBSCRIBE_DELAY_MILLIS = 500;
+    private static final int REFILL_TARGET = 10;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
@@ -61,6 +62,33 @@ public class GameService {
     @Autowired
     private UtilService utilService;
 
+    @Autowired
+    private GameClock gameClock;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LiveGameStore liveGameStore;
+
+    @Autowired
+    private ScoreBoardService scoreBoardService;
+
+    @Autowired
+    private GameMailbox gameMailbox;
+
+    @Autowired
+    private LobbyService lobbyService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
     public GameService(
             @Qualifier("gameRepository") GameRepository gameRepository,
             @Qualifier("userRepository") UserRepository userRepository) {
@@ -113,25 +141,22 @@ public class GameService {
         owner.setGame(gameCreated);
         userRepository.save(owner);
         userRepository.flush();
+        scoreBoardService.playerJoined(gameCreated.getGameId(), owner);
 
-        getGameLobby();
+        lobbyService.roomChanged(gameCreated);
         log.debug("Created new Game: {}", gameToCreate);
         return gameCreated;
     }
 
-    public void getGameLobby() {
-        List<Game> allGames = gameRepository.findAll();
-        List<GameGetDTO> gameLobbyGetDTOs = new ArrayList<>();
-        for (Game game : allGames) {
-            if(game.getModeType().equals("combat")){
-                gameLobbyGetDTOs.add(DTOMapper.INSTANCE.convertGameEntityToGameGetDTO(game));
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void userJoinGame(Game gameToBeJoined, Long userId) {
+        if (gameToBeJoined.getGameId() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"This game does not exist!");
         }
-        messagingTemplate.convertAndSend("/topic/lobby", gameLobbyGetDTOs);
-        log.info("websocket send: lobby!");
+        runInMailbox(gameToBeJoined.getGameId(), () -> addPlayer(gameToBeJoined, userId));
     }
 
-    public void userJoinGame(Game gameToBeJoined, Long userId) {
+    private void addPlayer(Game gameToBeJoined, Long userId) {
         Game targetGame = gameRepository.findBygameId(gameToBeJoined.getGameId());
         if(targetGame == null){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,"This game does not exist!");
@@ -151,12 +176,13 @@ public class GameService {
                     targetUser.setGame(gameToBeJoined);
                     userRepository.save(targetUser);
                     userRepository.flush();
+                    scoreBoardService.playerJoined(targetGame.getGameId(), targetUser);
 
                     List<User> players = getGamePlayers(gameToBeJoined.getGameId());
                     messagingTemplate.convertAndSend("/topic/ready/" + gameToBeJoined.getGameId() + "/players", players);
                     log.info("websocket send: players!");
                     broadcastReadyStatus(targetGame.getGameId());
-                    getGameLobby();
+                    lobbyService.roomChanged(targetGame);
                 }
                 else {
                     throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong Password! You can't join the game! Please try again!");
@@ -181,9 +207,18 @@ public class GameService {
         }
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void userExitGame(Long userId) {
-        Game targetGame = userRepository.findByUserId(userId).getGame();
+        Long gameId = gameIdOf(userId);
+        if (gameId == null) { return; }
+        runInMailbox(gameId, () -> removePlayer(gameId, userId));
+    }
+
+    private void removePlayer(Long gameId, Long userId) {
         User targetUser = userRepository.findByUserId(userId);
+        Game targetGame = targetUser.getGame();
+        // the player may have left through another message while this one waited
+        if (targetGame == null || !gameId.equals(targetGame.getGameId())) { return; }
 
         if (userId != targetGame.getOwnerId()) {
             targetGame.removePlayer(targetUser);
@@ -195,22 +230,26 @@ public class GameService {
             targetUser.setGame(null);
             userRepository.save(targetUser);
             userRepository.flush();
+            scoreBoardService.playerLeft(targetGame.getGameId(), userId);
 
             List<User> players = getGamePlayers(targetGame.getGameId());
             messagingTemplate.convertAndSend("/topic/ready/" + targetGame.getGameId() + "/players", players);
             log.info("websocket send: players!");
             broadcastReadyStatus(targetGame.getGameId());
 
-            getGameLobby();
+            lobbyService.roomChanged(targetGame);
         }
         else if (targetGame.getRealPlayersNumber() == 1) {
             gameRepository.deleteByGameId(targetGame.getGameId());
+            liveGameStore.close(targetGame.getGameId());
+            scoreBoardService.close(targetGame.getGameId());
+            utilService.stopTimingCounter(targetGame.getGameId());
 
             targetUser.setGame(null);
             userRepository.save(targetUser);
             userRepository.flush();
 
-            getGameLobby();
+            lobbyService.roomRemoved(targetGame.getGameId());
         }
         else {
             targetGame.removePlayer(targetUser);
@@ -223,13 +262,14 @@ public class GameService {
             targetUser.setGame(null);
             userRepository.save(targetUser);
             userRepository.flush();
+            scoreBoardService.playerLeft(targetGame.getGameId(), userId);
 
             List<User> players = getGamePlayers(targetGame.getGameId());
             messagingTemplate.convertAndSend("/topic/ready/" + targetGame.getGameId() + "/players", players);
             log.info("websocket send: players!");
             broadcastReadyStatus(targetGame.getGameId());
 
-            getGameLobby();
+            lobbyService.roomChanged(targetGame);
         }
         utilService.removeCacheForGame(targetGame.getGameId());
     }
@@ -264,25 +304,21 @@ public class GameService {
         }
     }
 
+    // runs for every chat message: one select, a second one only to tell which of game or user is missing
     public void chatChecksForGame(Long gameId, String playerName) {
-        System.out.println(gameId);
-        System.out.println(playerName);
-        Game game = gameRepository.findBygameId(gameId);
-        System.out.println(game);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game Not Found!");
-        }
-    
-        User user = userRepository.findByUsername(playerName);
-        if (user == null) {
+        ChatMembership membership = gameRepository.findChatMembership(gameId, playerName);
+        if (membership == null) {
+            if (!gameRepository.existsById(gameId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game Not Found!");
+            }
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User Not Found!");
         }
     
-        if (!game.getPlayers().contains(user.getUserId())) {
+        if (!membership.getParticipant()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not a participant in this game.");
         }
 
-        if(game.getEndTime() != null){
+        if(membership.getEndTime() != null){
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game endeded, Chat is not available anymore.");
         }
     }
@@ -292,11 +328,21 @@ public class GameService {
         if(gameJoined == null){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,"This game does not exist!");
         }
+        return getGamePlayers(gameJoined);
+    }
+
+    // the players in join order, read in one select
+    private List<User> getGamePlayers(Game gameJoined) {
+        Long gameId = gameJoined.getGameId();
         List<Long> allPlayers = gameJoined.getPlayers();
 
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(allPlayers)) {
+            usersById.put(user.getUserId(), user);
+        }
         List<User> players = new ArrayList<>();
         for (Long userId : allPlayers) {
-            players.add(userRepository.findByUserId(userId));
+            if (usersById.containsKey(userId)) { players.add(usersById.get(userId)); }
         }
         messagingTemplate.convertAndSend("/topic/"+gameId+"/gametime", utilService.formatTime(gameJoined.getTime()*60));
         messagingTemplate.convertAndSend("/topic/"+gameId+"/gameCode", gameJoined.getGameCode());
@@ -304,13 +350,19 @@ public class GameService {
 
     }
 
+    // four selects whatever the number of players: the game, its players, the users and the ready status
     public List<UserGetDTO> getAllPlayers(Long gameId){
-        List<User> players = getGamePlayers(gameId);
+        Game gameJoined = gameRepository.findBygameId(gameId);
+        if(gameJoined == null){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"This game does not exist!");
+        }
+        List<User> players = getGamePlayers(gameJoined);
+        Map<Long, Boolean> readyMap = gameJoined.getReadyMap();
 
         List<UserGetDTO> allPlayersDTOs = new ArrayList<>();
         for (User player : players) {
             UserGetDTO userGetDTO = DTOMapper.INSTANCE.convertEntityToUserGetDTO(player);
-            userGetDTO.setReadyMap(gameRepository.findBygameId(gameId).getReadyMap());
+            userGetDTO.setReadyMap(readyMap);
             allPlayersDTOs.add(userGetDTO);
         }
 
@@ -327,254 +379,239 @@ public class GameService {
                 .allMatch(Map.Entry::getValue);
     }
 
+    /**
+     * Starts of the same owner share a mailbox, a second click waits for the first
+     * and is then rejected by checkIfGameHaveSameOwner instead of being dropped.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void startSoloGame(Game gameToStart){
-        Long gameUserId = gameToStart.getOwnerId();
-        ReentrantLock lock = userLocks.computeIfAbsent(gameUserId, k -> new ReentrantLock());
-        boolean acquired = lock.tryLock();
-        if (!acquired) {
-            log.warn("Another createGame is already running for user {}", gameUserId);
-            return;
-        }
+        runInMailbox(startKey(gameToStart.getOwnerId()), () -> createSoloGame(gameToStart));
+    }
 
-        try {
-            Game gameCreated = new Game();
-
-            List<Long> players = new ArrayList<>();
-            players.add(gameToStart.getOwnerId());
-            Map<Long, Integer> scoreBoard = new HashMap<>();
-            Map<Long, Integer> correctAnswersMap = new HashMap<>();
-            Map<Long, Integer> totalQuestionsMap = new HashMap<>();
-
-            checkIfOwnerExists(gameToStart.getOwnerId());
-            checkIfGameHaveSameOwner(gameToStart.getOwnerId());
-            gameCreated.setOwnerId(players.get(0));
-
-            gameCreated.setScoreBoard(scoreBoard);
-            gameCreated.setCorrectAnswersMap(correctAnswersMap);
-            gameCreated.setTotalQuestionsMap(totalQuestionsMap);
-            gameCreated.setPlayers(players);
-            gameCreated.setHintsNumber(5);
-            checkIfGameNameExists(gameToStart.getGameName());
-            gameCreated.setGameName(gameToStart.getGameName());
-            gameCreated.setGameCode(String.format("%06d", Math.abs(UUID.randomUUID().hashCode()) % 1000000));
-            gameCreated.setTime(gameToStart.getTime());
-            gameCreated.setPlayersNumber(gameToStart.getPlayersNumber());
-            gameCreated.setRealPlayersNumber(1);
-            gameCreated.setDifficulty(gameToStart.getDifficulty());
-            gameCreated.setGameRunning(false);
-            LocalDateTime now = LocalDateTime.now();
-            gameCreated.setGameCreationDate(now);
-            
-            String mode = gameToStart.getModeType();
-            if (mode == null || (!mode.equals("solo") && !mode.equals("combat") && !mode.equals("exercise"))) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode type: must be 'solo' or 'combat'");
-            }
-            gameCreated.setModeType(mode);
+    private void createSoloGame(Game gameToStart){
+        Game gameCreated = new Game();
 
-            gameCreated = gameRepository.save(gameCreated);
-            gameRepository.flush();
+        List<Long> players = new ArrayList<>();
+        players.add(gameToStart.getOwnerId());
+        Map<Long, Integer> scoreBoard = new HashMap<>();
+        Map<Long, Integer> correctAnswersMap = new HashMap<>();
+        Map<Long, Integer> totalQuestionsMap = new HashMap<>();
 
-            User owner = userRepository.findByUserId(gameToStart.getOwnerId());
-            owner.setGame(gameCreated);
-            userRepository.save(owner);
-            userRepository.flush();
+        checkIfOwnerExists(gameToStart.getOwnerId());
+        checkIfGameHaveSameOwner(gameToStart.getOwnerId());
+        gameCreated.setOwnerId(players.get(0));
 
-            messagingTemplate.convertAndSend("/topic/startsolo/" + gameCreated.getOwnerId() + "/gameId", gameCreated.getGameId());
-            log.info("websocket send: gameId!");
-
-             try {
-                 Thread.sleep(500);
-             }
-             catch (InterruptedException e) {
-                 Thread.currentThread().interrupt();
-                 messagingTemplate.convertAndSend("/topic/game/" + gameCreated.getGameId() + "/timer-interrupted", "TIMER_STOPPED");
-             }
-
-            gameCreated.updateScore(gameCreated.getOwnerId(), 0);
-            for (Long userId : gameCreated.getPlayers()) {
-                User player = userRepository.findByUserId(userId);
-                if (player == null) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-                }
-                gameCreated.updateScore(userId, 0);
-            }
+        gameCreated.setScoreBoard(scoreBoard);
+        gameCreated.setCorrectAnswersMap(correctAnswersMap);
+        gameCreated.setTotalQuestionsMap(totalQuestionsMap);
+        gameCreated.setPlayers(players);
+        gameCreated.setHintsNumber(5);
+        checkIfGameNameExists(gameToStart.getGameName());
+        gameCreated.setGameName(gameToStart.getGameName());
+        gameCreated.setGameCode(String.format("%06d", Math.abs(UUID.randomUUID().hashCode()) % 1000000));
+        gameCreated.setTime(gameToStart.getTime());
+        gameCreated.setPlayersNumber(gameToStart.getPlayersNumber());
+        gameCreated.setRealPlayersNumber(1);
+        gameCreated.setDifficulty(gameToStart.getDifficulty());
+        gameCreated.setGameRunning(false);
+        LocalDateTime now = LocalDateTime.now();
+        gameCreated.setGameCreationDate(now);
+        
+        String mode = gameToStart.getModeType();
+        if (mode == null || (!mode.equals("solo") && !mode.equals("combat") && !mode.equals("exercise"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode type: must be 'solo' or 'combat'");
+        }
+        gameCreated.setModeType(mode);
 
-            //set correctAnswersMap
-            gameCreated.updateCorrectAnswers(gameCreated.getOwnerId(), 0);
-            for (Long userId : gameCreated.getPlayers()) {
-                User player = userRepository.findByUserId(userId);
-                if (player == null) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-                }
-                gameCreated.updateCorrectAnswers(userId, 0);
-            }
+        gameCreated = gameRepository.save(gameCreated);
+        gameRepository.flush();
 
-            //set totalQuestionsMap
-            gameCreated.updateTotalQuestions(gameCreated.getOwnerId(), 0);
-            for (Long userId : gameCreated.getPlayers()) {
-                User player = userRepository.findByUserId(userId);
-                if (player == null) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-                }
-                gameCreated.updateTotalQuestions(userId, 0);
-            }
+        User owner = userRepository.findByUserId(gameToStart.getOwnerId());
+        owner.setGame(gameCreated);
+        userRepository.save(owner);
+        userRepository.flush();
+        scoreBoardService.playerJoined(gameCreated.getGameId(), owner);
 
-            gameCreated.setGameRunning(true);
+        messagingTemplate.convertAndSend("/topic/startsolo/" + gameCreated.getOwnerId() + "/gameId", gameCreated.getGameId());
+        log.info("websocket send: gameId!");
 
-            gameCreated = gameRepository.save(gameCreated);
-            gameRepository.flush();
+        // give the client time to subscribe to the game topics before the countdown starts
+        Long gameId = gameCreated.getGameId();
+        runStageLater(gameId, SUBSCRIBE_DELAY_MILLIS, () -> prepareSoloGame(gameId));
+    }
 
-            utilService.initHintQueue(gameCreated.getGameId(), gameCreated.getPlayers());
-            utilService.refillHintQueue(gameCreated.getGameId(), gameCreated.getDifficulty());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void startExerciseGame(Game gameToStart){
+        runInMailbox(startKey(gameToStart.getOwnerId()), () -> createExerciseGame(gameToStart));
+    }
 
-            messagingTemplate.convertAndSend("/topic/start/" + gameCreated.getGameId() + "/ready-time", 5);
-             try {
-                 Thread.sleep(6000);
-             }
-             catch (InterruptedException e) {
-                 Thread.currentThread().interrupt();
-                 messagingTemplate.convertAndSend("/topic/game/" + gameCreated.getGameId() + "/timer-interrupted", "TIMER_STOPPED");
-             }
+    private void createExerciseGame(Game gameToStart){
+        Game gameCreated = new Game();
 
-            // push hints
-            GameGetDTO gameHintDTO = new GameGetDTO();
-            generatedHints = getHintsOfOneCountry(gameCreated.getGameId(), gameCreated.getOwnerId(), gameCreated.getDifficulty());
-            gameHintDTO.setHints(generatedHints.values().iterator().next());
-            Country country = generatedHints.keySet().iterator().next();
-            gameHintDTO.setAnswer(country.ordinal());
-
-            // set sheet
-            for (Long userId : players) {
-                answers.put(userId, country);
-            }
+        List<Long> players = new ArrayList<>();
+        players.add(gameToStart.getOwnerId());
 
-            //set scoreboard
-            Map<String, Integer> scoreBoardFront = new HashMap<>();
-            for (Long userid : gameCreated.getPlayers()) {
-                String username = (userRepository.findByUserId(userid)).getUsername();
-                int score = gameCreated.getScore(userid);
-                scoreBoardFront.put(username, score);
-            }
-            gameHintDTO.setScoreBoard(scoreBoardFront);
-            gameHintDTO.setTime(gameCreated.getTime());
-            messagingTemplate.convertAndSend("/topic/start/" + gameCreated.getGameId() + "/hints", gameHintDTO);
-            log.info("websocket send: hints!");
+        checkIfOwnerExists(gameToStart.getOwnerId());
+        checkIfGameHaveSameOwner(gameToStart.getOwnerId());
+        gameCreated.setOwnerId(players.get(0));
+
+        gameCreated.setPlayers(players);
+        gameCreated.setHintsNumber(5);
+        checkIfGameNameExists(gameToStart.getGameName());
+        gameCreated.setGameName(gameToStart.getGameName());
+        gameCreated.setGameCode(String.format("%06d", Math.abs(UUID.randomUUID().hashCode()) % 1000000));
+        gameCreated.setTime(gameToStart.getTime());
+        gameCreated.setPlayersNumber(gameToStart.getPlayersNumber());
+        gameCreated.setRealPlayersNumber(1);
+        gameCreated.setDifficulty(gameToStart.getDifficulty());
+        gameCreated.setGameRunning(false);
+        LocalDateTime now = LocalDateTime.now();
+        gameCreated.setGameCreationDate(now);
 
-        } finally {
-            lock.unlock();
-            userLocks.remove(gameUserId);
+        String mode = gameToStart.getModeType();
+        if (mode == null || (!mode.equals("solo") && !mode.equals("combat") && !mode.equals("exercise"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode type: must be 'solo' or 'combat'");
         }
+        gameCreated.setModeType(mode);
+
+        gameCreated = gameRepository.save(gameCreated);
+        gameRepository.flush();
+
+        User owner = userRepository.findByUserId(gameToStart.getOwnerId());
+        owner.setGame(gameCreated);
+        userRepository.save(owner);
+        userRepository.flush();
+        scoreBoardService.playerJoined(gameCreated.getGameId(), owner);
+
+        messagingTemplate.convertAndSend("/topic/startExercise/" + gameCreated.getOwnerId() + "/gameId", gameCreated.getGameId());
+        log.info("websocket send: gameId!");
+
+        Long gameId = gameCreated.getGameId();
+        runStageLater(gameId, SUBSCRIBE_DELAY_MILLIS, () -> prepareExerciseGame(gameId));
     }
 
-    public void startExerciseGame(Game gameToStart){
-        Long gameUserId = gameToStart.getOwnerId();
-        ReentrantLock lock = userLocks.computeIfAbsent(gameUserId, k -> new ReentrantLock());
-        boolean acquired = lock.tryLock();
-        if (!acquired) {
-            log.warn("Another createGame is already running for user {}", gameUserId);
-            return;
-        }
+    private void prepareSoloGame(Long gameId) {
+        Game gameCreated = gameRepository.findBygameId(gameId);
+        if (gameCreated == null) { return; }
 
-        try {
-            Game gameCreated = new Game();
+        resetPlayers(gameCreated);
 
-            List<Long> players = new ArrayList<>();
-            players.add(gameToStart.getOwnerId());
+        gameCreated.setGameRunning(true);
 
-            checkIfOwnerExists(gameToStart.getOwnerId());
-            checkIfGameHaveSameOwner(gameToStart.getOwnerId());
-            gameCreated.setOwnerId(players.get(0));
+        gameCreated = gameRepository.save(gameCreated);
+        gameRepository.flush();
+        liveGameStore.open(gameCreated);
+        scoreBoardService.open(gameId);
 
-            gameCreated.setPlayers(players);
-            gameCreated.setHintsNumber(5);
-            checkIfGameNameExists(gameToStart.getGameName());
-            gameCreated.setGameName(gameToStart.getGameName());
-            gameCreated.setGameCode(String.format("%06d", Math.abs(UUID.randomUUID().hashCode()) % 1000000));
-            gameCreated.setTime(gameToStart.getTime());
-            gameCreated.setPlayersNumber(gameToStart.getPlayersNumber());
-            gameCreated.setRealPlayersNumber(1);
-            gameCreated.setDifficulty(gameToStart.getDifficulty());
-            gameCreated.setGameRunning(false);
-            LocalDateTime now = LocalDateTime.now();
-            gameCreated.setGameCreationDate(now);
+        utilService.initHintQueue(gameCreated.getGameId(), gameCreated.getPlayers());
+        utilService.refillHintQueue(gameCreated.getGameId(), gameCreated.getDifficulty());
 
-            String mode = gameToStart.getModeType();
-            if (mode == null || (!mode.equals("solo") && !mode.equals("combat") && !mode.equals("exercise"))) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode type: must be 'solo' or 'combat'");
-            }
-            gameCreated.setModeType(mode);
+        // countdown
+        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/ready-time", READY_SECONDS);
+        runStageLater(gameId, READY_DELAY_MILLIS, () -> pushSoloHints(gameId));
+    }
 
-            gameCreated = gameRepository.save(gameCreated);
-            gameRepository.flush();
+    // zeroes the counters of every player, the players are read in one query and handed to the scoreboard
+    private void resetPlayers(Game game) {
+        GamePlayers players = GamePlayers.load(userRepository, game.getPlayers());
+        game.updateScore(game.getOwnerId(), 0);
+        game.updateCorrectAnswers(game.getOwnerId(), 0);
+        game.updateTotalQuestions(game.getOwnerId(), 0);
+        for (Long userId : game.getPlayers()) {
+            scoreBoardService.playerJoined(game.getGameId(), players.get(userId));
+            game.updateScore(userId, 0);
+            game.updateCorrectAnswers(userId, 0);
+            game.updateTotalQuestions(userId, 0);
+        }
+    }
 
-            User owner = userRepository.findByUserId(gameToStart.getOwnerId());
-            owner.setGame(gameCreated);
-            userRepository.save(owner);
-            userRepository.flush();
+    private void pushSoloHints(Long gameId) {
+        Game gameCreated = gameRepository.findBygameId(gameId);
+        if (gameCreated == null) { return; }
 
-            messagingTemplate.convertAndSend("/topic/startExercise/" + gameCreated.getOwnerId() + "/gameId", gameCreated.getGameId());
-            log.info("websocket send: gameId!");
+        // push hints
+        GameGetDTO gameHintDTO = new GameGetDTO();
+        Map<Country, List<Map<String, Object>>> firstHints = getHintsOfOneCountry(gameId, gameCreated.getOwnerId(), gameCreated.getDifficulty());
+        gameHintDTO.setHints(firstHints.values().iterator().next());
+        Country country = firstHints.keySet().iterator().next();
+        gameHintDTO.setAnswer(country.ordinal());
 
-             try {
-                 Thread.sleep(500);
-             }
-             catch (InterruptedException e) {
-                 Thread.currentThread().interrupt();
-                 messagingTemplate.convertAndSend("/topic/game/" + gameCreated.getGameId() + "/timer-interrupted", "TIMER_STOPPED");
-             }
-            
-            gameCreated.setGameRunning(true);
+        // set sheet
+        LiveGame liveGame = liveGameStore.getOrOpen(gameCreated);
+        for (Long userId : gameCreated.getPlayers()) {
+            liveGame.setAnswer(userId, country);
+        }
 
-            gameCreated = gameRepository.save(gameCreated);
-            gameRepository.flush();
+        //set scoreboard
+        gameHintDTO.setScoreBoard(scoreBoardService.byUsername(gameId, gameCreated.getScoreBoard()));
+        gameHintDTO.setTime(gameCreated.getTime());
+        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/hints", gameHintDTO);
+        log.info("websocket send: hints!");
+    }
 
-            utilService.initHintQueue(gameCreated.getGameId(), gameCreated.getPlayers());
-            utilService.refillHintQueue(gameCreated.getGameId(), gameCreated.getDifficulty());
+    private void prepareExerciseGame(Long gameId) {
+        Game gameCreated = gameRepository.findBygameId(gameId);
+        if (gameCreated == null) { return; }
 
-            // countdown
-            messagingTemplate.convertAndSend("/topic/start/" + gameCreated.getGameId() + "/ready-time", 5);
-             try {
-                 Thread.sleep(6000);
-             }
-             catch (InterruptedException e) {
-                 Thread.currentThread().interrupt();
-                 messagingTemplate.convertAndSend("/topic/game/" + gameCreated.getGameId() + "/timer-interrupted", "TIMER_STOPPED");
-             }
+        gameCreated.setGameRunning(true);
 
-            // push hints
-            GameGetDTO gameHintDTO = new GameGetDTO();
-            generatedHints = getHintsOfOneCountry(gameCreated.getGameId(), gameCreated.getOwnerId(), gameCreated.getDifficulty());
-            gameHintDTO.setHints(generatedHints.values().iterator().next());
-            Country country = generatedHints.keySet().iterator().next();
-            gameHintDTO.setAnswer(country.ordinal());
-
-            // set sheet
-            for (Long userId : players) {
-                answers.put(userId, country);
-            }
+        gameCreated = gameRepository.save(gameCreated);
+        gameRepository.flush();
+        liveGameStore.open(gameCreated);
+
+        utilService.initHintQueue(gameCreated.getGameId(), gameCreated.getPlayers());
+        utilService.refillHintQueue(gameCreated.getGameId(), gameCreated.getDifficulty());
+
+        // countdown
+        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/ready-time", READY_SECONDS);
+        runStageLater(gameId, READY_DELAY_MILLIS, () -> pushExerciseHints(gameId));
+    }
+
+    private void pushExerciseHints(Long gameId) {
+        Game gameCreated = gameRepository.findBygameId(gameId);
+        if (gameCreated == null) { return; }
+
+        // push hints
+        GameGetDTO gameHintDTO = new GameGetDTO();
+        Map<Country, List<Map<String, Object>>> firstHints = getHintsOfOneCountry(gameId, gameCreated.getOwnerId(), gameCreated.getDifficulty());
+        gameHintDTO.setHints(firstHints.values().iterator().next());
+        Country country = firstHints.keySet().iterator().next();
+        gameHintDTO.setAnswer(country.ordinal());
 
-            gameHintDTO.setTime(gameCreated.getTime());
-            gameHintDTO.setModeType(gameCreated.getModeType());
-            messagingTemplate.convertAndSend("/topic/start/" + gameCreated.getGameId() + "/hints", gameHintDTO);
-            log.info("websocket send: hints!");
-        } finally {
-            lock.unlock();
-            userLocks.remove(gameUserId);
+        // set sheet
+        LiveGame liveGame = liveGameStore.getOrOpen(gameCreated);
+        for (Long userId : gameCreated.getPlayers()) {
+            liveGame.setAnswer(userId, country);
         }
+
+        gameHintDTO.setTime(gameCreated.getTime());
+        gameHintDTO.setModeType(gameCreated.getModeType());
+        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/hints", gameHintDTO);
+        log.info("websocket send: hints!");
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public GameGetDTO nextQuestion_ExerciseMode(Long gameId) {
+        return callInMailbox(gameId, () -> nextExerciseQuestion(gameId));
+    }
+
+    private GameGetDTO nextExerciseQuestion(Long gameId) {
         Game targetGame = gameRepository.findBygameId(gameId);
         GameGetDTO gameHintDTO = new GameGetDTO();
-        generatedHints = getHintsOfOneCountry(gameId, targetGame.getOwnerId(), targetGame.getDifficulty());
+        Map<Country, List<Map<String, Object>>> generatedHints = getHintsOfOneCountry(gameId, targetGame.getOwnerId(), targetGame.getDifficulty());
         gameHintDTO.setHints(generatedHints.values().iterator().next());
-        answers.put(targetGame.getOwnerId(), generatedHints.keySet().iterator().next());
+        liveGameStore.getOrOpen(targetGame).setAnswer(targetGame.getOwnerId(), generatedHints.keySet().iterator().next());
         gameHintDTO.setAnswer(generatedHints.keySet().iterator().next().ordinal());
 
         return gameHintDTO;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void toggleReadyStatus(Long gameId, Long userId) {
+        runInMailbox(gameId, () -> switchReady(gameId, userId));
+    }
+
+    private void switchReady(Long gameId, Long userId) {
         Game game = gameRepository.findBygameId(gameId);
         if (game == null || !game.getPlayers().contains(userId)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid game or user");
@@ -600,20 +637,11 @@ public class GameService {
         log.info("size of hintCache with game {}: {}", gameId, utilService.getHintCache().get(gameId).size());
         Map<Country, List<Map<String, Object>>> hint = utilService.getHintForUser(gameId, userId);
 
+        // refills of all games are coalesced and batched by the hint pipeline
         HintList list = utilService.getHintCache().get(gameId);
-        synchronized (list) {
-            int minProgress = list.getMinProgressAcrossUsers();
-            int remainingHints = list.size() - minProgress;
-
-            if (remainingHints < 10) {
-                AtomicBoolean flag = refillInProgress.computeIfAbsent(gameId, id -> new AtomicBoolean(false));
-                if (flag.compareAndSet(false, true)) {
-                    for (int i = 0; i < 10 - remainingHints; ++i) {
-                        utilService.addHintForGame(gameId, difficulty);
-                    }
-                    flag.set(false);
-                }
-            }
+        int remainingHints = list.size() - list.getMinProgressAcrossUsers();
+        if (remainingHints < REFILL_TARGET) {
+            utilService.requestHints(gameId, difficulty, REFILL_TARGET - remainingHints);
         }
         return hint;
     }
@@ -623,7 +651,12 @@ public class GameService {
         utilService.startTimingCounter(gameToStart.getTime() * 60, gameToStart.getGameId());
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void startGame(Long gameId) {
+        runInMailbox(gameId, () -> launchCombatGame(gameId));
+    }
+
+    private void launchCombatGame(Long gameId) {
         Game gameToStart = gameRepository.findBygameId(gameId);
 
         if (gameToStart == null){
@@ -634,96 +667,58 @@ public class GameService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not all players are ready");
         }
 
-        List<Long> allPlayers = gameToStart.getPlayers();
-
         //set time
         LocalDateTime now = LocalDateTime.now();
         gameToStart.setGameCreationDate(now);
 
-        //set scoreBoard
-        gameToStart.updateScore(gameToStart.getOwnerId(), 0);
-        for (Long userId : gameToStart.getPlayers()) {
-            User player = userRepository.findByUserId(userId);
-            if (player == null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-            }
-            gameToStart.updateScore(userId, 0);
-        }
-
-        //set correctAnswersMap
-        gameToStart.updateCorrectAnswers(gameToStart.getOwnerId(), 0);
-        for (Long userId : gameToStart.getPlayers()) {
-            User player = userRepository.findByUserId(userId);
-            if (player == null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-            }
-            gameToStart.updateCorrectAnswers(userId, 0);
-        }
-
-        //set totalQuestionsMap
-        gameToStart.updateTotalQuestions(gameToStart.getOwnerId(), 0);
-        for (Long userId : gameToStart.getPlayers()) {
-            User player = userRepository.findByUserId(userId);
-            if (player == null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (userRepository.findByUserId(userId)).getUsername() + " is not found");
-            }
-            gameToStart.updateTotalQuestions(userId, 0);
-        }
+        //set scoreBoard, correctAnswersMap and totalQuestionsMap
+        resetPlayers(gameToStart);
 
         gameToStart.setGameRunning(true);
 
         gameToStart = gameRepository.save(gameToStart);
         gameRepository.flush();
+        liveGameStore.open(gameToStart);
+        scoreBoardService.open(gameId);
+        lobbyService.roomChanged(gameToStart);
 
         utilService.initHintQueue(gameToStart.getGameId(), gameToStart.getPlayers());
         utilService.refillHintQueue(gameToStart.getGameId(), gameToStart.getDifficulty());
 
         // countdown
-        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/ready-time", 5);
-         try {
-             Thread.sleep(6000);
-         }
-         catch (InterruptedException e) {
-             Thread.currentThread().interrupt();
-             messagingTemplate.convertAndSend("/topic/game/" + gameId + "/timer-interrupted", "TIMER_STOPPED");
-         }
+        messagingTemplate.convertAndSend("/topic/start/" + gameId + "/ready-time", READY_SECONDS);
+        runStageLater(gameId, READY_DELAY_MILLIS, () -> pushCombatHints(gameId));
+    }
+
+    private void pushCombatHints(Long gameId) {
+        Game gameToStart = gameRepository.findBygameId(gameId);
+        if (gameToStart == null) { return; }
 
         // push hints
         GameGetDTO gameHintDTO = new GameGetDTO();
-        generatedHints = utilService.getFirstHint(gameId);
-        gameHintDTO.setHints(generatedHints.values().iterator().next());
-        Country country = generatedHints.keySet().iterator().next();
+        Map<Country, List<Map<String, Object>>> firstHints = utilService.getFirstHint(gameId);
+        gameHintDTO.setHints(firstHints.values().iterator().next());
+        Country country = firstHints.keySet().iterator().next();
         gameHintDTO.setAnswer(country.ordinal());
 
         // set sheet
-        for (Long userId : allPlayers) {
-            answers.put(userId, country);
+        LiveGame liveGame = liveGameStore.getOrOpen(gameToStart);
+        for (Long userId : gameToStart.getPlayers()) {
+            liveGame.setAnswer(userId, country);
         }
         
         //set scoreboard
-        Map<String, Integer> scoreBoardFront = new HashMap<>();
-        for (Long userid : gameToStart.getPlayers()) {
-            String username = (userRepository.findByUserId(userid)).getUsername();
-            int score = gameToStart.getScore(userid);
-            scoreBoardFront.put(username, score);
-        }
-        gameHintDTO.setScoreBoard(scoreBoardFront);
+        gameHintDTO.setScoreBoard(scoreBoardService.byUsername(gameId, gameToStart.getScoreBoard()));
         messagingTemplate.convertAndSend("/topic/start/" + gameId + "/hints", gameHintDTO);
         log.info("websocket send: hints!");
 
-//         try {
-//             Thread.sleep(2000);
-//         }
-//         catch (InterruptedException e) {
-//             Thread.currentThread().interrupt();
-//             messagingTemplate.convertAndSend("/topic/game/" + gameId + "/timer-interrupted", "TIMER_STOPPED");
-//         }
+        runStageLater(gameId, 0, () -> resetReadyStatus(gameId));
+    }
 
-        // Game finalGameToStart = gameToStart;
-        // Thread timingThread = new Thread(() -> utilService.timingCounter((finalGameToStart.getTime()) * 60, gameId));
-        // timingThread.start();
+    private void resetReadyStatus(Long gameId) {
+        Game gameToStart = gameRepository.findBygameId(gameId);
+        if (gameToStart == null) { return; }
 
-        // reset ready status
         for (Long userId : gameToStart.getReadyMap().keySet()) {
             gameToStart.setNotReadyStatus(userId);
         }
@@ -731,107 +726,127 @@ public class GameService {
         gameRepository.flush();
     }
 
-    public GameGetDTO processingAnswer(GamePostDTO gamePostDTO, Long userId) {
+    /**
+     * Runs one stage of a game start on the game clock instead of sleeping in the
+     * request thread. Every stage is a message to the game's mailbox with its own
+     * transaction and reloads the game.
+     */
+    private void runStageLater(Long gameId, long delayMillis, Runnable stage) {
+        gameClock.schedule(() -> gameMailbox.submit(gameId, () -> {
+            transactionTemplate.executeWithoutResult(status -> stage.run());
+            return null;
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.error("Start stage failed for game {}", gameId, error);
+                messagingTemplate.convertAndSend("/topic/game/" + gameId + "/timer-interrupted", "TIMER_STOPPED");
+            }
+        }), delayMillis, TimeUnit.MILLISECONDS);
+    }
 
-        //judge right or wrong and update hints
-        Game targetGame = gameRepository.findBygameId(gamePostDTO.getGameId());
+    // the request thread only waits here, the message runs in its own transaction on the mailbox
+    private void runInMailbox(Object key, Runnable message) {
+        gameMailbox.call(key, () -> {
+            transactionTemplate.executeWithoutResult(status -> message.run());
+            return null;
+        });
+    }
 
-        if(targetGame.getModeType().equals("exercise")){
-            if (gamePostDTO.getSubmitAnswer() == answers.get(userId)) {
-                gameRepository.save(targetGame);
-                gameRepository.flush();
+    private <T> T callInMailbox(Object key, Supplier<T> message) {
+        return gameMailbox.call(key, () -> transactionTemplate.execute(status -> message.get()));
+    }
 
-                GameGetDTO gameHintDTO = new GameGetDTO();
-                gameHintDTO.setJudgement(true);
+    private static String startKey(Long ownerId) {
+        return "start-" + ownerId;
+    }
 
-                return gameHintDTO;
-            }
-            else{
-                gameRepository.save(targetGame);
-                gameRepository.flush();
+    /**
+     * The game a user is in, read by a mailbox worker in its own transaction. With
+     * open-in-view a repository call on the request thread would keep a connection
+     * for the rest of the request, also while it waits for the game's message.
+     */
+    private Long gameIdOf(Long userId) {
+        List<PlayerGame> playerGames = callInMailbox(userKey(userId), () -> userRepository.findPlayerGames(List.of(userId)));
+        return playerGames.isEmpty() ? null : playerGames.get(0).getGameId();
+    }
 
-                GameGetDTO gameHintDTO = new GameGetDTO();
-                gameHintDTO.setJudgement(false);
+    private static String userKey(Long userId) {
+        return "user-" + userId;
+    }
 
-                return gameHintDTO;
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public GameGetDTO processingAnswer(GamePostDTO gamePostDTO, Long userId) {
+        return callInMailbox(gamePostDTO.getGameId(), () -> judgeAnswer(gamePostDTO, userId));
+    }
+
+    private GameGetDTO judgeAnswer(GamePostDTO gamePostDTO, Long userId) {
+        //judge right or wrong and update hints
+        LiveGame targetGame = liveGameStore.get(gamePostDTO.getGameId());
+        if (targetGame == null) {
+            // not started on this instance (e.g. after a restart), pick the scores up from the database
+            targetGame = liveGameStore.getOrOpen(gameRepository.findBygameId(gamePostDTO.getGameId()));
+            scoreBoardService.open(targetGame.getGameId());
         }
-        else{
-            targetGame.updateTotalQuestions(userId, targetGame.getTotalQuestions(userId) + 1);
 
-            if (gamePostDTO.getSubmitAnswer() == answers.get(userId)) {
-                targetGame.updateCorrectAnswers(userId, targetGame.getCorrectAnswers(userId) + 1);
-                targetGame.updateScore(userId, targetGame.getScore(userId) + (100 - (gamePostDTO.getHintUsingNumber() - 1) * 20));
-                gameRepository.save(targetGame);
-                gameRepository.flush();
+        if(targetGame.getModeType().equals("exercise")){
+            GameGetDTO gameHintDTO = new GameGetDTO();
+            gameHintDTO.setJudgement(gamePostDTO.getSubmitAnswer() == targetGame.getAnswer(userId));
 
-                User targetUser = userRepository.findByUserId(userId);
-                if(targetGame.getModeType().equals("combat")){targetUser.updateLearningTrack(answers.get(userId));}
-                userRepository.save(targetUser);
-                userRepository.flush();
+            return gameHintDTO;
+        }
+        else{
+            Country answer = targetGame.getAnswer(userId);
+            if (gamePostDTO.getSubmitAnswer() == answer) {
+                // counted per country in the live game, the learning track is written when the game is settled
+                targetGame.recordAnswer(userId, answer, true, 100 - (gamePostDTO.getHintUsingNumber() - 1) * 20);
 
                 GameGetDTO gameHintDTO = new GameGetDTO();
-                generatedHints = getHintsOfOneCountry(targetGame.getGameId(), userId, targetGame.getDifficulty());
+                Map<Country, List<Map<String, Object>>> generatedHints = getHintsOfOneCountry(targetGame.getGameId(), userId, targetGame.getDifficulty());
                 gameHintDTO.setHints(generatedHints.values().iterator().next());
-                answers.put(userId, generatedHints.keySet().iterator().next());
+                Country nextAnswer = generatedHints.keySet().iterator().next();
+                targetGame.setAnswer(userId, nextAnswer);
                 gameHintDTO.setJudgement(true);
-                gameHintDTO.setAnswer(answers.get(userId).ordinal());
+                gameHintDTO.setAnswer(nextAnswer.ordinal());
 
-                Map<String, Integer> scoreBoardFront = new HashMap<>();
-                for (Long userid : targetGame.getScoreBoard().keySet()) {
-                    String username = (userRepository.findByUserId(userid)).getUsername();
-                    int score = targetGame.getScore(userid);
-                    scoreBoardFront.put(username, score);
-                }
-                messagingTemplate.convertAndSend("/topic/user/"+targetGame.getGameId()+"/scoreBoard", scoreBoardFront);
-                log.info("websocket send!");
+                scoreBoardService.scoreChanged(targetGame.getGameId(), userId);
 
                 return gameHintDTO;
             }
             else {
-                gameRepository.save(targetGame);
-                gameRepository.flush();
+                targetGame.recordAnswer(userId, answer, false, 0);
 
                 GameGetDTO gameHintDTO = new GameGetDTO();
-                generatedHints = getHintsOfOneCountry(targetGame.getGameId(), userId, targetGame.getDifficulty());
+                Map<Country, List<Map<String, Object>>> generatedHints = getHintsOfOneCountry(targetGame.getGameId(), userId, targetGame.getDifficulty());
                 gameHintDTO.setHints(generatedHints.values().iterator().next());
-                answers.put(userId, generatedHints.keySet().iterator().next());
-                gameHintDTO.setAnswer(answers.get(userId).ordinal());
+                Country nextAnswer = generatedHints.keySet().iterator().next();
+                targetGame.setAnswer(userId, nextAnswer);
+                gameHintDTO.setAnswer(nextAnswer.ordinal());
                 gameHintDTO.setJudgement(false);
-                Map<String, Integer> scoreBoardFront = new HashMap<>();
-                for (Long userid : targetGame.getScoreBoard().keySet()) {
-                    String username = (userRepository.findByUserId(userid)).getUsername();
-                    int score = (targetGame.getScoreBoard()).get(userid);
-                    scoreBoardFront.put(username, score);
-                }
-                messagingTemplate.convertAndSend("/topic/user/"+targetGame.getGameId()+"/scoreBoard", scoreBoardFront);
-                log.info("websocket send!");
+                scoreBoardService.scoreChanged(targetGame.getGameId(), userId);
 
                 return gameHintDTO;
             }
         }
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void saveGame(Long gameId) {
-        ReentrantLock lock = gameLocks.computeIfAbsent(gameId, k -> new ReentrantLock());
-        boolean acquired = lock.tryLock();
-        if (!acquired) {
-            log.warn("Another createGame is already running for user {}", gameId);
-            return;
-        }
-        try{
-             Game gameToSave = gameRepository.findBygameId(gameId);
+        runInMailbox(gameId, () -> finishGame(gameId));
+    }
+
+    private void finishGame(Long gameId) {
+        Game gameToSave = gameRepository.findBygameId(gameId);
         if (gameToSave == null ) {
             return;
         }
         if(gameToSave.getGameRunning() == false){
             return;
         }
+        liveGameStore.applyTo(gameToSave);
         if(gameToSave.getModeType().equals("combat")){
+            GamePlayers players = GamePlayers.load(userRepository, gameToSave.getPlayers());
             for (Long userId : gameToSave.getPlayers()) {
-                User player = userRepository.findByUserId(userId);
-                player.setGameHistory(gameToSave.getGameName(), gameToSave.getScore(userId), gameToSave.getCorrectAnswers(userId), 
-                gameToSave.getTotalQuestions(userId), gameToSave.getGameCreationDate(), gameToSave.getTime(), gameToSave.getModeType(), gameToSave.getDifficulty());
+                User player = players.get(userId);
+                settlePlayer(player, gameToSave);
                 if(gameToSave.getDifficulty().equals("easy")){
                     player.setLevel((new BigDecimal(gameToSave.getScore(userId)).divide(new BigDecimal(100), 1, RoundingMode.HALF_UP).add(player.getLevel())
                     .multiply(new BigDecimal("0.9"))).setScale(1, RoundingMode.HALF_UP));
@@ -841,21 +856,21 @@ public class GameService {
                 if(userId != gameToSave.getOwnerId()){
                     gameToSave.setNotReadyStatus(userId);
                 }
-
-                userRepository.save(player);
-                userRepository.flush();
             }
+            // all players in one flush
+            players.saveAll();
+            players.all().forEach(leaderboardService::update);
             gameToSave.setGameRunning(false);
             LocalDateTime now = LocalDateTime.now();
             gameToSave.setGameCreationDate(now);
             gameRepository.save(gameToSave);
             gameRepository.flush();
+            lobbyService.roomChanged(gameToSave);
            
         }
         else if(gameToSave.getModeType().equals("solo")){
             User player = userRepository.findByUserId(gameToSave.getOwnerId());
-            player.setGameHistory(gameToSave.getGameName(), gameToSave.getScore(gameToSave.getOwnerId()), gameToSave.getCorrectAnswers(gameToSave.getOwnerId()), 
-            gameToSave.getTotalQuestions(gameToSave.getOwnerId()), gameToSave.getGameCreationDate(), gameToSave.getTime(),gameToSave.getModeType(),gameToSave.getDifficulty());
+            settlePlayer(player, gameToSave);
             player.setGame(null);
             userRepository.save(player);
             userRepository.flush();
@@ -868,38 +883,69 @@ public class GameService {
             userRepository.flush();
             gameRepository.deleteByGameId(gameId);
         }
+        liveGameStore.close(gameId);
+        scoreBoardService.close(gameId);
         utilService.removeCacheForGame(gameId);
+        utilService.stopTimingCounter(gameId);
+    }
+
+    // writes the player's history row, adds the game to their statistics and a combat game to
+    // their learning track, the caller saves the player
+    private void settlePlayer(User player, Game game) {
+        GameHistory history = historyService.record(player.getUserId(), game);
+        LiveGame liveGame = liveGameStore.get(game.getGameId());
+        if (liveGame == null) {
+            statisticsService.record(history, null);
+            return;
         }
-        finally{    
-            lock.unlock();
-            gameLocks.remove(gameId);
+        statisticsService.record(history, liveGame.getContinentCorrect(player.getUserId()));
+        if (game.getModeType().equals("combat")) {
+            player.addLearningTrack(liveGame.getCountryCorrect(player.getUserId()));
         }
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void giveupGame(Long userId) {
-        if (userRepository.findByUserId(userId).getGame() == null) { return ; }
+        Long gameId = gameIdOf(userId);
+        if (gameId == null) { return ; }
+        runInMailbox(gameId, () -> leaveRunningGame(gameId, userId));
+    }
+
+    /** Takes several players out of the same game in one message, for players that dropped together. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void giveupGame(Long gameId, Collection<Long> userIds) {
+        runInMailbox(gameId, () -> userIds.forEach(userId -> leaveRunningGame(gameId, userId)));
+    }
+
+    private void leaveRunningGame(Long gameId, Long userId) {
         Game gameToEnd = (userRepository.findByUserId(userId)).getGame();
+        if (gameToEnd == null || !gameId.equals(gameToEnd.getGameId())) { return ; }
+        liveGameStore.applyTo(gameToEnd);
 
         if (gameToEnd.getRealPlayersNumber() == 1) {
             gameToEnd.updateScore(userId, -1);
             User playerToEnd = userRepository.findByUserId(userId);
             gameToEnd.updateScore(userId, -1);
-            playerToEnd.setGameHistory(gameToEnd.getGameName(), gameToEnd.getScore(userId ), gameToEnd.getCorrectAnswers(userId), 
-            gameToEnd.getTotalQuestions(userId), gameToEnd.getGameCreationDate(), gameToEnd.getTime(),gameToEnd.getModeType(),gameToEnd.getDifficulty());
+            settlePlayer(playerToEnd, gameToEnd);
             playerToEnd.setGame(null);
             userRepository.save(playerToEnd);
             userRepository.flush();
 
             gameRepository.deleteByGameId(gameToEnd.getGameId());
+            lobbyService.roomRemoved(gameToEnd.getGameId());
+            liveGameStore.close(gameToEnd.getGameId());
+            scoreBoardService.close(gameToEnd.getGameId());
             utilService.removeCacheForGame(gameToEnd.getGameId());
+            utilService.stopTimingCounter(gameToEnd.getGameId());
         }
         else {
             gameToEnd.setRealPlayersNumber(gameToEnd.getRealPlayersNumber() - 1);
 
             User playerToEnd = userRepository.findByUserId(userId);
             gameToEnd.updateScore(userId, -1);
-            playerToEnd.setGameHistory(gameToEnd.getGameName(), gameToEnd.getScore(userId ), gameToEnd.getCorrectAnswers(userId ),
-            gameToEnd.getTotalQuestions(userId ), gameToEnd.getGameCreationDate(),gameToEnd.getTime(),gameToEnd.getModeType(), gameToEnd.getDifficulty());
+            LiveGame liveGame = liveGameStore.get(gameToEnd.getGameId());
+            if (liveGame != null) { liveGame.setScore(userId, -1); }
+            settlePlayer(playerToEnd, gameToEnd);
             playerToEnd.setGame(null);
             userRepository.save(playerToEnd);
             userRepository.flush();
@@ -914,41 +960,17 @@ public class GameService {
                 gameToEnd.removeReadyStatus(userId);
             }
 
-            getGameLobby();
             broadcastReadyStatus(gameToEnd.getGameId());
 
-            Map<String, Integer> scoreBoardFront = new HashMap<>();
-            for (Long userid : gameToEnd.getScoreBoard().keySet()) {
-                String username = (userRepository.findByUserId(userid)).getUsername();
-                int score = gameToEnd.getScoreBoard().get(userid);
-                scoreBoardFront.put(username, score);
-            }
-            messagingTemplate.convertAndSend("/topic/user/" + gameToEnd.getGameId() + "/scoreBoard", scoreBoardFront);
-            log.info("websocket send: scoreBoard!");
+            scoreBoardService.scoreChanged(gameToEnd.getGameId(), userId);
 
             gameRepository.save(gameToEnd);
             gameRepository.flush();
+            lobbyService.roomChanged(gameToEnd);
             utilService.removeExitPlayer(gameToEnd.getGameId(), userId);
         }
     }
 
-    public List<UserGetDTO> getLeaderboard() {
-
-        List<User> allUsers = userRepository.findAll();
-        List<UserGetDTO> leaderBoard = new ArrayList<>(); 
-
-        for (User user : allUsers) {
-            UserGetDTO userGetDTO = new UserGetDTO();
-            userGetDTO.setUserId(user.getUserId()); 
-            userGetDTO.setLevel((user.getLevel().multiply(new BigDecimal(100))).intValue());
-            userGetDTO.setUsername(user.getUsername());
-            userGetDTO.setAvatar(user.getAvatar());
-            leaderBoard.add(userGetDTO);
-        }
-        leaderBoard.sort(Comparator.comparing(UserGetDTO::getLevel).reversed());
-        return leaderBoard;
-    }
-
     public void broadcastReadyStatus(Long gameId) { //change permissions for test
         Game game = gameRepository.findBygameId(gameId);
         Map<Long, Boolean> readyMap = game.getReadyMap();
@@ -956,8 +978,8 @@ public class GameService {
         messagingTemplate.convertAndSend("/topic/ready/" + gameId + "/status", readyMap);
 
         boolean allReady = true;
-        for(Long userId : game.getReadyMap().keySet()){
-            if(game.getReadyMap().get(userId) == false){
+        for(Long userId : readyMap.keySet()){
+            if(readyMap.get(userId) == false){
                 allReady = false;
                 break;
             };
@@ -971,9 +993,10 @@ public class GameService {
         if (game == null) {
         throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
     }
+        Map<Long, Boolean> readyMap = game.getReadyMap();
         boolean allReady = true;
-        for(Long userId : game.getReadyMap().keySet()){
-            if(game.getReadyMap().get(userId) == false){
+        for(Long userId : readyMap.keySet()){
+            if(readyMap.get(userId) == false){
                 allReady = false;
                 break;
             };
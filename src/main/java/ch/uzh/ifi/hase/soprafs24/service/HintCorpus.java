@@ -0,0 +1,172 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hint Corpus
+ * Every clue set the LLM generates is appended as one JSON line to a local file
+ * and loaded again at startup. The corpus hint providers serve clue sets from
+ * here; the LLM is only asked when a country has too few sets or its newest
+ * set is too old.
+ */
+@Component
+public class HintCorpus {
+
+    private final Logger log = LoggerFactory.getLogger(HintCorpus.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Country, List<Entry>> entries = new EnumMap<>(Country.class);
+
+    private final Path path;
+    private final int minVariants;
+    private final Duration maxAge;
+
+    private BufferedWriter writer;
+
+    public HintCorpus(
+            @Value("${hints.corpus.path:data/hint-corpus.jsonl}") String path,
+            @Value("${hints.corpus.min-variants:5}") int minVariants,
+            @Value("${hints.corpus.max-age-days:30}") int maxAgeDays) {
+        this.path = Paths.get(path);
+        this.minVariants = minVariants;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+    }
+
+    /** One stored clue set, also the format of a line in the corpus file. */
+    public static class Entry {
+        private Country country;
+        private String difficulty;
+        private long createdAt;
+        private List<Map<String, Object>> clues;
+
+        public Country getCountry() { return country; }
+        public void setCountry(Country country) { this.country = country; }
+        public String getDifficulty() { return difficulty; }
+        public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+        public long getCreatedAt() { return createdAt; }
+        public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+        public List<Map<String, Object>> getClues() { return clues; }
+        public void setClues(List<Map<String, Object>> clues) { this.clues = clues; }
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        int loaded = 0;
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) { continue; }
+                    try {
+                        add(objectMapper.readValue(line, Entry.class));
+                        loaded++;
+                    }
+                    catch (IOException e) {
+                        // a line cut off by a crash, the rest of the file is still usable
+                        log.warn("Skipping unreadable hint corpus line: {}", e.getMessage());
+                    }
+                }
+            }
+            catch (IOException e) {
+                log.error("Could not read hint corpus {}", path, e);
+            }
+        }
+        log.info("Hint corpus loaded {} clue sets from {}", loaded, path);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer == null) { return; }
+        try {
+            writer.close();
+        }
+        catch (IOException e) {
+            log.warn("Could not close hint corpus {}", path, e);
+        }
+        writer = null;
+    }
+
+    private void add(Entry entry) {
+        if (entry.getCountry() == null || entry.getClues() == null || entry.getClues().isEmpty()) { return; }
+        entries.computeIfAbsent(entry.getCountry(), c -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * True when the corpus should not answer for this country yet: it has fewer
+     * than min-variants clue sets, or the newest one is older than max-age-days.
+     */
+    public synchronized boolean needsNewClues(Country country) {
+        List<Entry> stored = entries.get(country);
+        if (stored == null || stored.size() < minVariants) { return true; }
+        long newest = stored.get(stored.size() - 1).getCreatedAt();
+        return System.currentTimeMillis() - newest > maxAge.toMillis();
+    }
+
+    /** A random stored clue set for the country, or null if there is none. */
+    public synchronized Map<Country, List<Map<String, Object>>> pick(Country country) {
+        List<Entry> stored = entries.get(country);
+        if (stored == null || stored.isEmpty()) { return null; }
+        Entry entry = stored.get(ThreadLocalRandom.current().nextInt(stored.size()));
+
+        List<Map<String, Object>> clues = new ArrayList<>();
+        for (Map<String, Object> clue : entry.getClues()) {
+            clues.add(new HashMap<>(clue));
+        }
+        Map<Country, List<Map<String, Object>>> result = new HashMap<>();
+        result.put(country, clues);
+        return result;
+    }
+
+    public synchronized void store(Country country, String difficulty, List<Map<String, Object>> clues) {
+        if (clues == null || clues.isEmpty()) { return; }
+        Entry entry = new Entry();
+        entry.setCountry(country);
+        entry.setDifficulty(difficulty);
+        entry.setCreatedAt(System.currentTimeMillis());
+        entry.setClues(new ArrayList<>(clues));
+        add(entry);
+
+        try {
+            if (writer == null) {
+                if (path.getParent() != null) { Files.createDirectories(path.getParent()); }
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+        }
+        catch (IOException e) {
+            // the set stays usable in memory for this run
+            log.error("Could not append to hint corpus {}", path, e);
+        }
+    }
+
+    public synchronized int size(Country country) {
+        return entries.getOrDefault(country, Collections.emptyList()).size();
+    }
+}
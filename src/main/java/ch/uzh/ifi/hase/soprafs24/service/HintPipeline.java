@@ -0,0 +1,190 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hint Pipeline
+ * Hint refills of all games go through one queue. Up to batch-size missing hints
+ * of the same difficulty are asked for in a single provider call, and at most
+ * max-in-flight calls run at once while the rest wait in the queue. A game that
+ * asks again while its hints are still queued or in flight only adds what is not
+ * covered yet, so many rooms starting together cannot flood the LLM.
+ */
+@Component
+public class HintPipeline {
+
+    private final Logger log = LoggerFactory.getLogger(HintPipeline.class);
+
+    private final HintProvider hintProvider;
+    private final int batchSize;
+    private final Semaphore inFlight;
+
+    private final Deque<Job> queue = new ArrayDeque<>();
+    private final Map<Long, Integer> pending = new HashMap<>();
+
+    public HintPipeline(
+            HintProvider hintProvider,
+            @Value("${hints.pipeline.max-in-flight:2}") int maxInFlight,
+            @Value("${hints.pipeline.batch-size:4}") int batchSize) {
+        this.hintProvider = hintProvider;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    private static class Job {
+        private final Long gameId;
+        private final String difficulty;
+        private final int clueNumber;
+        private final Country country;
+        private final Consumer<Map<Country, List<Map<String, Object>>>> sink;
+
+        private Job(Long gameId, String difficulty, int clueNumber, Country country, Consumer<Map<Country, List<Map<String, Object>>>> sink) {
+            this.gameId = gameId;
+            this.difficulty = difficulty;
+            this.clueNumber = clueNumber;
+            this.country = country;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Makes sure the game has wanted hints on their way. Each new hint gets its
+     * country from nextCountry and is handed to sink once generated; hints the
+     * provider could not answer are dropped, the next refill asks for them again.
+     *
+     * @return how many hints were added to the queue
+     */
+    public int request(Long gameId, String difficulty, int clueNumber, int wanted,
+                       Supplier<Country> nextCountry, Consumer<Map<Country, List<Map<String, Object>>>> sink) {
+        int missing;
+        synchronized (this) {
+            missing = wanted - pending.getOrDefault(gameId, 0);
+            for (int i = 0; i < missing; i++) {
+                queue.add(new Job(gameId, difficulty, clueNumber, nextCountry.get(), sink));
+            }
+            if (missing > 0) { pending.merge(gameId, missing, Integer::sum); }
+        }
+        dispatch();
+        return Math.max(missing, 0);
+    }
+
+    /** Drops the queued hints of a game, answers still in flight are discarded by its sink. */
+    public synchronized void cancel(Long gameId) {
+        int removed = 0;
+        for (Iterator<Job> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().gameId.equals(gameId)) {
+                it.remove();
+                removed++;
+            }
+        }
+        release(gameId, removed);
+    }
+
+    public synchronized int pending(Long gameId) {
+        return pending.getOrDefault(gameId, 0);
+    }
+
+    private void dispatch() {
+        while (true) {
+            List<Job> batch;
+            synchronized (this) {
+                if (queue.isEmpty() || !inFlight.tryAcquire()) { return; }
+                batch = takeBatch();
+            }
+            run(batch);
+        }
+    }
+
+    // the head of the queue plus the next jobs with the same difficulty, one job per country
+    private List<Job> takeBatch() {
+        Job head = queue.poll();
+        List<Job> batch = new ArrayList<>();
+        batch.add(head);
+        for (Iterator<Job> it = queue.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+            Job job = it.next();
+            if (job.difficulty.equals(head.difficulty) && job.clueNumber == head.clueNumber
+                && batch.stream().noneMatch(other -> other.country == job.country)) {
+                batch.add(job);
+                it.remove();
+            }
+        }
+        return batch;
+    }
+
+    // the provider call is asynchronous, the permit is given back when its answer arrives
+    private void run(List<Job> batch) {
+        List<Country> countries = new ArrayList<>();
+        batch.forEach(job -> countries.add(job.country));
+        CompletableFuture<Map<Country, List<Map<String, Object>>>> call;
+        try {
+            call = hintProvider.generateAllAsync(countries, batch.get(0).clueNumber, batch.get(0).difficulty);
+        }
+        catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        // answered right away (corpus hit or failure): the loop in dispatch takes the next batch
+        if (call.isDone()) {
+            call.whenComplete((clues, error) -> finish(batch, countries, clues, error));
+            return;
+        }
+        call.whenComplete((clues, error) -> {
+            try {
+                finish(batch, countries, clues, error);
+            }
+            finally {
+                dispatch();
+            }
+        });
+    }
+
+    private void finish(List<Job> batch, List<Country> countries, Map<Country, List<Map<String, Object>>> clues, Throwable error) {
+        if (error != null) {
+            log.error("Failed to generate hints for {}: {}", countries, error.getMessage());
+            clues = null;
+        }
+        inFlight.release();
+        for (Job job : batch) {
+            List<Map<String, Object>> clueList = clues == null ? null : clues.get(job.country);
+            try {
+                if (clueList != null && !clueList.isEmpty()) {
+                    Map<Country, List<Map<String, Object>>> hint = new HashMap<>();
+                    hint.put(job.country, clueList);
+                    job.sink.accept(hint);
+                }
+            }
+            catch (RuntimeException e) {
+                log.error("Handing a hint to game {} failed", job.gameId, e);
+            }
+            finally {
+                // released after the hint is in the list so a refill never counts it twice
+                synchronized (this) {
+                    release(job.gameId, 1);
+                }
+            }
+        }
+    }
+
+    private void release(Long gameId, int count) {
+        if (count <= 0) { return; }
+        Integer left = pending.get(gameId);
+        if (left == null) { return; }
+        if (left <= count) { pending.remove(gameId); }
+        else { pending.put(gameId, left - count); }
+    }
+}
@@ -0,0 +1,60 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hint Provider
+ * Source of clue sets for a country. The provider used by the game is chosen
+ * with the hints.provider property (composite, llm, corpus or stub).
+ */
+public interface HintProvider {
+
+    /**
+     * Clues for the country, keyed by the country, each clue a map with "text" and
+     * "difficulty". Returns null if this provider cannot answer right now.
+     */
+    Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty);
+
+    /**
+     * Clues for several countries at once. Providers with a per-call cost override
+     * this to answer all of them in one round-trip; countries they cannot answer
+     * are left out. Returns null if none could be answered.
+     */
+    default Map<Country, List<Map<String, Object>>> generateAll(List<Country> countries, int clueNumber, String difficulty) {
+        Map<Country, List<Map<String, Object>>> result = new HashMap<>();
+        for (Country country : countries) {
+            Map<Country, List<Map<String, Object>>> clues = generate(country, clueNumber, difficulty);
+            if (clues != null && clues.get(country) != null && !clues.get(country).isEmpty()) {
+                result.put(country, clues.get(country));
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Non-blocking form of generateAll. Local providers answer right away; remote
+     * providers that can do their I/O asynchronously override this, otherwise the
+     * blocking call runs on the common pool.
+     */
+    default CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+        if (!isLocal()) {
+            return CompletableFuture.supplyAsync(() -> generateAll(countries, clueNumber, difficulty));
+        }
+        try {
+            return CompletableFuture.completedFuture(generateAll(countries, clueNumber, difficulty));
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Local providers answer from memory and are called without a latency budget. */
+    default boolean isLocal() {
+        return false;
+    }
+}
@@ -0,0 +1,153 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.HistoryBucket;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHistoryRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.HistoryBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History Compaction Service
+ * Keeps the newest games of every user in the game history and folds the older
+ * ones into one bucket per month, mode and difficulty. Each chunk is moved in
+ * its own transaction, buckets updated and rows deleted together, so a run that
+ * stops half way leaves nothing counted twice and the next run carries on with
+ * the users that still have too many rows. Users are compacted in parallel.
+ */
+@Service
+public class HistoryCompactionService {
+
+    // users read per query and old rows moved per transaction
+    static final int USERS_PER_PAGE = 100;
+    static final int CHUNK_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(HistoryCompactionService.class);
+
+    private final GameHistoryRepository gameHistoryRepository;
+    private final HistoryBucketRepository historyBucketRepository;
+    private final int keep;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${history.compaction.threads:2}")
+    private int threads;
+
+    @Value("${history.compaction.interval-minutes:60}")
+    private long intervalMinutes;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        r -> new Thread(r, "history-compaction"));
+    private ExecutorService workers;
+
+    public HistoryCompactionService(@Qualifier("gameHistoryRepository") GameHistoryRepository gameHistoryRepository,
+                                    @Qualifier("historyBucketRepository") HistoryBucketRepository historyBucketRepository,
+                                    @Value("${history.compaction.keep:50}") int keep) {
+        this.gameHistoryRepository = gameHistoryRepository;
+        this.historyBucketRepository = historyBucketRepository;
+        this.keep = Math.max(1, keep);
+    }
+
+    @PostConstruct
+    public void init() {
+        workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> new Thread(r, "history-compaction-worker"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compactAll(workers);
+            }
+            catch (Exception e) {
+                log.error("Error while compacting the game history", e);
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (workers != null) { workers.shutdownNow(); }
+    }
+
+    /** Compacts every user with more than keep games, one page of users at a time. */
+    public void compactAll(Executor executor) {
+        Long after = 0L;
+        while (true) {
+            List<Long> userIds = gameHistoryRepository.findUsersToCompact(after, keep, PageRequest.of(0, USERS_PER_PAGE));
+            if (userIds.isEmpty()) { return; }
+
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (Long userId : userIds) {
+                runs.add(CompletableFuture.runAsync(() -> compactUser(userId), executor).exceptionally(e -> {
+                    log.error("Error while compacting the game history of user {}", userId, e);
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).join();
+            after = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    public void compactUser(Long userId) {
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> compactChunk(userId)))) {
+            // the next chunk goes in its own transaction
+        }
+    }
+
+    // moves up to CHUNK_SIZE games older than the newest keep into buckets, true if there may be more
+    boolean compactChunk(Long userId) {
+        List<GameHistory> kept = gameHistoryRepository.findHistoryPage(userId, null, null, null, PageRequest.of(0, keep));
+        if (kept.size() < keep) { return false; }
+        List<GameHistory> old = gameHistoryRepository.findHistoryPage(userId, null, null,
+            kept.get(keep - 1).getHistoryId(), PageRequest.of(0, CHUNK_SIZE));
+        if (old.isEmpty()) { return false; }
+
+        Map<String, HistoryBucket> buckets = new HashMap<>();
+        for (HistoryBucket bucket : historyBucketRepository.findByUserId(userId)) {
+            buckets.put(key(bucket.getMonthStart(), bucket.getModeType(), bucket.getDifficulty()), bucket);
+        }
+        Set<HistoryBucket> changed = new LinkedHashSet<>();
+        for (GameHistory history : old) {
+            LocalDate month = history.getGameCreationDate().toLocalDate().withDayOfMonth(1);
+            HistoryBucket bucket = buckets.computeIfAbsent(key(month, history.getModeType(), history.getDifficulty()), k -> {
+                HistoryBucket created = new HistoryBucket();
+                created.setUserId(userId);
+                created.setMonthStart(month);
+                created.setModeType(history.getModeType());
+                created.setDifficulty(history.getDifficulty());
+                return created;
+            });
+            changed.add(bucket);
+            bucket.add(history);
+        }
+        historyBucketRepository.saveAll(changed);
+        gameHistoryRepository.deleteInBatch(old);
+        return old.size() == CHUNK_SIZE;
+    }
+
+    private static String key(LocalDate month, String modeType, String difficulty) {
+        return month + "/" + modeType + "/" + difficulty;
+    }
+}
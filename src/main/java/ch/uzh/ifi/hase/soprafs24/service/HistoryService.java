@@ -0,0 +1,117 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.HistoryBucket;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHistoryRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.HistoryBucketRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameHistoryDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryBucketDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * History Service
+ * Writes one row per user and game into the game history and reads it back in
+ * pages, newest first. Pages are keyed by the historyId of the last row shown,
+ * so reading deep into a long history costs the same as the first page. Games
+ * older than the newest few are summed up per month by HistoryCompactionService.
+ */
+@Service
+public class HistoryService {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final GameHistoryRepository gameHistoryRepository;
+    private final HistoryBucketRepository historyBucketRepository;
+
+    public HistoryService(@Qualifier("gameHistoryRepository") GameHistoryRepository gameHistoryRepository,
+                          @Qualifier("historyBucketRepository") HistoryBucketRepository historyBucketRepository) {
+        this.gameHistoryRepository = gameHistoryRepository;
+        this.historyBucketRepository = historyBucketRepository;
+    }
+
+    /** Appends how the user did in the game, a single insert. */
+    public GameHistory record(Long userId, Game game) {
+        GameHistory history = new GameHistory();
+        history.setUserId(userId);
+        history.setGameName(game.getGameName());
+        history.setScore(game.getScore(userId));
+        history.setCorrectAnswers(game.getCorrectAnswers(userId));
+        history.setTotalQuestions(game.getTotalQuestions(userId));
+        history.setGameCreationDate(game.getGameCreationDate());
+        history.setGameTime(game.getTime());
+        history.setModeType(game.getModeType());
+        history.setDifficulty(game.getDifficulty());
+        return gameHistoryRepository.save(history);
+    }
+
+    /** One page of the user's games older than the cursor, nextCursor is null on the last page. */
+    @Transactional(readOnly = true)
+    public HistoryPageDTO page(Long userId, String modeType, String difficulty, Long cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // one row more than asked tells whether there is a next page
+        List<GameHistory> found = gameHistoryRepository.findHistoryPage(userId, modeType, difficulty, cursor,
+            PageRequest.of(0, pageSize + 1));
+
+        List<GameHistoryDTO> games = new ArrayList<>();
+        for (GameHistory history : found.subList(0, Math.min(pageSize, found.size()))) {
+            games.add(toDTO(history));
+        }
+        HistoryPageDTO page = new HistoryPageDTO();
+        page.setGameHistory(games);
+        page.setNextCursor(found.size() > pageSize ? games.get(games.size() - 1).getHistoryId() : null);
+        return page;
+    }
+
+    /** The monthly summaries of the user's compacted games, newest month first. */
+    @Transactional(readOnly = true)
+    public List<HistoryBucketDTO> months(Long userId) {
+        List<HistoryBucketDTO> months = new ArrayList<>();
+        for (HistoryBucket bucket : historyBucketRepository.findByUserIdOrderByMonthStartDesc(userId)) {
+            HistoryBucketDTO dto = new HistoryBucketDTO();
+            dto.setMonthStart(bucket.getMonthStart());
+            dto.setModeType(bucket.getModeType());
+            dto.setDifficulty(bucket.getDifficulty());
+            dto.setGames(bucket.getGames());
+            dto.setTotalScore(bucket.getTotalScore());
+            dto.setCorrectAnswers(bucket.getCorrectAnswers());
+            dto.setTotalQuestions(bucket.getTotalQuestions());
+            months.add(dto);
+        }
+        return months;
+    }
+
+    /** Renames all games of one mode of the user, e.g. the solo games after a username change. */
+    @Transactional
+    public void renameGames(Long userId, String modeType, String gameName) {
+        gameHistoryRepository.renameGames(userId, modeType, gameName);
+    }
+
+    private static GameHistoryDTO toDTO(GameHistory history) {
+        GameHistoryDTO dto = new GameHistoryDTO();
+        dto.setHistoryId(history.getHistoryId());
+        dto.setGameName(history.getGameName());
+        dto.setScore(history.getScore());
+        dto.setCorrectAnswers(history.getCorrectAnswers());
+        dto.setTotalQuestions(history.getTotalQuestions());
+        dto.setGameCreationDate(history.getGameCreationDate());
+        dto.setGameTime(history.getGameTime());
+        dto.setModeType(history.getModeType());
+        dto.setDifficulty(history.getDifficulty());
+        return dto;
+    }
+}
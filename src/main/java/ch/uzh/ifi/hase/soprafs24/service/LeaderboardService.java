@@ -0,0 +1,272 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.LeaderboardRow;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardEntryDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Leaderboard Service
+ * Keeps every user ranked by level in memory, in a treap where each node knows
+ * the size of its subtree. Pages, the rank of a user and the players around a
+ * user are found in O(log n) plus the entries returned, without the database.
+ * The board is read once at startup and afterwards told about every level,
+ * name or avatar change. Levels are kept as hundredths in an int, the unit the
+ * leaderboard has always shown.
+ */
+@Service
+public class LeaderboardService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int DEFAULT_RADIUS = 5;
+    static final int MAX_RADIUS = 50;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final Random random = new Random();
+    private Node root;
+
+    public LeaderboardService(@Qualifier("userRepository") UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    private static final class Node {
+        private final long userId;
+        private final int level;
+        private final int priority;
+        private String username;
+        private String avatar;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long userId, int level, int priority, String username, String avatar) {
+            this.userId = userId;
+            this.level = level;
+            this.priority = priority;
+            this.username = username;
+            this.avatar = avatar;
+        }
+
+        private void resize() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        root = null;
+        nodes.clear();
+        for (LeaderboardRow row : userRepository.findLeaderboardRows()) {
+            insert(new Node(row.getUserId(), scale(row.getLevel()), random.nextInt(), row.getUsername(), row.getAvatar()));
+        }
+    }
+
+    /**
+     * Puts the user at the place of their current level, called after the user is
+     * saved. Inside a transaction the board only changes once it has committed, a
+     * rollback leaves the board as it was.
+     */
+    public void update(User user) {
+        if (user == null || user.getUserId() == null) { return; }
+        long userId = user.getUserId();
+        int level = scale(user.getLevel());
+        String username = user.getUsername();
+        String avatar = user.getAvatar();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(userId, level, username, avatar);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(userId, level, username, avatar);
+            }
+        });
+    }
+
+    private synchronized void update(long userId, int level, String username, String avatar) {
+        Node node = nodes.get(userId);
+        if (node != null && node.level == level) {
+            node.username = username;
+            node.avatar = avatar;
+            return;
+        }
+        if (node != null) { remove(node); }
+        insert(new Node(userId, level, random.nextInt(), username, avatar));
+    }
+
+    /** The users from offset on, best first. Without a limit the whole board is returned. */
+    public synchronized List<LeaderboardEntryDTO> top(Integer offset, Integer limit) {
+        int from = offset == null ? 0 : offset;
+        if (from < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset must not be negative");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int to = limit == null ? size(root) : (int) Math.min(size(root), (long) from + limit);
+        return entries(from, to);
+    }
+
+    public synchronized LeaderboardEntryDTO rankOf(Long userId) {
+        Node node = find(userId);
+        return toEntry(node, countBefore(node.level, Long.MIN_VALUE) + 1);
+    }
+
+    /** The user and up to radius players ranked directly above and below. */
+    public synchronized List<LeaderboardEntryDTO> around(Long userId, Integer radius) {
+        int reach = radius == null ? DEFAULT_RADIUS : radius;
+        if (reach < 0 || reach > MAX_RADIUS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be between 0 and " + MAX_RADIUS);
+        }
+        Node node = find(userId);
+        int position = countBefore(node.level, node.userId);
+        return entries(Math.max(0, position - reach), Math.min(size(root), position + reach + 1));
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    static int scale(BigDecimal level) {
+        return level == null ? 0 : level.multiply(new BigDecimal(100)).intValue();
+    }
+
+    private Node find(Long userId) {
+        Node node = userId == null ? null : nodes.get(userId);
+        if (node == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found on the leaderboard");
+        }
+        return node;
+    }
+
+    // positions [from, to) of the board, users on the same level share the rank of the first of them
+    private List<LeaderboardEntryDTO> entries(int from, int to) {
+        List<Node> found = new ArrayList<>();
+        collect(root, from, to, found);
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(found.size());
+        int rank = 0;
+        for (int i = 0; i < found.size(); i++) {
+            Node node = found.get(i);
+            if (i == 0) {
+                rank = countBefore(node.level, Long.MIN_VALUE) + 1;
+            }
+            else if (node.level != found.get(i - 1).level) {
+                rank = from + i + 1;
+            }
+            entries.add(toEntry(node, rank));
+        }
+        return entries;
+    }
+
+    private static LeaderboardEntryDTO toEntry(Node node, int rank) {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setRank(rank);
+        entry.setUserId(node.userId);
+        entry.setUsername(node.username);
+        entry.setAvatar(node.avatar);
+        entry.setLevel(node.level);
+        return entry;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // higher levels first, on the same level the older account
+    private static boolean ranksAbove(Node node, int level, long userId) {
+        return node.level > level || (node.level == level && node.userId < userId);
+    }
+
+    // number of users ranked above the given level and userId
+    private int countBefore(int level, long userId) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (ranksAbove(node, level, userId)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+            else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static void collect(Node node, int from, int to, List<Node> out) {
+        if (node == null || from >= to) { return; }
+        int leftSize = size(node.left);
+        if (from < leftSize) {
+            collect(node.left, from, Math.min(to, leftSize), out);
+        }
+        if (from <= leftSize && leftSize < to) {
+            out.add(node);
+        }
+        if (to > leftSize + 1) {
+            collect(node.right, Math.max(0, from - leftSize - 1), to - leftSize - 1, out);
+        }
+    }
+
+    private void insert(Node node) {
+        Node[] parts = split(root, node.level, node.userId);
+        root = merge(merge(parts[0], node), parts[1]);
+        nodes.put(node.userId, node);
+    }
+
+    private void remove(Node node) {
+        Node[] parts = split(root, node.level, node.userId);
+        // the rest starts with the node itself, cut right behind it
+        Node[] rest = split(parts[1], node.level, node.userId + 1);
+        root = merge(parts[0], rest[1]);
+        nodes.remove(node.userId);
+    }
+
+    // the users ranked above (level, userId) and the others
+    private static Node[] split(Node node, int level, long userId) {
+        if (node == null) { return new Node[2]; }
+        if (ranksAbove(node, level, userId)) {
+            Node[] parts = split(node.right, level, userId);
+            node.right = parts[0];
+            node.resize();
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, level, userId);
+        node.left = parts[1];
+        node.resize();
+        parts[1] = node;
+        return parts;
+    }
+
+    // every node of first ranks above every node of second
+    private static Node merge(Node first, Node second) {
+        if (first == null) { return second; }
+        if (second == null) { return first; }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.resize();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.resize();
+        return second;
+    }
+}
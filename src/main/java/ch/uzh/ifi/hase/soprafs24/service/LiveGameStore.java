@@ -0,0 +1,317 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live Game Store
+ * Keeps the scores of the running games in memory. Answers only touch the
+ * in-memory state, the changed games are written back to the GameRepository
+ * every FLUSH_INTERVAL and whenever a game is saved. The periodic write of a
+ * game runs as a message in its GameMailbox, so it never reads the game before
+ * and writes it after another message changed it.
+ */
+@Component
+public class LiveGameStore {
+
+    private static final long FLUSH_INTERVAL = 2000;
+
+    private final Logger log = LoggerFactory.getLogger(LiveGameStore.class);
+
+    private final Map<Long, LiveGame> liveGames = new ConcurrentHashMap<>();
+
+    private final GameRepository gameRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameMailbox gameMailbox;
+
+    private ScheduledExecutorService flusher;
+
+    public LiveGameStore(@Qualifier("gameRepository") GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "live-game-flush"));
+        flusher.scheduleWithFixedDelay(this::flushAll, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushAll();
+    }
+
+    /**
+     * Scores of one running game. The players sit in fixed slots so every counter
+     * is a plain int array indexed by slot; games are small, so finding a slot is
+     * a short scan over a long array. The answer sheet holds the ordinal of the
+     * country each player currently has to guess, NO_ANSWER until the first hint,
+     * and goes away with the game when it is closed, as do the correct answers
+     * per country, COUNTRIES.length counters per slot. Those are only written to
+     * the players' learning track when the game is settled.
+     */
+    public static class LiveGame {
+        private static final int NO_ANSWER = -1;
+        private static final Country[] COUNTRIES = Country.values();
+        private static final Continent[] CONTINENTS = Continent.values();
+
+        private final Long gameId;
+        private final String modeType;
+        private final String difficulty;
+        private long[] playerIds;
+        private int[] scores;
+        private int[] correctAnswers;
+        private int[] totalQuestions;
+        private int[] answers;
+        private int[] countryCorrect;
+        private int size;
+        private boolean dirty;
+
+        LiveGame(Game game) {
+            this.gameId = game.getGameId();
+            this.modeType = game.getModeType();
+            this.difficulty = game.getDifficulty();
+
+            Set<Long> userIds = new LinkedHashSet<>(game.getPlayers());
+            userIds.addAll(game.getScoreBoard().keySet());
+            playerIds = new long[Math.max(userIds.size(), 1)];
+            scores = new int[playerIds.length];
+            correctAnswers = new int[playerIds.length];
+            totalQuestions = new int[playerIds.length];
+            answers = new int[playerIds.length];
+            countryCorrect = new int[playerIds.length * COUNTRIES.length];
+            Arrays.fill(answers, NO_ANSWER);
+            for (Long userId : userIds) {
+                int slot = addSlot(userId);
+                scores[slot] = valueOf(game.getScore(userId));
+                correctAnswers[slot] = valueOf(game.getCorrectAnswers(userId));
+                totalQuestions[slot] = valueOf(game.getTotalQuestions(userId));
+            }
+        }
+
+        private static int valueOf(Integer value) {
+            return value == null ? 0 : value;
+        }
+
+        private int slotOf(long userId) {
+            for (int i = 0; i < size; i++) {
+                if (playerIds[i] == userId) { return i; }
+            }
+            return -1;
+        }
+
+        private int addSlot(long userId) {
+            if (size == playerIds.length) {
+                int capacity = size * 2;
+                playerIds = Arrays.copyOf(playerIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                correctAnswers = Arrays.copyOf(correctAnswers, capacity);
+                totalQuestions = Arrays.copyOf(totalQuestions, capacity);
+                answers = Arrays.copyOf(answers, capacity);
+                countryCorrect = Arrays.copyOf(countryCorrect, capacity * COUNTRIES.length);
+                Arrays.fill(answers, size, capacity, NO_ANSWER);
+            }
+            playerIds[size] = userId;
+            return size++;
+        }
+
+        private int slotFor(long userId) {
+            int slot = slotOf(userId);
+            return slot < 0 ? addSlot(userId) : slot;
+        }
+
+        public Long getGameId() { return gameId; }
+        public String getModeType() { return modeType; }
+        public String getDifficulty() { return difficulty; }
+
+        public synchronized void recordAnswer(Long userId, boolean correct, int points) {
+            recordAnswer(userId, null, correct, points);
+        }
+
+        /** Records an answer to the given country, a correct one is also counted for the country. */
+        public synchronized void recordAnswer(Long userId, Country country, boolean correct, int points) {
+            int slot = slotFor(userId);
+            totalQuestions[slot]++;
+            if (correct) {
+                correctAnswers[slot]++;
+                scores[slot] += points;
+                if (country != null) { countryCorrect[slot * COUNTRIES.length + country.ordinal()]++; }
+            }
+            dirty = true;
+        }
+
+        public synchronized void setScore(Long userId, int score) {
+            // the slot first, adding one may replace the arrays
+            int slot = slotFor(userId);
+            scores[slot] = score;
+            dirty = true;
+        }
+
+        public synchronized int getScore(Long userId) {
+            int slot = slotOf(userId);
+            return slot < 0 ? 0 : scores[slot];
+        }
+
+        public synchronized int getCorrectAnswers(Long userId) {
+            int slot = slotOf(userId);
+            return slot < 0 ? 0 : correctAnswers[slot];
+        }
+
+        public synchronized int getTotalQuestions(Long userId) {
+            int slot = slotOf(userId);
+            return slot < 0 ? 0 : totalQuestions[slot];
+        }
+
+        /** Correct answers of the player in this round, indexed by Country ordinal. */
+        public synchronized int[] getCountryCorrect(Long userId) {
+            int slot = slotOf(userId);
+            if (slot < 0) { return new int[COUNTRIES.length]; }
+            return Arrays.copyOfRange(countryCorrect, slot * COUNTRIES.length, (slot + 1) * COUNTRIES.length);
+        }
+
+        /** Correct answers of the player in this round, indexed by Continent ordinal. */
+        public synchronized int[] getContinentCorrect(Long userId) {
+            int[] continentCorrect = new int[CONTINENTS.length];
+            int slot = slotOf(userId);
+            if (slot < 0) { return continentCorrect; }
+            for (int i = 0; i < COUNTRIES.length; i++) {
+                continentCorrect[COUNTRIES[i].getRegion().ordinal()] += countryCorrect[slot * COUNTRIES.length + i];
+            }
+            return continentCorrect;
+        }
+
+        public synchronized void setAnswer(Long userId, Country country) {
+            int slot = slotFor(userId);
+            answers[slot] = country.ordinal();
+        }
+
+        /** The country the player has to guess right now, null if none was handed out. */
+        public synchronized Country getAnswer(Long userId) {
+            int slot = slotOf(userId);
+            if (slot < 0 || answers[slot] == NO_ANSWER) { return null; }
+            return COUNTRIES[answers[slot]];
+        }
+
+        public synchronized Map<Long, Integer> getScoreBoard() {
+            Map<Long, Integer> scoreBoard = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                scoreBoard.put(playerIds[i], scores[i]);
+            }
+            return scoreBoard;
+        }
+
+        synchronized boolean isDirty() { return dirty; }
+
+        synchronized void markDirty() { dirty = true; }
+
+        // copies the counters into the entity, only the changed map entries become updates
+        synchronized void copyTo(Game game) {
+            for (int i = 0; i < size; i++) {
+                game.updateScore(playerIds[i], scores[i]);
+                game.updateCorrectAnswers(playerIds[i], correctAnswers[i]);
+                game.updateTotalQuestions(playerIds[i], totalQuestions[i]);
+            }
+            dirty = false;
+        }
+    }
+
+    /**
+     * Starts tracking the given game with the scores it currently holds,
+     * replacing any earlier round of the same game.
+     */
+    public LiveGame open(Game game) {
+        LiveGame liveGame = new LiveGame(game);
+        liveGames.put(game.getGameId(), liveGame);
+        return liveGame;
+    }
+
+    public LiveGame get(Long gameId) {
+        return liveGames.get(gameId);
+    }
+
+    public LiveGame getOrOpen(Game game) {
+        return liveGames.computeIfAbsent(game.getGameId(), id -> new LiveGame(game));
+    }
+
+    /**
+     * Writes the live scores into the given (managed) entity so the caller saves
+     * them together with its own changes.
+     */
+    public void applyTo(Game game) {
+        LiveGame liveGame = liveGames.get(game.getGameId());
+        if (liveGame != null) {
+            liveGame.copyTo(game);
+        }
+    }
+
+    public void close(Long gameId) {
+        liveGames.remove(gameId);
+    }
+
+    public int size() {
+        return liveGames.size();
+    }
+
+    // waits for the flushes, on shutdown they have to be done before the mailboxes stop
+    void flushAll() {
+        List<CompletableFuture<Void>> flushes = new ArrayList<>();
+        for (LiveGame liveGame : liveGames.values()) {
+            if (liveGame.isDirty()) {
+                flushes.add(gameMailbox.submit(liveGame.getGameId(), () -> flush(liveGame)));
+            }
+        }
+        CompletableFuture.allOf(flushes.toArray(new CompletableFuture[0])).join();
+    }
+
+    private Void flush(LiveGame liveGame) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Game game = gameRepository.findBygameId(liveGame.getGameId());
+                if (game == null) {
+                    liveGames.remove(liveGame.getGameId(), liveGame);
+                    return;
+                }
+                // saveGame already wrote the final scores of a finished round
+                if (!game.getGameRunning() || liveGames.get(liveGame.getGameId()) != liveGame) { return; }
+                // only the score columns are copied into the row loaded here, ready flags
+                // and summaries stay as the game's last message left them
+                liveGame.copyTo(game);
+                gameRepository.save(game);
+            });
+        }
+        catch (Exception e) {
+            log.error("Flushing live game {} failed", liveGame.getGameId(), e);
+            liveGame.markDirty();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,261 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Asks Gemini for clue sets and keeps every answer in the hint corpus.
+ */
+public class LlmHintProvider implements HintProvider {
+
+    private static final String MODEL_URL =
+    "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent?key=";
+    
+    static final long BASE_BACKOFF_MILLIS = 250;
+
+    private final Logger log = LoggerFactory.getLogger(LlmHintProvider.class);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HintCorpus hintCorpus;
+    private final URI modelUri;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+
+    public LlmHintProvider(HintCorpus hintCorpus, String apiKey, Duration requestTimeout, int maxAttempts) {
+        this(hintCorpus, apiKey, requestTimeout, maxAttempts, HttpClient.newBuilder().connectTimeout(requestTimeout).build());
+    }
+
+    LlmHintProvider(HintCorpus hintCorpus, String apiKey, Duration requestTimeout, int maxAttempts, HttpClient httpClient) {
+        this.hintCorpus = hintCorpus;
+        this.modelUri = URI.create(MODEL_URL + apiKey);
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = maxAttempts;
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+        return generateAll(List.of(country), clueNumber, difficulty);
+    }
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generateAll(List<Country> countries, int clueNumber, String difficulty) {
+        try {
+            return generateAllAsync(countries, clueNumber, difficulty).join();
+        }
+        catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException("Error generating clues", e.getCause());
+        }
+    }
+
+    /**
+     * Asks for all countries in one prompt, every clue set is introduced by a
+     * "### <Country>" line so they can be told apart in the answer. The request
+     * is sent with sendAsync, so no thread waits for Gemini; timeouts, 429 and
+     * 5xx answers are retried up to maxAttempts times with jittered backoff.
+     */
+    @Override
+    public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+            .uri(modelUri)
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(buildPayloadJson(buildPrompt(countries, clueNumber))))
+            .build();
+        }
+        catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Error generating clues", e));
+        }
+
+        return send(request, 1).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("LLM API failed: " + response.body());
+            }
+            Map<Country, List<Map<String, Object>>> clues;
+            try {
+                clues = extractClues(response.body(), countries);
+            }
+            catch (RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new RuntimeException("Error generating clues", e);
+            }
+            for (Map.Entry<Country, List<Map<String, Object>>> clueSet : clues.entrySet()) {
+                hintCorpus.store(clueSet.getKey(), difficulty, clueSet.getValue());
+            }
+            return clues.isEmpty() ? null : clues;
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request, int attempt) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                boolean retry = error != null || isRetryable(response.statusCode());
+                if (!retry || attempt >= maxAttempts) {
+                    return error == null
+                        ? CompletableFuture.completedFuture(response)
+                        : CompletableFuture.<HttpResponse<String>>failedFuture(error);
+                }
+                long backoff = backoffMillis(attempt);
+                log.warn("LLM attempt {} failed ({}), retrying in {} ms", attempt,
+                    error != null ? error.getMessage() : "status " + response.statusCode(), backoff);
+                Executor later = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS);
+                return CompletableFuture.runAsync(() -> { }, later).thenCompose(ignored -> send(request, attempt + 1));
+            })
+            .thenCompose(Function.identity());
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    // full jitter: anywhere between 0 and the exponential backoff, so retries of many games spread out
+    static long backoffMillis(int attempt) {
+        return ThreadLocalRandom.current().nextLong((BASE_BACKOFF_MILLIS << (attempt - 1)) + 1);
+    }
+    
+    String buildPrompt(List<Country> countries, int clueCount) {
+        StringBuilder prompt = new StringBuilder();
+        String countryList = countries.stream().map(Country::name).collect(Collectors.joining(", "));
+    
+    prompt.append(String.format("""
+        You are a playful AI assistant that generates clear, structured, single-sentence geography guessing clues for a game.
+
+        ### Task
+        Generate %d clues for each of these countries: **%s**.
+        Each clue should help a player guess the country and should become progressively easier.
+        ** Any clue should not contain the name of its country**
+
+        - **Clue %d** must:
+        - Clearly state the continent that the country is in (e.g., "This country in South America...").
+        - Contain **lesser-known or subtle facts** (e.g., rare fauna, climate, unusual terrain, exports, local language quirks, lesser-known cities, geographic trivia).
+        - Avoid anything too obvious or globally iconic.
+        - **Avoid clues that spell out the country's name** (e.g., "Chinese" alligator, "Peking" chicken) if these actually refer to the country.
+
+        - **Clues 2 to %d**:
+        - Gradually reveal more recognizable geographic, cultural, or linguistic information.
+        - Still avoid the country's name, capital city, or political and historical references.
+        - **Avoid clues that spell out the country's name**.
+
+        - **Clue 1** (the easiest):
+        - May mention world-famous cities, landmarks, national dishes, spoken language, or festivals — but must still avoid naming the country directly.
+        - Only if this is a **difficult or lesser-known country to guess**, you may include the capital city.
+            - Difficult countries include:
+            - Countries with small land area or low global visibility (e.g., Eswatini, Djibouti, Bhutan).
+            - Countries with few internationally known cities or landmarks.
+            - Countries often confused with neighbors or less discussed globally.
+        - Do **not** reveal the capital for well-known countries (e.g., France, China, Brazil, Germany, United States).
+        - **Avoid clues that spell out the country's name**.
+
+        ### Forbidden Patterns
+        Avoid clues like:
+        - This country is Japan. ❌
+        - Its capital is Tokyo. ❌
+        - Mount Fuji is here. ❌ (too iconic)
+        - Peking duck is popular here. ❌ (names the country indirectly)
+
+        ### Output Rules
+        - Each clue must be a **single or double sentence only**.
+        - All clues must be **factually correct and verifiable**. If you are not certain of a fact, do not include it.
+        - Do NOT include the country's name or capital city until the easiest clue.
+        - Do NOT use quotation marks, markdown, bullets, or any extra characters apart from the ### lines.
+        - Do NOT include explanations or any introductory or concluding remarks.
+
+        ### Output Format
+        For every country write a line "### " followed by the country exactly as listed above,
+        then exactly %d clues in the following plain text format:
+        """, clueCount, countryList, clueCount, clueCount - 1, clueCount));
+
+        for (Country country : countries) {
+            prompt.append(String.format("### %s%n", country.name()));
+            for (int i = 1; i <= clueCount; i++) {
+                prompt.append(String.format("%d. Clue: [Hint] - Difficulty: %d%n", i, i));
+            }
+        }
+        
+        return prompt.toString();
+    }
+    
+    private String buildPayloadJson(String promptText) throws Exception {
+        Map<String, Object> textPart = Map.of("text", promptText);
+        Map<String, Object> content = Map.of("parts", List.of(textPart));
+        Map<String, Object> payload = Map.of("contents", List.of(content));
+        
+        return objectMapper.writeValueAsString(payload);
+    }
+    
+    /**
+     * Clue lines belong to the country of the last "###" line before them. With a
+     * single country the header may be missing, any clue line is taken for it.
+     */
+    Map<Country, List<Map<String, Object>>> extractClues(String responseBody, List<Country> countries) throws Exception {
+        JsonNode root = objectMapper.readTree(responseBody);
+        
+        JsonNode parts = root
+        .path("candidates").get(0)
+        .path("content")
+        .path("parts");
+        
+        if (!parts.isArray() || parts.isEmpty()) {
+            throw new RuntimeException("Invalid LLM response format");
+        }
+        
+        String outputText = parts.get(0).path("text").asText();
+        String[] lines = outputText.split("\n");
+        
+        Map<String, Country> byName = new HashMap<>();
+        for (Country country : countries) {
+            byName.put(country.name().toLowerCase(), country);
+        }
+        Country current = countries.size() == 1 ? countries.get(0) : null;
+        Map<Country, List<Map<String, Object>>> result = new HashMap<>();
+        
+        for (String line : lines) {
+            line = line.trim();
+            if (line.startsWith("#")) {
+                String name = line.replaceAll("^#+", "").replaceAll("[*\\s]", "").toLowerCase();
+                current = byName.getOrDefault(name, countries.size() == 1 ? countries.get(0) : null);
+            }
+            else if (current != null && line.matches("^\\d+\\. Clue: .* - Difficulty: \\d+$")) {
+                String clueText = line.replaceAll("^\\d+\\. Clue: (.*) - Difficulty: \\d+$", "$1").trim();
+                int difficulty = Integer.parseInt(
+                line.replaceAll("^\\d+\\. Clue: .* - Difficulty: (\\d+)$", "$1").trim()
+                );
+                
+                Map<String, Object> clueMap = new HashMap<>();
+                clueMap.put("text", clueText);
+                clueMap.put("difficulty", difficulty);
+                
+                result.computeIfAbsent(current, c -> new ArrayList<>()).add(clueMap);
+            }
+        }
+        
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.LobbyRoom;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyRoomDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyUpdateDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lobby Service
+ * Keeps the combat rooms shown in the lobby in memory. Changes to rooms are
+ * collected for DEBOUNCE_MILLIS and then go out to /topic/lobby as one versioned
+ * delta of added, updated and removed rooms; new subscribers fetch a snapshot
+ * and apply the deltas with a higher version. Browsing clients page through
+ * the rooms instead, filtered in the database and keyed by gameId.
+ */
+@Service
+public class LobbyService {
+
+    static final long DEBOUNCE_MILLIS = 250;
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static final String LOBBY_MODE = "combat";
+
+    private final GameRepository gameRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private GameClock gameClock;
+
+    // published state and the changes since, a null value marks a removed room
+    private final Map<Long, GameGetDTO> rooms = new LinkedHashMap<>();
+    private final Map<Long, GameGetDTO> pending = new LinkedHashMap<>();
+    private long version;
+    private boolean loaded;
+    private GameClock.Timeout nextPublish;
+
+    public LobbyService(@Qualifier("gameRepository") GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+
+    /** Records the current state of the room, called after a change is written. */
+    public synchronized void roomChanged(Game game) {
+        if (game == null || !LOBBY_MODE.equals(game.getModeType())) { return; }
+        load();
+        pending.put(game.getGameId(), DTOMapper.INSTANCE.convertGameEntityToGameGetDTO(game));
+        schedulePublish();
+    }
+
+    public synchronized void roomRemoved(Long gameId) {
+        load();
+        if (!rooms.containsKey(gameId) && !pending.containsKey(gameId)) { return; }
+        pending.put(gameId, null);
+        schedulePublish();
+    }
+
+    public synchronized LobbyUpdateDTO snapshot() {
+        load();
+        LobbyUpdateDTO update = new LobbyUpdateDTO();
+        update.setType(LobbyUpdateDTO.SNAPSHOT);
+        update.setVersion(version);
+        update.setAdded(new ArrayList<>(rooms.values()));
+        update.setUpdated(new ArrayList<>());
+        update.setRemoved(new ArrayList<>());
+        return update;
+    }
+
+    /**
+     * One page of combat rooms with a gameId above the cursor, in gameId order.
+     * nextCursor is null on the last page; the version is the lobby version the
+     * page is at least as new as, deltas above it still have to be applied.
+     */
+    @Transactional(readOnly = true)
+    public LobbyPageDTO page(String difficulty, Integer minOpenSlots, Boolean locked, Integer time, Long cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long version = version();
+
+        // one row more than asked tells whether there is a next page
+        List<LobbyRoom> found = gameRepository.findLobbyRooms(cursor == null ? 0L : cursor, difficulty,
+            minOpenSlots == null ? 0 : minOpenSlots, locked, time, PageRequest.of(0, pageSize + 1));
+
+        List<LobbyRoomDTO> rooms = new ArrayList<>();
+        for (LobbyRoom room : found.subList(0, Math.min(pageSize, found.size()))) {
+            rooms.add(toRoomDTO(room));
+        }
+        LobbyPageDTO page = new LobbyPageDTO();
+        page.setVersion(version);
+        page.setRooms(rooms);
+        page.setNextCursor(found.size() > pageSize ? rooms.get(rooms.size() - 1).getGameId() : null);
+        return page;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    private static LobbyRoomDTO toRoomDTO(LobbyRoom room) {
+        LobbyRoomDTO dto = new LobbyRoomDTO();
+        dto.setGameId(room.getGameId());
+        dto.setGameName(room.getGameName());
+        dto.setOwnerId(room.getOwnerId());
+        dto.setDifficulty(room.getDifficulty());
+        dto.setTime(room.getTime());
+        dto.setPlayersNumber(room.getPlayersNumber());
+        dto.setRealPlayersNumber(room.getRealPlayersNumber());
+        dto.setOpenSlots(room.getPlayersNumber() - room.getRealPlayersNumber());
+        dto.setLocked(room.getLocked());
+        dto.setGameRunning(room.getGameRunning());
+        return dto;
+    }
+
+    // the rooms that existed before this instance started, read once on first use
+    private void load() {
+        if (loaded) { return; }
+        for (Game game : gameRepository.findByModeType(LOBBY_MODE)) {
+            rooms.put(game.getGameId(), DTOMapper.INSTANCE.convertGameEntityToGameGetDTO(game));
+        }
+        loaded = true;
+    }
+
+    private void schedulePublish() {
+        if (nextPublish == null) {
+            nextPublish = gameClock.schedule(this::publish, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void publish() {
+        LobbyUpdateDTO update = new LobbyUpdateDTO();
+        update.setType(LobbyUpdateDTO.DELTA);
+        List<GameGetDTO> added = new ArrayList<>();
+        List<GameGetDTO> updated = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        synchronized (this) {
+            nextPublish = null;
+            for (Map.Entry<Long, GameGetDTO> change : pending.entrySet()) {
+                if (change.getValue() == null) {
+                    if (rooms.remove(change.getKey()) != null) { removed.add(change.getKey()); }
+                }
+                else if (rooms.put(change.getKey(), change.getValue()) == null) {
+                    added.add(change.getValue());
+                }
+                else {
+                    updated.add(change.getValue());
+                }
+            }
+            pending.clear();
+            // a room created and removed inside one window leaves nothing to send
+            if (added.isEmpty() && updated.isEmpty() && removed.isEmpty()) { return; }
+            update.setVersion(++version);
+        }
+        update.setAdded(added);
+        update.setUpdated(updated);
+        update.setRemoved(removed);
+        messagingTemplate.convertAndSend("/topic/lobby", update);
+    }
+}
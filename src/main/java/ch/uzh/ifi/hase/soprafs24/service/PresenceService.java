@@ -0,0 +1,162 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PresenceDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Presence Service
+ * Knows in memory which users are online. A user is online while one of their
+ * STOMP sessions on /ws is open, the broker heartbeats close sessions of clients
+ * that dropped. After the last session closes the user has a short grace period
+ * to reconnect, e.g. on a page reload. Clients without a session keep the user
+ * online with REST heartbeats, which only stamp the time. Each online user has
+ * one check on the game clock that takes the user offline once due. Only the
+ * changes go out on /topic/presence, the expiry listeners clean up after users
+ * that went away.
+ */
+@Service
+public class PresenceService {
+
+    private final long timeoutMillis;
+    private final long graceMillis;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private GameClock gameClock;
+
+    private final Map<Long, Presence> online = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> expiryListeners = new CopyOnWriteArrayList<>();
+
+    public PresenceService(@Value("${presence.timeout-ms:6000}") long timeoutMillis,
+                           @Value("${presence.disconnect-grace-ms:3000}") long graceMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.graceMillis = graceMillis;
+    }
+
+    private final class Presence implements Runnable {
+        private final Long userId;
+        private volatile long expiresAt;
+        private int openSessions;
+        private GameClock.Timeout next;
+
+        private Presence(Long userId) {
+            this.userId = userId;
+        }
+
+        private synchronized void checkIn(long delayMillis) {
+            if (next != null) { next.cancel(); }
+            next = gameClock.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                // a user that went offline and came back has a new presence
+                if (online.get(userId) != this) { return; }
+                long left = expiresAt - System.currentTimeMillis();
+                if (openSessions > 0 || left > 0) {
+                    next = gameClock.schedule(this, openSessions > 0 ? timeoutMillis : left, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                if (!online.remove(userId, this)) { return; }
+            }
+            publish(userId, false);
+            for (Consumer<Long> listener : expiryListeners) {
+                listener.accept(userId);
+            }
+        }
+    }
+
+    /** Stamps the heartbeat of an online user, false if the user is not online. */
+    public boolean heartbeat(Long userId) {
+        Presence presence = online.get(userId);
+        if (presence == null) { return false; }
+        presence.expiresAt = System.currentTimeMillis() + timeoutMillis;
+        return true;
+    }
+
+    public void online(Long userId) {
+        presence(userId).expiresAt = System.currentTimeMillis() + timeoutMillis;
+    }
+
+    /** A STOMP session of the user opened, the user stays online until it closes. */
+    public void connected(String sessionId, Long userId) {
+        if (sessions.putIfAbsent(sessionId, userId) != null) { return; }
+        while (true) {
+            Presence presence = presence(userId);
+            synchronized (presence) {
+                // the presence may have expired between looking it up and locking it
+                if (online.get(userId) == presence) {
+                    presence.openSessions++;
+                    return;
+                }
+            }
+        }
+    }
+
+    public void disconnected(String sessionId) {
+        Long userId = sessions.remove(sessionId);
+        Presence presence = userId == null ? null : online.get(userId);
+        if (presence == null) { return; }
+        synchronized (presence) {
+            if (--presence.openSessions > 0) { return; }
+            presence.expiresAt = System.currentTimeMillis() + graceMillis;
+            presence.checkIn(graceMillis);
+        }
+    }
+
+    public void offline(Long userId) {
+        if (userId == null) { return; }
+        Presence presence = online.remove(userId);
+        if (presence != null) {
+            synchronized (presence) {
+                if (presence.next != null) { presence.next.cancel(); }
+            }
+            publish(userId, false);
+        }
+    }
+
+    public boolean isOnline(Long userId) {
+        return online.containsKey(userId);
+    }
+
+    public List<Long> onlineUsers() {
+        return new ArrayList<>(online.keySet());
+    }
+
+    /** Called with the userId of every user that went away without logging out, on the game clock thread. */
+    public void onExpired(Consumer<Long> listener) {
+        expiryListeners.add(listener);
+    }
+
+    private Presence presence(Long userId) {
+        Presence presence = new Presence(userId);
+        Presence known = online.putIfAbsent(userId, presence);
+        if (known != null) { return known; }
+        presence.expiresAt = System.currentTimeMillis() + timeoutMillis;
+        presence.checkIn(timeoutMillis);
+        publish(userId, true);
+        return presence;
+    }
+
+    private void publish(Long userId, boolean isOnline) {
+        PresenceDTO presence = new PresenceDTO();
+        presence.setUserId(userId);
+        presence.setOnline(isOnline);
+        messagingTemplate.convertAndSend("/topic/presence", presence);
+    }
+}
@@ -0,0 +1,217 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ScoreBoardUpdateDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ScoreEntryDTO;
+import ch.uzh.ifi.hase.soprafs24.service.LiveGameStore.LiveGame;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score Board Service
+ * Broadcasts the scoreboard of the running games. Usernames are cached per game
+ * when players join, so an answer only sends the entries whose score or rank
+ * changed. A full snapshot goes out every SNAPSHOT_INTERVAL for late joiners.
+ */
+@Service
+public class ScoreBoardService {
+
+    static final long SNAPSHOT_INTERVAL = 10000;
+
+    private final Map<Long, GameScoreBoard> scoreBoards = new ConcurrentHashMap<>();
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private LiveGameStore liveGameStore;
+
+    @Autowired
+    private GameClock gameClock;
+
+    public ScoreBoardService(@Qualifier("userRepository") UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    private static class GameScoreBoard {
+        private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+        private Map<Long, Integer> ranks = new HashMap<>();
+        private long version;
+        private volatile boolean running;
+        private GameClock.Timeout nextSnapshot;
+    }
+
+    private GameScoreBoard board(Long gameId) {
+        return scoreBoards.computeIfAbsent(gameId, id -> new GameScoreBoard());
+    }
+
+    public void playerJoined(Long gameId, User player) {
+        board(gameId).usernames.put(player.getUserId(), player.getUsername());
+    }
+
+    public void playerLeft(Long gameId, Long userId) {
+        GameScoreBoard board = scoreBoards.get(gameId);
+        if (board != null && !board.running) {
+            board.usernames.remove(userId);
+        }
+    }
+
+    /**
+     * Starts broadcasting the running round of the game: sends the first snapshot
+     * and keeps sending one every SNAPSHOT_INTERVAL until the game is closed.
+     */
+    public void open(Long gameId) {
+        GameScoreBoard board = board(gameId);
+        LiveGame liveGame = liveGameStore.get(gameId);
+        if (liveGame == null) { return; }
+
+        // players the cache has not seen join (e.g. after a restart) are loaded in one query
+        List<Long> unknown = new ArrayList<>();
+        for (Long userId : liveGame.getScoreBoard().keySet()) {
+            if (!board.usernames.containsKey(userId)) { unknown.add(userId); }
+        }
+        if (!unknown.isEmpty()) {
+            for (User user : userRepository.findAllById(unknown)) {
+                board.usernames.put(user.getUserId(), user.getUsername());
+            }
+        }
+
+        synchronized (board) {
+            board.ranks = new HashMap<>();
+            board.running = true;
+            if (board.nextSnapshot != null) { board.nextSnapshot.cancel(); }
+        }
+        sendSnapshot(gameId);
+    }
+
+    public void close(Long gameId) {
+        GameScoreBoard board = scoreBoards.remove(gameId);
+        if (board != null) {
+            synchronized (board) {
+                board.running = false;
+                if (board.nextSnapshot != null) { board.nextSnapshot.cancel(); }
+            }
+        }
+    }
+
+    /**
+     * Sends the new score of the player together with every player whose rank
+     * moved because of it.
+     */
+    public void scoreChanged(Long gameId, Long userId) {
+        GameScoreBoard board = scoreBoards.get(gameId);
+        LiveGame liveGame = liveGameStore.get(gameId);
+        if (board == null || liveGame == null) { return; }
+
+        Map<Long, Integer> scores = liveGame.getScoreBoard();
+        ScoreBoardUpdateDTO update = new ScoreBoardUpdateDTO();
+        update.setType(ScoreBoardUpdateDTO.DELTA);
+        synchronized (board) {
+            Map<Long, Integer> ranks = rank(scores);
+            List<ScoreEntryDTO> entries = new ArrayList<>();
+            for (Map.Entry<Long, Integer> rank : ranks.entrySet()) {
+                Integer previousRank = board.ranks.get(rank.getKey());
+                int rankChange = previousRank == null ? 0 : previousRank - rank.getValue();
+                if (rank.getKey().equals(userId) || rankChange != 0) {
+                    entries.add(entry(board, rank.getKey(), scores.get(rank.getKey()), rank.getValue(), rankChange));
+                }
+            }
+            board.ranks = ranks;
+            update.setVersion(++board.version);
+            update.setEntries(entries);
+        }
+        messagingTemplate.convertAndSend("/topic/user/" + gameId + "/scoreBoard", update);
+    }
+
+    public ScoreBoardUpdateDTO snapshot(Long gameId) {
+        GameScoreBoard board = scoreBoards.get(gameId);
+        LiveGame liveGame = liveGameStore.get(gameId);
+        if (board == null || liveGame == null) { return null; }
+
+        Map<Long, Integer> scores = liveGame.getScoreBoard();
+        ScoreBoardUpdateDTO update = new ScoreBoardUpdateDTO();
+        update.setType(ScoreBoardUpdateDTO.SNAPSHOT);
+        synchronized (board) {
+            Map<Long, Integer> ranks = rank(scores);
+            List<ScoreEntryDTO> entries = new ArrayList<>();
+            for (Map.Entry<Long, Integer> rank : ranks.entrySet()) {
+                entries.add(entry(board, rank.getKey(), scores.get(rank.getKey()), rank.getValue(), 0));
+            }
+            entries.sort((a, b) -> Integer.compare(a.getRank(), b.getRank()));
+            board.ranks = ranks;
+            update.setVersion(board.version);
+            update.setEntries(entries);
+        }
+        return update;
+    }
+
+    /**
+     * Scores keyed by username, for the full scoreboard that goes out with the
+     * first hints of a round.
+     */
+    public Map<String, Integer> byUsername(Long gameId, Map<Long, Integer> scores) {
+        GameScoreBoard board = board(gameId);
+        Map<String, Integer> scoreBoardFront = new HashMap<>();
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            scoreBoardFront.put(username(board, score.getKey()), score.getValue());
+        }
+        return scoreBoardFront;
+    }
+
+    private void sendSnapshot(Long gameId) {
+        GameScoreBoard board = scoreBoards.get(gameId);
+        if (board == null || !board.running) { return; }
+
+        ScoreBoardUpdateDTO update = snapshot(gameId);
+        if (update == null) { return; }
+        messagingTemplate.convertAndSend("/topic/user/" + gameId + "/scoreBoard", update);
+
+        synchronized (board) {
+            if (board.running) {
+                board.nextSnapshot = gameClock.schedule(() -> sendSnapshot(gameId), SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // competition ranking: equal scores share a rank, the next rank is skipped
+    private static Map<Long, Integer> rank(Map<Long, Integer> scores) {
+        Map<Long, Integer> ranks = new HashMap<>();
+        for (Map.Entry<Long, Integer> player : scores.entrySet()) {
+            int rank = 1;
+            for (Integer other : scores.values()) {
+                if (other > player.getValue()) { rank++; }
+            }
+            ranks.put(player.getKey(), rank);
+        }
+        return ranks;
+    }
+
+    private ScoreEntryDTO entry(GameScoreBoard board, Long userId, int score, int rank, int rankChange) {
+        ScoreEntryDTO entry = new ScoreEntryDTO();
+        entry.setUserId(userId);
+        entry.setUsername(username(board, userId));
+        entry.setScore(score);
+        entry.setRank(rank);
+        entry.setRankChange(rankChange);
+        return entry;
+    }
+
+    private String username(GameScoreBoard board, Long userId) {
+        return board.usernames.computeIfAbsent(userId, id -> {
+            User user = userRepository.findByUserId(id);
+            return user == null ? String.valueOf(id) : user.getUsername();
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.UserStats;
+import ch.uzh.ifi.hase.soprafs24.repository.UserStatsRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ModeStatisticsDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics Service
+ * Keeps one row of running totals per user, mode and difficulty. Every settled
+ * game is added to its row as it is written to the history, reading the
+ * statistics of a user only touches these few rows.
+ */
+@Service
+public class StatisticsService {
+
+    private final UserStatsRepository userStatsRepository;
+
+    public StatisticsService(@Qualifier("userStatsRepository") UserStatsRepository userStatsRepository) {
+        this.userStatsRepository = userStatsRepository;
+    }
+
+    /** Adds a settled game, continentCorrect is indexed by Continent ordinal and may be null. */
+    public void record(GameHistory history, int[] continentCorrect) {
+        UserStats stats = userStatsRepository.findByUserIdAndModeTypeAndDifficulty(history.getUserId(),
+            history.getModeType(), history.getDifficulty());
+        if (stats == null) {
+            stats = new UserStats();
+            stats.setUserId(history.getUserId());
+            stats.setModeType(history.getModeType());
+            stats.setDifficulty(history.getDifficulty());
+        }
+        stats.add(history, continentCorrect == null ? new int[Continent.values().length] : continentCorrect);
+        userStatsRepository.save(stats);
+    }
+
+    /** Games, accuracy and average score per mode and difficulty, plus the totals over all of them. */
+    @Transactional(readOnly = true)
+    public UserStatisticsDTO statistics(Long userId) {
+        List<ModeStatisticsDTO> modes = new ArrayList<>();
+        Map<Continent, Long> continentCorrect = new EnumMap<>(Continent.class);
+        for (Continent continent : Continent.values()) {
+            continentCorrect.put(continent, 0L);
+        }
+        int gamesPlayed = 0;
+        long correctAnswers = 0;
+        long totalQuestions = 0;
+        for (UserStats stats : userStatsRepository.findByUserId(userId)) {
+            ModeStatisticsDTO mode = new ModeStatisticsDTO();
+            mode.setModeType(stats.getModeType());
+            mode.setDifficulty(stats.getDifficulty());
+            mode.setGamesPlayed(stats.getGamesPlayed());
+            mode.setAccuracy(ratio(stats.getCorrectAnswers(), stats.getTotalQuestions()));
+            mode.setAverageScore(ratio(stats.getTotalScore(), stats.getGamesPlayed()));
+            modes.add(mode);
+
+            gamesPlayed += stats.getGamesPlayed();
+            correctAnswers += stats.getCorrectAnswers();
+            totalQuestions += stats.getTotalQuestions();
+            for (Continent continent : Continent.values()) {
+                continentCorrect.merge(continent, stats.getCorrect(continent), Long::sum);
+            }
+        }
+
+        UserStatisticsDTO statistics = new UserStatisticsDTO();
+        statistics.setGamesPlayed(gamesPlayed);
+        statistics.setAccuracy(ratio(correctAnswers, totalQuestions));
+        statistics.setModes(modes);
+        statistics.setContinentCorrect(continentCorrect);
+        return statistics;
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+}
@@ -0,0 +1,34 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic clues for load tests and machines without network, the same
+ * country always gets the same clues.
+ */
+public class StubHintProvider implements HintProvider {
+
+    @Override
+    public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+        List<Map<String, Object>> clues = new ArrayList<>();
+        for (int i = 1; i <= clueNumber; i++) {
+            Map<String, Object> clue = new HashMap<>();
+            clue.put("text", "Clue " + i + " for a country in " + country.getRegion());
+            clue.put("difficulty", i);
+            clues.add(clue);
+        }
+        Map<Country, List<Map<String, Object>>> result = new HashMap<>();
+        result.put(country, clues);
+        return result;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+}
@@ -2,8 +2,11 @@ package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
-import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.PlayerGame;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryBucketDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
@@ -12,19 +15,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * User Service
@@ -39,16 +47,29 @@ public class UserService {
 
   private final Logger log = LoggerFactory.getLogger(UserService.class);
 
-  private final ConcurrentHashMap<Long, Long> userLastHeartBeatMap = new ConcurrentHashMap<>();
+  // logs out users that disconnected or whose heartbeats stopped, off the game clock thread;
+  // users that expire while it is busy are collected and reaped together
+  private final ExecutorService reaper = Executors.newSingleThreadExecutor(r -> new Thread(r, "user-reaper"));
+  private final Queue<Long> expiredUsers = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean reaping = new AtomicBoolean();
 
-  private static final long HEARTBEAT_TIMEOUT = 6000;
-    
-  private static final long CHECK_INTERVAL = 2000;
+  // settles the games of reaped users, at most this many games at once
+  @Value("${presence.reaper.threads:4}")
+  private int reaperThreads;
+  private Executor gameSettlers;
+  private ExecutorService gameSettlerPool;
 
   @PostConstruct
   public void init() {
-      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-      scheduler.scheduleAtFixedRate(this::checkInactiveUsers, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+      gameSettlerPool = Executors.newFixedThreadPool(Math.max(1, reaperThreads), r -> new Thread(r, "game-settler"));
+      gameSettlers = gameSettlerPool;
+      presenceService.onExpired(this::userExpired);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+      reaper.shutdownNow();
+      if (gameSettlerPool != null) { gameSettlerPool.shutdownNow(); }
   }
 
   private final UserRepository userRepository;
@@ -56,6 +77,21 @@ public class UserService {
   @Autowired
     private GameService gameService;
 
+  @Autowired
+  private LeaderboardService leaderboardService;
+
+  @Autowired
+  private PresenceService presenceService;
+
+  @Autowired
+  private HistoryService historyService;
+
+  @Autowired
+  private StatisticsService statisticsService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
 
   private static final Set<String> VALID_AVATARS = Set.of(
     "/avatar_1.png",
@@ -87,6 +123,7 @@ public class UserService {
     newUser.setBio("");
     newUser = userRepository.save(newUser);
     userRepository.flush();
+    leaderboardService.update(newUser);
 
     log.debug("Created Information for User: {}", newUser);
     return newUser;
@@ -129,7 +166,7 @@ public class UserService {
 
     userInDB.setStatus(UserStatus.OFFLINE);
     userInDB.setToken(UUID.randomUUID().toString());
-    userLastHeartBeatMap.remove(user.getUserId());
+    presenceService.offline(userInDB.getUserId());
     userRepository.save(userInDB);
   }
 
@@ -161,7 +198,7 @@ public class UserService {
       checkIfUsernameExist(updatedInfo.getUsername());
       checkIfUsernameCorrect(updatedInfo.getUsername());
       userInDB.setUsername(updatedInfo.getUsername());
-      userInDB.updateGameHistory(updatedInfo.getUsername());
+      historyService.renameGames(userId, "solo", updatedInfo.getUsername() + "-Solo");
     }
     if(!updatedInfo.getEmail().equals(userInDB.getEmail())){
       checkIfEmailCorrect(updatedInfo.getEmail());
@@ -177,42 +214,58 @@ public class UserService {
     }
 
     userRepository.save(userInDB);
+    leaderboardService.update(userInDB);
     return userInDB;
   }
 
-  public UserGetDTO getHistory(Long userId) {
-    User userToGetHistory = userRepository.findByUserId(userId);
-    if (userToGetHistory == null) {
+  public HistoryPageDTO getHistory(Long userId, String modeType, String difficulty, Long cursor, Integer size) {
+    if (!userRepository.existsById(userId)) {
         throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User Not Authenticated");
     }
-    UserGetDTO userDTOwithHistory = new UserGetDTO();
-
-    userDTOwithHistory.setGameHistory(userToGetHistory.getGameHistory());
+    return historyService.page(userId, modeType, difficulty, cursor, size);
+  }
 
-    return userDTOwithHistory;
+  public List<HistoryBucketDTO> getHistoryMonths(Long userId) {
+    if (!userRepository.existsById(userId)) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User Not Authenticated");
+    }
+    return historyService.months(userId);
   }
 
-  public UserGetDTO getLearningTracking(Long userId){
+  public UserStatisticsDTO getStatistics(Long userId){
     User targetUser = findUserById(userId);
-    UserGetDTO userGetDTO = new UserGetDTO();
-    userGetDTO.setLearningTracking(targetUser.getLearningTracking());
-    return userGetDTO;
+    UserStatisticsDTO statistics = statisticsService.statistics(userId);
+    statistics.setLearningTracking(targetUser.getLearningTracking());
+    return statistics;
   }
 
-  public List<UserGetDTO> updateUserHeartBeatTime(Long userId) {
-      log.info("heartbeat: {}", userId);
-      List<UserGetDTO> allusersDTO =  new ArrayList<>();
-
-      if(userRepository.findByUserId(userId).getStatus().equals(UserStatus.ONLINE)){
-          userLastHeartBeatMap.put(userId, System.currentTimeMillis());
+  public void updateUserHeartBeatTime(Long userId) {
+      if (presenceService.heartbeat(userId)) {
+          return;
       }
-      for(Long userid : userLastHeartBeatMap.keySet() ){
-          UserGetDTO userGetDTO = new UserGetDTO();
-          userGetDTO.setUserId(userid);
-          allusersDTO.add(userGetDTO);
+      // not seen since login or since a restart, only logged in users come online
+      if (UserStatus.ONLINE.equals(userRepository.findStatusByUserId(userId))) {
+          presenceService.online(userId);
       }
-      return allusersDTO;
+  }
 
+  /**
+   * A STOMP session on /ws opened for the user. Only a logged in user whose
+   * current token was sent along comes online, other sessions are not tracked.
+   */
+  public void sessionConnected(String sessionId, Long userId, String token) {
+      if (token == null) { return; }
+      User user = userRepository.findByToken(token);
+      if (user == null || !user.getUserId().equals(userId) || !UserStatus.ONLINE.equals(user.getStatus())) { return; }
+      presenceService.connected(sessionId, userId);
+  }
+
+  public void sessionDisconnected(String sessionId) {
+      presenceService.disconnected(sessionId);
+  }
+
+  public List<Long> getOnlineUsers() {
+      return presenceService.onlineUsers();
   }
 
   /**
@@ -298,42 +351,69 @@ public class UserService {
     }
   }
 
-    private void checkInactiveUsers() {
-        long currentTime = System.currentTimeMillis();
-        log.info("check!");
-        log.info("userLastHeartBeatMap: {}", userLastHeartBeatMap);
-
-        List<Long> toRemove = new ArrayList<>();
-
-        userLastHeartBeatMap.forEach((userId, lastActiveTime) -> {
-            if (currentTime - lastActiveTime > HEARTBEAT_TIMEOUT) {
-                log.info("logout user: {}", userId);
-                try {
-                    User userNotActive = userRepository.findByUserId(userId);
-                    if (userNotActive == null) {
-                        toRemove.add(userId);
-                        return;
-                    }
-
-                    Game gameToExit = userNotActive.getGame();
-                    if (gameToExit != null) {
-                        if (gameToExit.getModeType().equals("exercise")) {
-                            gameService.saveGame(gameToExit.getGameId());
-                        } else {
-                            gameService.giveupGame(userId);
-                        }
-                    }
-                    logout(userNotActive);
-
-                    toRemove.add(userId);
-                } catch (Exception e) {
-                    log.error("Error while logging out inactive user: {}", userId, e);
-                }
+    void userExpired(Long userId) {
+        expiredUsers.add(userId);
+        if (reaping.compareAndSet(false, true)) {
+            reaper.execute(this::reapExpiredUsers);
+        }
+    }
+
+    private void reapExpiredUsers() {
+        try {
+            List<Long> userIds = new ArrayList<>();
+            for (Long userId = expiredUsers.poll(); userId != null; userId = expiredUsers.poll()) {
+                userIds.add(userId);
             }
-        });
+            if (!userIds.isEmpty()) {
+                reap(userIds);
+            }
+        } catch (Exception e) {
+            log.error("Error while logging out inactive users", e);
+        } finally {
+            reaping.set(false);
+            // a user may have expired after the last poll
+            if (!expiredUsers.isEmpty() && reaping.compareAndSet(false, true)) {
+                reaper.execute(this::reapExpiredUsers);
+            }
+        }
+    }
 
-        // Safe removal after traversal
-        toRemove.forEach(userLastHeartBeatMap::remove);
+    /**
+     * Takes the users out of their games and logs them out. The games of the users
+     * are read in one query, every affected game is settled once, games in
+     * parallel, and all users are logged out in one transaction.
+     */
+    void reap(List<Long> userIds) {
+        log.info("logout users: {}", userIds);
+        Map<Long, List<Long>> playersByGame = new HashMap<>();
+        Set<Long> exerciseGames = new HashSet<>();
+        for (PlayerGame playerGame : userRepository.findPlayerGames(userIds)) {
+            playersByGame.computeIfAbsent(playerGame.getGameId(), gameId -> new ArrayList<>()).add(playerGame.getUserId());
+            if (playerGame.getModeType().equals("exercise")) {
+                exerciseGames.add(playerGame.getGameId());
+            }
+        }
+
+        List<CompletableFuture<Void>> settled = new ArrayList<>();
+        playersByGame.forEach((gameId, players) -> settled.add(CompletableFuture.runAsync(() -> {
+            if (exerciseGames.contains(gameId)) {
+                gameService.saveGame(gameId);
+            } else {
+                gameService.giveupGame(gameId, players);
+            }
+        }, gameSettlers).exceptionally(e -> {
+            log.error("Error while settling game {} of inactive users {}", gameId, players, e);
+            return null;
+        })));
+        CompletableFuture.allOf(settled.toArray(new CompletableFuture[0])).join();
+
+        // every user gets its own random token, the updates are flushed together in JDBC batches
+        transactionTemplate.executeWithoutResult(status -> {
+            for (User user : userRepository.findAllById(userIds)) {
+                user.setStatus(UserStatus.OFFLINE);
+                user.setToken(UUID.randomUUID().toString());
+            }
+        });
     }
 
 }
@@ -0,0 +1,68 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times picking a hint target country the way UtilService did before the
+ * index (stream over Country.values(), name list and Country.valueOf per pick)
+ * against CountryIndex. Tagged benchmark, so it only runs with ./gradlew benchmark.
+ */
+@Tag("benchmark")
+public class CountryIndexBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int ROUNDS = 2_000_000;
+
+    private static final List<String> EASY_NAMES = CountryIndex.easyCountries().stream()
+        .map(Country::name)
+        .collect(Collectors.toList());
+
+    // the selection before CountryIndex, the name list was built inside the loop there as well
+    private static Country pickByStream(String continent, boolean easy) {
+        List<Country> filteredCountries = Arrays.stream(Country.values())
+            .filter(c -> c.getContinent().equals(continent))
+            .collect(Collectors.toList());
+        if (easy) {
+            List<String> easyCountryNames = List.copyOf(EASY_NAMES);
+            return Country.valueOf(easyCountryNames.get(new Random().nextInt(easyCountryNames.size())));
+        }
+        return filteredCountries.get(new Random().nextInt(filteredCountries.size()));
+    }
+
+    private static Country pickByIndex(Continent continent, boolean easy) {
+        return easy ? CountryIndex.randomEasy() : CountryIndex.randomIn(continent);
+    }
+
+    private static double nanosPerPick(Runnable pick, int rounds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            pick.run();
+        }
+        return (System.nanoTime() - start) / (double) rounds;
+    }
+
+    @Test
+    public void pickTargetCountry_indexAgainstStream() {
+        String continentName = Country.France.getContinent();
+        int[] sink = new int[1];
+        Runnable byStream = () -> sink[0] += pickByStream(continentName, (sink[0] & 1) == 0).ordinal();
+        Runnable byIndex = () -> sink[0] += pickByIndex(Continent.Europe, (sink[0] & 1) == 0).ordinal();
+
+        nanosPerPick(byStream, WARMUP);
+        nanosPerPick(byIndex, WARMUP);
+        double streamNanos = nanosPerPick(byStream, ROUNDS);
+        double indexNanos = nanosPerPick(byIndex, ROUNDS);
+
+        System.out.printf("stream: %.1f ns/pick, index: %.1f ns/pick (%d picks, sink %d)%n",
+            streamNanos, indexNanos, ROUNDS, sink[0]);
+        assertTrue(indexNanos < streamNanos);
+    }
+}
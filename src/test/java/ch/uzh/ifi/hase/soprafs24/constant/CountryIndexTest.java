@@ -0,0 +1,45 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountryIndexTest {
+
+    @Test
+    public void countriesIn_everyCountryInExactlyOneContinent() {
+        Set<Country> seen = new HashSet<>();
+        for (Continent continent : Continent.values()) {
+            assertFalse(CountryIndex.countriesIn(continent).isEmpty(), continent + " has no countries");
+            for (Country country : CountryIndex.countriesIn(continent)) {
+                assertEquals(continent, country.getRegion());
+                assertTrue(seen.add(country));
+            }
+        }
+        assertEquals(Country.values().length, seen.size());
+    }
+
+    @Test
+    public void countriesIn_americasCoversNorthAndSouth() {
+        assertTrue(CountryIndex.countriesIn(Continent.Americas).contains(Country.Canada));
+        assertTrue(CountryIndex.countriesIn(Continent.Americas).contains(Country.Brazil));
+    }
+
+    @Test
+    public void randomIn_staysInContinent() {
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Continent.Oceania, CountryIndex.randomIn(Continent.Oceania).getRegion());
+        }
+    }
+
+    @Test
+    public void randomEasy_picksFromEasyTier() {
+        assertEquals(50, new HashSet<>(CountryIndex.easyCountries()).size());
+        for (int i = 0; i < 200; i++) {
+            assertTrue(CountryIndex.easyCountries().contains(CountryIndex.randomEasy()));
+        }
+    }
+}
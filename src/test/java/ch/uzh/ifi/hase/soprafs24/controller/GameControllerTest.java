@@ -5,7 +5,13 @@ import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GamePostDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardEntryDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyRoomDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyUpdateDTO;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
+import ch.uzh.ifi.hase.soprafs24.service.LeaderboardService;
+import ch.uzh.ifi.hase.soprafs24.service.LobbyService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -42,6 +48,12 @@ public class GameControllerTest {
     @MockBean
     private GameService gameService;
 
+    @MockBean
+    private LobbyService lobbyService;
+
+    @MockBean
+    private LeaderboardService leaderboardService;
+
     @MockBean
     private SimpMessagingTemplate messagingTemplate;
 
@@ -97,10 +109,51 @@ public class GameControllerTest {
 
     @Test
     public void getGameLobby_success() throws Exception {
-        doNothing().when(gameService).getGameLobby();
-    
+        LobbyRoomDTO room = new LobbyRoomDTO();
+        room.setGameId(42L);
+        room.setGameName("Test Game");
+        room.setOpenSlots(2);
+        LobbyPageDTO page = new LobbyPageDTO();
+        page.setVersion(7);
+        page.setRooms(List.of(room));
+        page.setNextCursor(42L);
+        given(lobbyService.page("easy", 1, false, null, 10L, 1)).willReturn(page);
+
+        mockMvc.perform(get("/lobby")
+                .param("difficulty", "easy")
+                .param("minOpenSlots", "1")
+                .param("locked", "false")
+                .param("cursor", "10")
+                .param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(7))
+            .andExpect(jsonPath("$.rooms[0].gameName").value("Test Game"))
+            .andExpect(jsonPath("$.rooms[0].openSlots").value(2))
+            .andExpect(jsonPath("$.nextCursor").value(42));
+    }
+
+    @Test
+    public void getGameLobby_sizeTooLarge_shouldReturnBadRequest() throws Exception {
+        given(lobbyService.page(any(), any(), any(), any(), any(), eq(1000)))
+            .willThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and 100"));
+
+        mockMvc.perform(get("/lobby").param("size", "1000"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void refreshGameLobby_answersWithSnapshot() throws Exception {
+        LobbyUpdateDTO snapshot = new LobbyUpdateDTO();
+        snapshot.setType(LobbyUpdateDTO.SNAPSHOT);
+        snapshot.setAdded(List.of(gameGetDTO));
+        given(lobbyService.snapshot()).willReturn(snapshot);
+
         mockMvc.perform(put("/lobby"))
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.type").value("snapshot"))
+            .andExpect(jsonPath("$.added[0].gameName").value("Test Game"));
+
+        verifyNoInteractions(messagingTemplate);
     }
 
     @Test
@@ -192,14 +245,51 @@ public class GameControllerTest {
     
     @Test
     public void getLeaderboard_success() throws Exception {
-        UserGetDTO userDTO = new UserGetDTO();
-        userDTO.setUsername("topPlayer");
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setRank(1);
+        entry.setUsername("topPlayer");
     
-        given(gameService.getLeaderboard()).willReturn(List.of(userDTO));
+        given(leaderboardService.top(null, null)).willReturn(List.of(entry));
     
         mockMvc.perform(get("/leaderboard"))
             .andExpect(status().isOk())
-            .andExpect(jsonPath("$[0].username").value("topPlayer"));
+            .andExpect(jsonPath("$[0].username").value("topPlayer"))
+            .andExpect(jsonPath("$[0].rank").value(1));
+    }
+
+    @Test
+    public void getLeaderboard_page_passesOffsetAndLimit() throws Exception {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setRank(21);
+        entry.setUsername("midfield");
+
+        given(leaderboardService.top(20, 10)).willReturn(List.of(entry));
+
+        mockMvc.perform(get("/leaderboard").param("offset", "20").param("limit", "10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].rank").value(21));
+    }
+
+    @Test
+    public void getLeaderboardRank_success() throws Exception {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setUserId(1L);
+        entry.setRank(7);
+
+        given(leaderboardService.rankOf(1L)).willReturn(entry);
+
+        mockMvc.perform(get("/leaderboard/1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rank").value(7));
+    }
+
+    @Test
+    public void getLeaderboardAround_unknownUser_returnsNotFound() throws Exception {
+        given(leaderboardService.around(9L, 2))
+            .willThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found on the leaderboard"));
+
+        mockMvc.perform(get("/leaderboard/9/around").param("radius", "2"))
+            .andExpect(status().isNotFound());
     }
 
     @Test
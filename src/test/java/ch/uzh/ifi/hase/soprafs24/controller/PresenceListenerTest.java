@@ -0,0 +1,76 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PresenceListenerTest {
+
+    @Mock
+    private UserService userService;
+
+    private PresenceListener presenceListener;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        presenceListener = new PresenceListener(userService);
+    }
+
+    private static Message<byte[]> connect(String userId, String token) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId("session-1");
+        if (userId != null) {
+            accessor.addNativeHeader(PresenceListener.USER_ID_HEADER, userId);
+        }
+        if (token != null) {
+            accessor.addNativeHeader(PresenceListener.TOKEN_HEADER, token);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    public void onConnect_userIdAndTokenHeaders_sessionConnected() {
+        presenceListener.onConnect(new SessionConnectEvent(this, connect("7", "token-7")));
+
+        verify(userService).sessionConnected("session-1", 7L, "token-7");
+    }
+
+    @Test
+    public void onConnect_noOrInvalidUserId_ignored() {
+        presenceListener.onConnect(new SessionConnectEvent(this, connect(null, "token-7")));
+        presenceListener.onConnect(new SessionConnectEvent(this, connect("guest", "token-7")));
+
+        verify(userService, never()).sessionConnected(any(), any(), any());
+    }
+
+    @Test
+    public void onConnect_noToken_ignored() {
+        presenceListener.onConnect(new SessionConnectEvent(this, connect("7", null)));
+
+        verify(userService, never()).sessionConnected(any(), any(), any());
+    }
+
+    @Test
+    public void onDisconnect_sessionDisconnected() {
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0],
+            StompHeaderAccessor.create(StompCommand.DISCONNECT).getMessageHeaders());
+
+        presenceListener.onDisconnect(new SessionDisconnectEvent(this, message, "session-1", CloseStatus.NORMAL));
+
+        verify(userService).sessionDisconnected("session-1");
+    }
+}
@@ -2,6 +2,9 @@ package ch.uzh.ifi.hase.soprafs24.controller;
 
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryBucketDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.service.UserService;
@@ -377,44 +380,69 @@ public class UserControllerTest {
 
   @Test
   public void getHistory_validUserId_success() throws Exception {
-      UserGetDTO userDTO = new UserGetDTO();
-      userDTO.setGameHistory(new ArrayList<>());
+      HistoryPageDTO page = new HistoryPageDTO();
+      page.setGameHistory(new ArrayList<>());
+      page.setNextCursor(12L);
 
-      given(userService.getHistory(1L)).willReturn(userDTO);
+      given(userService.getHistory(1L, "combat", null, 40L, 5)).willReturn(page);
   
-      mockMvc.perform(get("/history/1"))
+      mockMvc.perform(get("/history/1").param("modeType", "combat").param("cursor", "40").param("size", "5"))
           .andExpect(status().isOk())
-          .andExpect(jsonPath("$.gameHistory").isArray());
+          .andExpect(jsonPath("$.gameHistory").isArray())
+          .andExpect(jsonPath("$.nextCursor").value(12));
   }
 
   @Test
-  public void getLearningTracking_validUserId_success() throws Exception {
-      UserGetDTO userDTO = new UserGetDTO();
-      userDTO.setLearningTracking(new HashMap<>());
+  public void getHistoryMonths_validUserId_returnsBuckets() throws Exception {
+      HistoryBucketDTO bucket = new HistoryBucketDTO();
+      bucket.setModeType("solo");
+      bucket.setGames(3);
+      given(userService.getHistoryMonths(1L)).willReturn(List.of(bucket));
 
-      given(userService.getLearningTracking(1L)).willReturn(userDTO);
+      mockMvc.perform(get("/history/1/months"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$[0].modeType").value("solo"))
+          .andExpect(jsonPath("$[0].games").value(3));
+  }
+
+  @Test
+  public void getStatistics_validUserId_success() throws Exception {
+      UserStatisticsDTO statistics = new UserStatisticsDTO();
+      statistics.setLearningTracking(new HashMap<>());
+      statistics.setGamesPlayed(4);
+      statistics.setAccuracy(0.5);
+
+      given(userService.getStatistics(1L)).willReturn(statistics);
 
       mockMvc.perform(get("/users/1/statistics"))
           .andExpect(status().isOk())
-          .andExpect(jsonPath("$.learningTracking").isMap());
+          .andExpect(jsonPath("$.learningTracking").isMap())
+          .andExpect(jsonPath("$.gamesPlayed").value(4))
+          .andExpect(jsonPath("$.accuracy").value(0.5));
   }
 
   @Test
-  public void updateUserHeartBeatTime_validUserId_returnsList() throws Exception {
+  public void updateUserHeartBeatTime_validUserId_returnsOk() throws Exception {
       Long userId = 1L;
-      UserGetDTO dto = new UserGetDTO();
-      dto.setUserId(userId);
-      List<UserGetDTO> mockList = Collections.singletonList(dto);
-
-      given(userService.updateUserHeartBeatTime(userId)).willReturn(mockList);
+      doNothing().when(userService).updateUserHeartBeatTime(userId);
 
       MockHttpServletRequestBuilder request = post("/heartbeat/{userId}", userId)
           .contentType(MediaType.APPLICATION_JSON);
 
       mockMvc.perform(request)
+          .andExpect(status().isOk());
+
+      Mockito.verify(userService).updateUserHeartBeatTime(userId);
+  }
+
+  @Test
+  public void getOnlineUsers_returnsUserIds() throws Exception {
+      given(userService.getOnlineUsers()).willReturn(List.of(1L, 2L));
+
+      mockMvc.perform(get("/presence"))
           .andExpect(status().isOk())
-          .andExpect(jsonPath("$", hasSize(1)))
-          .andExpect(jsonPath("$[0].userId").value(userId.intValue()));
+          .andExpect(jsonPath("$[0]").value(1))
+          .andExpect(jsonPath("$[1]").value(2));
   }
   /**
    * Helper Method to convert userPostDTO into a JSON string such that the input
@@ -0,0 +1,51 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LearningTrackConverterTest {
+
+    private final LearningTrackConverter converter = new LearningTrackConverter();
+
+    @Test
+    void convert_roundTrip_keepsCounts() {
+        int[] track = new int[Country.values().length];
+        track[Country.Japan.ordinal()] = 3;
+        track[Country.Switzerland.ordinal()] = 1;
+
+        String column = converter.convertToDatabaseColumn(track);
+
+        assertEquals("Japan:3,Switzerland:1", column);
+        assertArrayEquals(track, converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    void convert_emptyTrack_emptyColumn() {
+        assertEquals("", converter.convertToDatabaseColumn(new int[Country.values().length]));
+        assertEquals(Country.values().length, converter.convertToEntityAttribute(null).length);
+    }
+
+    @Test
+    void convertToEntityAttribute_unknownEntries_skipped() {
+        int[] track = converter.convertToEntityAttribute("Atlantis:4,Japan:2,broken,Chile:x");
+
+        assertEquals(2, track[Country.Japan.ordinal()]);
+        assertEquals(0, track[Country.Chile.ordinal()]);
+    }
+
+    @Test
+    void user_learningTracking_onlyCountedCountries() {
+        User user = new User();
+        int[] game = new int[Country.values().length];
+        game[Country.France.ordinal()] = 2;
+        user.addLearningTrack(game);
+        user.updateLearningTrack(Country.France);
+
+        assertEquals(Map.of(Country.France, 3), user.getLearningTracking());
+    }
+}
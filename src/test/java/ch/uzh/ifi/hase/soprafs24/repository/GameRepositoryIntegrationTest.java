@@ -0,0 +1,243 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements a game issues on its player stats over a full round:
+ * loading the game, every answer and the settlement, and the statements of the
+ * hot reads on games and their players. Batching is off so each row written is
+ * one statement.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.jdbc.batch_size=0",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ch.uzh.ifi.hase.soprafs24.repository.GameRepositoryIntegrationTest$StatementCounter"
+})
+public class GameRepositoryIntegrationTest {
+
+  private static final String STATS_TABLE = "game_player_stats";
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private GameRepository gameRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  public static class StatementCounter implements StatementInspector {
+
+    static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql.toLowerCase());
+      return sql;
+    }
+  }
+
+  private static long count(String verb) {
+    synchronized (StatementCounter.statements) {
+      return StatementCounter.statements.stream()
+          .filter(sql -> sql.startsWith(verb) && sql.contains(STATS_TABLE))
+          .count();
+    }
+  }
+
+  private static long countAll() {
+    return StatementCounter.statements.size();
+  }
+
+  private Long gameId;
+
+  private User persistUser(String username, Game game) {
+    User user = new User();
+    user.setUsername(username);
+    user.setPassword("dummyPassword");
+    user.setStatus(UserStatus.ONLINE);
+    user.setToken("token-" + username);
+    user.setAvatar("/avatar_1.png");
+    user.setBio("");
+    user.setEmail("");
+    user.setGame(game);
+    return entityManager.persist(user);
+  }
+
+  @BeforeEach
+  public void setup() {
+    Game game = new Game();
+    game.setGameName("Benchmark");
+    game.setGameCode("bench1");
+    game.setOwnerId(1L);
+    game.setPlayersNumber(4);
+    game.setRealPlayersNumber(4);
+    game.setTime(5);
+    game.setModeType("combat");
+    game.setDifficulty("easy");
+    game.setGameRunning(true);
+    for (long userId = 1; userId <= 4; userId++) {
+      game.setReadyStatus(userId);
+      game.updateScore(userId, 0);
+      game.updateCorrectAnswers(userId, 0);
+      game.updateTotalQuestions(userId, 0);
+    }
+    gameId = entityManager.persist(game).getGameId();
+    game.getPlayers().add(persistUser("alice", game).getUserId());
+    persistUser("bob", null);
+    entityManager.flush();
+    entityManager.clear();
+    StatementCounter.statements.clear();
+  }
+
+  @Test
+  public void playerStats_fullGame_oneRowPerChangedPlayer() {
+    Game game = gameRepository.findBygameId(gameId);
+    assertEquals(4, game.getScoreBoard().size());
+    assertEquals(1, count("select"));
+
+    // every answer changes score, correct and total of one player
+    int answers = 8;
+    for (int i = 0; i < answers; i++) {
+      long userId = i % 4 + 1;
+      game.updateScore(userId, game.getScore(userId) + 100);
+      game.updateCorrectAnswers(userId, game.getCorrectAnswers(userId) + 1);
+      game.updateTotalQuestions(userId, game.getTotalQuestions(userId) + 1);
+      gameRepository.flush();
+    }
+    assertEquals(answers, count("update"));
+
+    // settlement writes a summary for every player
+    Map<Long, String> summaries = new HashMap<>();
+    for (long userId = 1; userId <= 4; userId++) {
+      summaries.put(userId, "2 of 2 correct");
+    }
+    game.setResultSummaryMap(summaries);
+    gameRepository.flush();
+
+    assertEquals(answers + 4, count("update"));
+    assertEquals(0, count("insert"));
+    assertEquals(0, count("delete"));
+
+    entityManager.clear();
+    Game stored = gameRepository.findBygameId(gameId);
+    assertEquals(200, stored.getScore(1L));
+    assertEquals(2, stored.getCorrectAnswers(4L));
+    assertEquals("2 of 2 correct", stored.getResultSummaryMap().get(3L));
+    assertTrue(stored.getReadyStatus(2L));
+  }
+
+  @Test
+  public void playerStats_readyRemoved_rowKeptWhileOtherValuesLeft() {
+    Game game = gameRepository.findBygameId(gameId);
+    game.removeReadyStatus(2L);
+    gameRepository.flush();
+
+    assertEquals(1, count("update"));
+    assertEquals(0, count("delete"));
+    assertNull(game.getReadyStatus(2L));
+    assertFalse(game.getReadyMap().containsKey(2L));
+    assertEquals(0, game.getScore(2L));
+
+    game.setScoreBoard(null);
+    game.setCorrectAnswersMap(null);
+    game.setTotalQuestionsMap(null);
+    game.removeReadyStatus(1L);
+    gameRepository.flush();
+
+    // players 1 and 2 have nothing left, 3 and 4 keep their ready status
+    assertEquals(2, game.getReadyMap().size());
+    assertTrue(game.getScoreBoard().isEmpty());
+    assertEquals(2, count("delete"));
+  }
+
+  @Test
+  public void findChatMembership_participant_oneSelect() {
+    ChatMembership membership = gameRepository.findChatMembership(gameId, "alice");
+
+    assertEquals(gameId, membership.getGameId());
+    assertTrue(membership.getParticipant());
+    assertNull(membership.getEndTime());
+    assertEquals(1, countAll());
+  }
+
+  @Test
+  public void findChatMembership_notParticipantOrUnknown() {
+    assertFalse(gameRepository.findChatMembership(gameId, "bob").getParticipant());
+    assertNull(gameRepository.findChatMembership(gameId, "carol"));
+    assertNull(gameRepository.findChatMembership(gameId + 1, "alice"));
+  }
+
+  @Test
+  public void findByModeType_statsInSameSelect() {
+    List<Game> games = gameRepository.findByModeType("combat");
+
+    assertEquals(1, games.size());
+    assertEquals(4, games.get(0).getScoreBoard().size());
+    assertEquals(1, countAll());
+  }
+
+  @Test
+  public void findByToken_gameNotLoaded() {
+    User user = userRepository.findByToken("token-alice");
+
+    assertEquals("alice", user.getUsername());
+    assertEquals(1, countAll());
+    assertFalse(StatementCounter.statements.get(0).contains(" join "));
+    assertEquals(gameId, user.getGame().getGameId());
+  }
+
+  @Test
+  public void playerJson_lazyGame_keepsGameFields() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    User user = userRepository.findByToken("token-alice");
+    assertFalse(Hibernate.isInitialized(user.getGame()));
+
+    // the players broadcast serialises users as entities, inside the game's transaction
+    JsonNode json = objectMapper.valueToTree(List.of(user)).get(0);
+
+    JsonNode game = json.get("game");
+    assertEquals(gameId.longValue(), game.get("gameId").asLong());
+    assertEquals("combat", game.get("modeType").asText());
+    assertEquals(4, game.get("scoreBoard").size());
+    assertFalse(game.has("hibernateLazyInitializer"));
+    assertFalse(game.has("handler"));
+    // the same object the game entity itself serialises to, as when it was loaded eagerly
+    assertEquals(objectMapper.valueToTree(Hibernate.unproxy(user.getGame())), game);
+  }
+
+  @Test
+  public void findStatusByUserId_andPlayerGames() {
+    Long alice = userRepository.findByUsername("alice").getUserId();
+    Long bob = userRepository.findByUsername("bob").getUserId();
+
+    assertEquals(UserStatus.ONLINE, userRepository.findStatusByUserId(alice));
+    assertNull(userRepository.findStatusByUserId(bob + 100));
+
+    List<PlayerGame> playerGames = userRepository.findPlayerGames(List.of(alice, bob));
+    assertEquals(1, playerGames.size());
+    assertEquals(alice, playerGames.get(0).getUserId());
+    assertEquals(gameId, playerGames.get(0).getGameId());
+    assertEquals("combat", playerGames.get(0).getModeType());
+  }
+}
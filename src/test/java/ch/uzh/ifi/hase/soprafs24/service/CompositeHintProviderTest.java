@@ -0,0 +1,119 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompositeHintProviderTest {
+
+    private CompositeHintProvider composite;
+
+    private HintProvider localAnswering(Map<Country, List<Map<String, Object>>> clues) {
+        return new HintProvider() {
+            @Override
+            public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+                return clues;
+            }
+
+            @Override
+            public boolean isLocal() {
+                return true;
+            }
+        };
+    }
+
+    private HintProvider slowRemote(long sleepMillis, AtomicInteger calls) {
+        return (country, clueNumber, difficulty) -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(sleepMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return new StubHintProvider().generate(country, clueNumber, difficulty);
+        };
+    }
+
+    @Test
+    public void generate_fastProviderAnswers_slowOneNeverCalled() {
+        Map<Country, List<Map<String, Object>>> stored = Map.of(Country.Chile, List.of(Map.of("text", "stored", "difficulty", 1)));
+        AtomicInteger remoteCalls = new AtomicInteger();
+        composite = new CompositeHintProvider(List.of(localAnswering(stored), slowRemote(0, remoteCalls)), 1000);
+
+        assertEquals(stored, composite.generate(Country.Chile, 5, "easy"));
+        assertEquals(0, remoteCalls.get());
+    }
+
+    @Test
+    public void generate_fastProviderEmpty_fallsThroughToNext() {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        composite = new CompositeHintProvider(List.of(localAnswering(null), slowRemote(0, remoteCalls)), 1000);
+
+        Map<Country, List<Map<String, Object>>> clues = composite.generate(Country.Chile, 5, "easy");
+
+        assertEquals(5, clues.get(Country.Chile).size());
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    public void generate_remoteOverBudget_usesLastResort() {
+        Map<Country, List<Map<String, Object>>> stale = Map.of(Country.Chile, List.of(Map.of("text", "stale", "difficulty", 1)));
+        AtomicInteger remoteCalls = new AtomicInteger();
+        composite = new CompositeHintProvider(List.of(localAnswering(null), slowRemote(2000, remoteCalls), localAnswering(stale)), 200);
+
+        long start = System.currentTimeMillis();
+        Map<Country, List<Map<String, Object>>> clues = composite.generate(Country.Chile, 5, "easy");
+
+        assertEquals(stale, clues);
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test
+    public void generate_nobodyAnswers_returnsNull() {
+        composite = new CompositeHintProvider(List.of(localAnswering(null)), 100);
+
+        assertNull(composite.generate(Country.Chile, 5, "easy"));
+    }
+
+    @Test
+    public void generateAll_remoteGetsOnlyUnansweredCountriesInOneCall() {
+        Map<Country, List<Map<String, Object>>> stored = Map.of(Country.Chile, List.of(Map.of("text", "stored", "difficulty", 1)));
+        List<List<Country>> remoteCalls = new ArrayList<>();
+        HintProvider remote = new HintProvider() {
+            @Override
+            public Map<Country, List<Map<String, Object>>> generate(Country country, int clueNumber, String difficulty) {
+                throw new AssertionError("remote must be asked in one batch");
+            }
+
+            @Override
+            public Map<Country, List<Map<String, Object>>> generateAll(List<Country> countries, int clueNumber, String difficulty) {
+                remoteCalls.add(countries);
+                return new StubHintProvider().generateAll(countries, clueNumber, difficulty);
+            }
+        };
+        composite = new CompositeHintProvider(List.of(localAnswering(stored), remote), 1000);
+
+        Map<Country, List<Map<String, Object>>> clues = composite.generateAll(List.of(Country.Chile, Country.Japan, Country.Kenya), 5, "easy");
+
+        assertEquals(List.of(List.of(Country.Japan, Country.Kenya)), remoteCalls);
+        assertEquals(stored.get(Country.Chile), clues.get(Country.Chile));
+        assertEquals(3, clues.size());
+    }
+
+    @Test
+    public void stubProvider_isDeterministic() {
+        StubHintProvider stub = new StubHintProvider();
+
+        assertEquals(stub.generate(Country.Japan, 5, "hard"), stub.generate(Country.Japan, 5, "hard"));
+        assertEquals(1, stub.generate(Country.Japan, 5, "hard").get(Country.Japan).get(0).get("difficulty"));
+    }
+}
@@ -0,0 +1,83 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GameClockTest {
+
+    private GameClock gameClock;
+
+    @BeforeEach
+    void setup() {
+        gameClock = new GameClock();
+        gameClock.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameClock.stop();
+    }
+
+    @Test
+    void schedule_runsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        gameClock.schedule(latch::countDown, 300, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300 - GameClock.TICK_MILLIS);
+    }
+
+    @Test
+    void schedule_cancelledTaskNeverRuns() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean(false);
+
+        GameClock.Timeout timeout = gameClock.schedule(() -> ran.set(true), 200, TimeUnit.MILLISECONDS);
+        timeout.cancel();
+        Thread.sleep(500);
+
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void startCountdown_ticksEverySecondThenEnds() throws InterruptedException {
+        List<Integer> ticks = new CopyOnWriteArrayList<>();
+        CountDownLatch ended = new CountDownLatch(1);
+
+        assertTrue(gameClock.startCountdown(1L, 1, ticks::add, ended::countDown));
+
+        assertTrue(ended.await(4, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 0), ticks);
+        assertNull(gameClock.getRemainingSeconds(1L));
+        assertEquals(0, gameClock.activeCountdowns());
+    }
+
+    @Test
+    void startCountdown_alreadyRunning_isIgnored() {
+        assertTrue(gameClock.startCountdown(1L, 30, remaining -> {}, () -> {}));
+        assertFalse(gameClock.startCountdown(1L, 30, remaining -> {}, () -> {}));
+        assertEquals(1, gameClock.activeCountdowns());
+    }
+
+    @Test
+    void stopCountdown_endIsNeverFired() throws InterruptedException {
+        AtomicBoolean ended = new AtomicBoolean(false);
+
+        gameClock.startCountdown(1L, 0, remaining -> {}, () -> ended.set(true));
+        gameClock.stopCountdown(1L);
+        Thread.sleep(1500);
+
+        assertFalse(ended.get());
+        assertEquals(0, gameClock.activeCountdowns());
+    }
+}
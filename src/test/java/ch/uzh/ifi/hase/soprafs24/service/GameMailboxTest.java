@@ -0,0 +1,124 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMailboxTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final GameMailbox gameMailbox = new GameMailbox(pool);
+
+    @AfterEach
+    public void teardown() {
+        gameMailbox.shutdown();
+    }
+
+    @Test
+    public void testSubmit_sameGame_runsInOrderOneAtATime() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> replies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int message = i;
+            replies.add(gameMailbox.submit(1L, () -> {
+                if (running.incrementAndGet() > 1) { overlaps.incrementAndGet(); }
+                order.add(message);
+                running.decrementAndGet();
+                return message;
+            }));
+        }
+        CompletableFuture.allOf(replies.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    public void testSubmit_differentGames_runInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // each message waits for the other one, this only finishes if they run side by side
+        CompletableFuture<Boolean> first = gameMailbox.submit(1L, () -> await(bothStarted));
+        CompletableFuture<Boolean> second = gameMailbox.submit(2L, () -> await(bothStarted));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCall_fromSameGame_runsRightAway() {
+        String result = gameMailbox.call(1L, () -> gameMailbox.call(1L, () -> "inner"));
+
+        assertEquals("inner", result);
+    }
+
+    @Test
+    public void testCall_messageThrows_rethrownToCaller() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+            gameMailbox.call(1L, () -> { throw new ResponseStatusException(HttpStatus.CONFLICT, "taken"); }));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        // the mailbox keeps working after a failed message
+        assertEquals(1, (int) gameMailbox.call(1L, () -> 1));
+    }
+
+    @Test
+    public void testMailbox_removedWhenIdle() throws Exception {
+        for (long gameId = 0; gameId < 50; gameId++) {
+            gameMailbox.submit(gameId, () -> null).get(5, TimeUnit.SECONDS);
+        }
+
+        // the last message of a mailbox completes just before the mailbox is removed
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gameMailbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, gameMailbox.size());
+    }
+
+    @Test
+    public void testSubmit_manyMessages_notStuckAfterBatch() throws Exception {
+        GameMailbox inline = new GameMailbox(Runnable::run);
+        AtomicInteger count = new AtomicInteger();
+
+        // posted from inside the mailbox, more than one batch is waiting when the first message ends
+        inline.submit(1L, () -> {
+            for (int i = 0; i < 3 * GameMailbox.BATCH_SIZE; i++) {
+                inline.submit(1L, count::incrementAndGet);
+            }
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3 * GameMailbox.BATCH_SIZE, count.get());
+        assertEquals(0, inline.size());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
 
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.ChatMembership;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.PlayerGame;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GamePostDTO;
@@ -23,13 +27,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
@@ -39,6 +48,7 @@ import javax.persistence.MapKeyColumn;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -65,6 +75,27 @@ public class GameServiceTest {
     
     @Mock
     private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private GameClock gameClock;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ScoreBoardService scoreBoardService;
+
+    @Mock
+    private LobbyService lobbyService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private HistoryService historyService;
+
+    @Mock
+    private StatisticsService statisticsService;
     
     @Spy
     
@@ -78,8 +109,7 @@ public class GameServiceTest {
     private User owner;
     private User player2;
     private User ownerSolo;
-    private Map<Long, Country> answers;
-    private Map<Country, List<Map<String, Object>>> generatedHints;
+    private LiveGameStore liveGameStore;
 
     @BeforeEach
     public void setup() {
@@ -206,6 +236,15 @@ public class GameServiceTest {
         
         // Mock repository behavior
         when(userRepository.findByUserId(1L)).thenReturn(owner);
+        // players of a game are loaded in one query, answered from the findByUserId stubs of each test
+        when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<User> found = new ArrayList<>();
+            for (Long userId : (Iterable<Long>) invocation.getArgument(0)) {
+                User user = userRepository.findByUserId(userId);
+                if (user != null) { found.add(user); }
+            }
+            return found;
+        });
         when(gameRepository.findByownerId(1L)).thenReturn(null);
         when(gameRepository.findBygameName("Test Game")).thenReturn(null);
         when(gameRepository.findBygameName("Test Solo Game")).thenReturn(null);
@@ -214,6 +253,31 @@ public class GameServiceTest {
         
         // Set messagingTemplate
         ReflectionTestUtils.setField(gameService, "messagingTemplate", messagingTemplate);
+
+        // run the start stages right away instead of waiting for the game clock
+        ReflectionTestUtils.setField(gameService, "gameClock", gameClock);
+        ReflectionTestUtils.setField(gameService, "transactionTemplate", transactionTemplate);
+        when(gameClock.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // game messages run inline on the calling thread
+        ReflectionTestUtils.setField(gameService, "gameMailbox", new GameMailbox(Runnable::run));
+
+        liveGameStore = new LiveGameStore(gameRepository);
+        ReflectionTestUtils.setField(gameService, "liveGameStore", liveGameStore);
+        ReflectionTestUtils.setField(gameService, "scoreBoardService", scoreBoardService);
+        ReflectionTestUtils.setField(gameService, "lobbyService", lobbyService);
+        ReflectionTestUtils.setField(gameService, "leaderboardService", leaderboardService);
+        ReflectionTestUtils.setField(gameService, "historyService", historyService);
+        ReflectionTestUtils.setField(gameService, "statisticsService", statisticsService);
         
         // Initialize DTO
         gameGetDTO = new GameGetDTO();
@@ -224,11 +288,6 @@ public class GameServiceTest {
         testGameReadyMap.put(2L, true); // Player
         testGame.setReadyMap(testGameReadyMap);
         testGame.setPlayers(new ArrayList<>(Arrays.asList(1L, 2L)));
-
-        answers = new HashMap<>();
-        generatedHints = new HashMap<>();
-        ReflectionTestUtils.setField(gameService, "answers", answers);
-        ReflectionTestUtils.setField(gameService, "generatedHints", generatedHints);
     }
     
     @Test
@@ -347,6 +406,19 @@ public class GameServiceTest {
         assertTrue(exception.getReason().contains("Wrong Password"));
     }
 
+    private static PlayerGame playerGame(Long gameId) {
+        return new PlayerGame() {
+            @Override
+            public Long getUserId() { return null; }
+
+            @Override
+            public Long getGameId() { return gameId; }
+
+            @Override
+            public String getModeType() { return "combat"; }
+        };
+    }
+
     @Test
     public void userExitGame_userIsNotOwner_moreThanOnePlayer() {
         Game GameToExit = new Game();
@@ -363,10 +435,12 @@ public class GameServiceTest {
         
         when(gameRepository.findBygameId(100L)).thenReturn(GameToExit);
         when(userRepository.findByUserId(11L)).thenReturn(userToExit);
+        when(userRepository.findPlayerGames(List.of(11L))).thenReturn(List.of(playerGame(100L)));
         gameService.userExitGame(userToExit.getUserId());
         
         assertEquals(GameToExit.getRealPlayersNumber(), 3);
         assertEquals(GameToExit.getPlayers(), List.of(10L,12L,13L));
+        verify(lobbyService).roomChanged(GameToExit);
         // assertEquals(userToExit.isReady(), false);
     }
 
@@ -392,6 +466,7 @@ public class GameServiceTest {
         when(gameRepository.findBygameId(100L)).thenReturn(GameToExit);
         when(userRepository.findByUserId(10L)).thenReturn(userToExit);
         when(userRepository.findByUserId(11L)).thenReturn(newOwner);
+        when(userRepository.findPlayerGames(List.of(10L))).thenReturn(List.of(playerGame(100L)));
         gameService.userExitGame(userToExit.getUserId());
 
         assertEquals(GameToExit.getRealPlayersNumber(), 3);
@@ -401,6 +476,29 @@ public class GameServiceTest {
         // assertEquals(newOwner.isReady(), false);
     }
     
+    @Test
+    public void userExitGame_gameLookedUpOnMailboxWorker() {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        GameMailbox gameMailbox = new GameMailbox(worker);
+        ReflectionTestUtils.setField(gameService, "gameMailbox", gameMailbox);
+        List<Thread> lookupThreads = new ArrayList<>();
+        when(userRepository.findPlayerGames(List.of(10L))).thenAnswer(invocation -> {
+            lookupThreads.add(Thread.currentThread());
+            return List.of();
+        });
+        try {
+            gameService.userExitGame(10L);
+            gameService.giveupGame(10L);
+        }
+        finally {
+            gameMailbox.shutdown();
+        }
+
+        assertEquals(2, lookupThreads.size());
+        assertFalse(lookupThreads.contains(Thread.currentThread()));
+        verify(userRepository, never()).findByUserId(10L);
+    }
+
     @Test
     public void userExitGame_onlyOnePlayer() {
         Game GameToExit = new Game();
@@ -417,35 +515,44 @@ public class GameServiceTest {
         
         when(gameRepository.findBygameId(100L)).thenReturn(GameToExit);
         when(userRepository.findByUserId(10L)).thenReturn(userToExit);
+        when(userRepository.findPlayerGames(List.of(10L))).thenReturn(List.of(playerGame(100L)));
         gameService.userExitGame(userToExit.getUserId());
         
         assertEquals(userToExit.getGame(), null);
+        verify(lobbyService).roomRemoved(100L);
         // assertEquals(userToExit.isReady(), false);
     }
 
+    // a plain implementation, stubbing a mock here would nest inside the caller's when()
+    private static ChatMembership membership(boolean participant, LocalDateTime endTime) {
+        return new ChatMembership() {
+            @Override
+            public Long getGameId() { return 1L; }
+
+            @Override
+            public LocalDateTime getEndTime() { return endTime; }
+
+            @Override
+            public Long getUserId() { return 100L; }
+
+            @Override
+            public boolean getParticipant() { return participant; }
+        };
+    }
+
     @Test
     void chatChecksForGame_validData_passes() {
-        Long gameId = 1L;
-        String username = "Player1";
-        Long userId = 100L;
-        
-        Game game = new Game();
-        game.setPlayers(Collections.singletonList(userId));
-        game.setEndTime(null);
-        
-        User user = new User();
-        user.setUserId(userId);
-        user.setUsername(username);
-        
-        when(gameRepository.findBygameId(gameId)).thenReturn(game);
-        when(userRepository.findByUsername(username)).thenReturn(user);
+        when(gameRepository.findChatMembership(1L, "Player1")).thenReturn(membership(true, null));
         
-        assertDoesNotThrow(() -> gameService.chatChecksForGame(gameId, username));
+        assertDoesNotThrow(() -> gameService.chatChecksForGame(1L, "Player1"));
+        verify(gameRepository, never()).findBygameId(any());
+        verify(userRepository, never()).findByUsername(any());
     }
     
     @Test
     void chatChecksForGame_gameNotFound_throwsNotFound() {
-        when(gameRepository.findBygameId(1L)).thenReturn(null);
+        when(gameRepository.findChatMembership(1L, "Player1")).thenReturn(null);
+        when(gameRepository.existsById(1L)).thenReturn(false);
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
         gameService.chatChecksForGame(1L, "Player1"));
         assertEquals(404, ex.getStatus().value());
@@ -454,10 +561,8 @@ public class GameServiceTest {
     
     @Test
     void chatChecksForGame_userNotFound_throwsNotFound() {
-        Game game = new Game();
-        game.setPlayers(Collections.singletonList(1L));
-        when(gameRepository.findBygameId(1L)).thenReturn(game);
-        when(userRepository.findByUsername("Player1")).thenReturn(null);
+        when(gameRepository.findChatMembership(1L, "Player1")).thenReturn(null);
+        when(gameRepository.existsById(1L)).thenReturn(true);
         
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
         gameService.chatChecksForGame(1L, "Player1"));
@@ -467,15 +572,7 @@ public class GameServiceTest {
     
     @Test
     void chatChecksForGame_userNotInGame_throwsForbidden() {
-        Game game = new Game();
-        game.setPlayers(Collections.singletonList(2L));  // different user ID
-        
-        User user = new User();
-        user.setUserId(1L);
-        user.setUsername("Player1");
-        
-        when(gameRepository.findBygameId(1L)).thenReturn(game);
-        when(userRepository.findByUsername("Player1")).thenReturn(user);
+        when(gameRepository.findChatMembership(1L, "Player1")).thenReturn(membership(false, null));
         
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
         gameService.chatChecksForGame(1L, "Player1"));
@@ -485,23 +582,27 @@ public class GameServiceTest {
     
     @Test
     void chatChecksForGame_gameEnded_throwsForbidden() {
-        Long userId = 1L;
-        Game game = new Game();
-        game.setPlayers(Collections.singletonList(userId));
-        game.setEndTime(LocalDateTime.now());  // ended game
-        
-        User user = new User();
-        user.setUserId(userId);
-        user.setUsername("Player1");
-        
-        when(gameRepository.findBygameId(1L)).thenReturn(game);
-        when(userRepository.findByUsername("Player1")).thenReturn(user);
+        when(gameRepository.findChatMembership(1L, "Player1")).thenReturn(membership(true, LocalDateTime.now()));
         
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
         gameService.chatChecksForGame(1L, "Player1"));
         assertEquals(403, ex.getStatus().value());
         assertTrue(ex.getReason().contains("Game endeded"));
     }
+
+    @Test
+    void getAllPlayers_validGame_playersReadInOneQuery() {
+        when(gameRepository.findBygameId(3L)).thenReturn(testGameCombat);
+
+        List<UserGetDTO> players = gameService.getAllPlayers(3L);
+
+        assertEquals(2, players.size());
+        assertEquals(owner.getUserId(), players.get(0).getUserId());
+        assertEquals(player2.getUserId(), players.get(1).getUserId());
+        assertFalse(players.get(1).getReadyMap().get(player2.getUserId()));
+        verify(gameRepository, times(1)).findBygameId(3L);
+        verify(userRepository, times(1)).findAllById(testGameCombat.getPlayers());
+    }
     
     @Test
     public void testProcessingAnswer_CorrectCountryAnswer() {
@@ -513,15 +614,12 @@ public class GameServiceTest {
         gamePostDTO.setHintUsingNumber(2); // 2 hints used
         
         // Mock correct answer
-        Map<Long, Country> answers = new HashMap<>();
-        answers.put(userId, Country.Switzerland);
-        ReflectionTestUtils.setField(gameService, "answers", answers);
+        liveGameStore.open(testGame).setAnswer(userId, Country.Switzerland);
         
         // Mock generatedHints
         Map<Country, List<Map<String, Object>>> generatedHints = new HashMap<>();
         List<Map<String, Object>> hintList = List.of(Map.of("hint", "It's in Europe"));
         generatedHints.put(Country.Germany, hintList);
-        ReflectionTestUtils.setField(gameService, "generatedHints", generatedHints);
         
         testGame.setPlayers(List.of(userId));
         testGame.setScoreBoard(new HashMap<>(Map.of(userId, 0)));
@@ -532,11 +630,13 @@ public class GameServiceTest {
         
         assertTrue(result.getJudgement());
         assertEquals(hintList, result.getHints());
-        assertEquals(80, testGame.getScoreBoard().get(userId)); // 100 - (2 - 1) * 20
+        assertEquals(80, liveGameStore.get(1L).getScore(userId)); // 100 - (2 - 1) * 20
+        assertEquals(11, liveGameStore.get(1L).getTotalQuestions(userId));
+        assertEquals(0, testGame.getScoreBoard().get(userId)); // written back in the next flush
         
-        verify(gameRepository).save(testGame);
-        verify(userRepository).save(owner);
-        verify(messagingTemplate).convertAndSend(contains("/scoreBoard"), any(Map.class));
+        verify(gameRepository, never()).save(testGame);
+        verify(userRepository, never()).save(owner);
+        verify(scoreBoardService).scoreChanged(1L, userId);
     }
     
     
@@ -550,15 +650,12 @@ public class GameServiceTest {
         gamePostDTO.setHintUsingNumber(1); // 1 hint used
         
         // Mock correct answer
-        Map<Long, Country> answers = new HashMap<>();
-        answers.put(userId, Country.Switzerland);
-        ReflectionTestUtils.setField(gameService, "answers", answers);
+        liveGameStore.open(testGame).setAnswer(userId, Country.Switzerland);
         
         // Mock generatedHints
         Map<Country, List<Map<String, Object>>> generatedHints = new HashMap<>();
         List<Map<String, Object>> hintList = List.of(Map.of("hint", "It's in Europe"));
         generatedHints.put(Country.Austria, hintList);
-        ReflectionTestUtils.setField(gameService, "generatedHints", generatedHints);
         
         testGame.setPlayers(List.of(userId));
         testGame.setScoreBoard(new HashMap<>(Map.of(userId, 0)));
@@ -569,10 +666,11 @@ public class GameServiceTest {
         
         assertFalse(result.getJudgement());
         assertEquals(hintList, result.getHints());
-        assertEquals(0, testGame.getScoreBoard().get(userId));
+        assertEquals(0, liveGameStore.get(1L).getScore(userId));
+        assertEquals(11, liveGameStore.get(1L).getTotalQuestions(userId));
         
-        verify(gameRepository).save(testGame);
-        verify(messagingTemplate).convertAndSend(contains("/scoreBoard"), any(Map.class));
+        verify(gameRepository, never()).save(testGame);
+        verify(scoreBoardService).scoreChanged(1L, userId);
     }
     
     @Test
@@ -586,15 +684,12 @@ public class GameServiceTest {
         gamePostDTO.setHintUsingNumber(1);  // 1 hint used
         
         // Mock correct answers
-        Map<Long, Country> answers = new HashMap<>();
-        answers.put(userId, Country.Switzerland);  // Correct answer
-        ReflectionTestUtils.setField(gameService, "answers", answers);
+        liveGameStore.open(testGame).setAnswer(userId, Country.Switzerland);  // Correct answer
         
         // Mock generatedHints
         Map<Country, List<Map<String, Object>>> generatedHints = new HashMap<>();
         List<Map<String, Object>> hintList = List.of(Map.of("hint", "It's in Europe"));
         generatedHints.put(Country.Switzerland, hintList);  // Correct hint for Switzerland
-        ReflectionTestUtils.setField(gameService, "generatedHints", generatedHints);
         
         // Set up the game with one player
         testGame.setPlayers(List.of(userId));
@@ -616,8 +711,10 @@ public class GameServiceTest {
         
         assertTrue(result.getJudgement());
         
-        verify(mockUser).updateLearningTrack(Country.Switzerland);
-        verify(userRepository).save(mockUser);
+        // counted in the live game, the user is only written when the game is settled
+        assertEquals(1, liveGameStore.get(1L).getCountryCorrect(userId)[Country.Switzerland.ordinal()]);
+        verify(mockUser, never()).updateLearningTrack(any());
+        verify(userRepository, never()).save(mockUser);
     }
     
     @Test
@@ -631,15 +728,12 @@ public class GameServiceTest {
         gamePostDTO.setHintUsingNumber(1);  // 1 hint used
         
         // Mock correct answers
-        Map<Long, Country> answers = new HashMap<>();
-        answers.put(userId, Country.Switzerland);  // Correct answer is Switzerland
-        ReflectionTestUtils.setField(gameService, "answers", answers);
+        liveGameStore.open(testGame).setAnswer(userId, Country.Switzerland);  // Correct answer is Switzerland
         
         // Mock generatedHints
         Map<Country, List<Map<String, Object>>> generatedHints = new HashMap<>();
         List<Map<String, Object>> hintList = List.of(Map.of("hint", "It's in Europe"));
         generatedHints.put(Country.Austria, hintList);  // Incorrect hint
-        ReflectionTestUtils.setField(gameService, "generatedHints", generatedHints);
         
         // Set up the game with one player
         testGame.setPlayers(List.of(userId));
@@ -663,10 +757,50 @@ public class GameServiceTest {
         assertEquals(hintList, result.getHints());
         
         verify(mockUser, never()).updateLearningTrack(any());
+        assertEquals(0, liveGameStore.get(1L).getCountryCorrect(userId)[Country.Switzerland.ordinal()]);
         
         verify(userRepository, never()).save(mockUser);
     }
     
+    @Test
+    public void saveGame_writesLiveScoresIntoGame() {
+        Long userId = 1L;
+        testGameCombat.setGameRunning(true);
+        testGameCombat.setScoreBoard(new HashMap<>(Map.of(1L, 0, 2L, 0)));
+        when(gameRepository.findBygameId(3L)).thenReturn(testGameCombat);
+        liveGameStore.open(testGameCombat).setAnswer(userId, Country.Switzerland);
+        GameHistory ownerHistory = new GameHistory();
+        when(historyService.record(userId, testGameCombat)).thenReturn(ownerHistory);
+
+        GamePostDTO gamePostDTO = new GamePostDTO();
+        gamePostDTO.setGameId(3L);
+        gamePostDTO.setSubmitAnswer(Country.Switzerland);
+        gamePostDTO.setHintUsingNumber(1);
+        gameService.processingAnswer(gamePostDTO, userId);
+
+        gameService.saveGame(3L);
+
+        assertEquals(100, testGameCombat.getScore(userId));
+        assertEquals(1, testGameCombat.getCorrectAnswers(userId));
+        assertEquals(11, testGameCombat.getTotalQuestions(userId));
+        assertNull(liveGameStore.get(3L));
+        verify(gameRepository).save(testGameCombat);
+        verify(leaderboardService).update(owner);
+        verify(leaderboardService).update(player2);
+        verify(historyService).record(userId, testGameCombat);
+        verify(historyService).record(2L, testGameCombat);
+        int[] continentCorrect = new int[Continent.values().length];
+        continentCorrect[Continent.Europe.ordinal()] = 1;
+        verify(statisticsService).record(eq(ownerHistory), aryEq(continentCorrect));
+        assertEquals(Map.of(Country.Switzerland, 1), owner.getLearningTracking());
+        // both players read in one query and written in one flush
+        verify(userRepository, times(1)).findAllById(testGameCombat.getPlayers());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, times(1)).saveAll(any());
+        verify(userRepository, times(1)).flush();
+        assertTrue(player2.getLearningTracking().isEmpty());
+    }
+    
     @Test
     public void joinGamebyCode_successfully() {
         Game mockGame = new Game();
@@ -856,12 +990,9 @@ public class GameServiceTest {
         game.setGameId(gameId);
         game.setOwnerId(ownerId);
 
-        Map<Long, Boolean> readyStatusMap = new HashMap<>();
-        readyStatusMap.put(ownerId, true);
-        readyStatusMap.put(player1.getUserId(), true);
-        readyStatusMap.put(player2.getUserId(), false); // This player is NOT ready
-
-        ReflectionTestUtils.setField(game, "readyMap", readyStatusMap);
+        game.setReadyStatus(ownerId);
+        game.setReadyStatus(player1.getUserId());
+        game.setNotReadyStatus(player2.getUserId()); // This player is NOT ready
 
         game.setPlayers(List.of(ownerId, player1.getUserId(), player2.getUserId()));
 
@@ -918,7 +1049,9 @@ public class GameServiceTest {
         mockUser.setUsername("player1");
         mockUser.setGame(mockGame);
 
+        when(mockGame.getGameId()).thenReturn(7L);
         when(userRepository.findByUserId(userId)).thenReturn(mockUser);
+        when(userRepository.findPlayerGames(List.of(userId))).thenReturn(List.of(playerGame(7L)));
 
         gameService.giveupGame(userId);
 
@@ -939,6 +1072,7 @@ public class GameServiceTest {
         Long gameId = 3L;
 
         when(gameRepository.findBygameId(gameId)).thenReturn(testGameCombat);
+        when(userRepository.findPlayerGames(List.of(userId))).thenReturn(List.of(playerGame(gameId)));
 
         // Ensure userRepository.save passes through the real user objects
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -967,6 +1101,28 @@ public class GameServiceTest {
         // verify(utilService, times(1)).removeExitPlayer(eq(gameId), eq(userId));
     }
 
+    @Test
+    public void giveupGame_playersDroppedTogether_settledInOneMessage() {
+        Game mockGame = mock(Game.class);
+        when(mockGame.getGameId()).thenReturn(5L);
+        when(mockGame.getOwnerId()).thenReturn(1L);
+        when(mockGame.getPlayers()).thenReturn(List.of(1L, 2L));
+        when(mockGame.getReadyMap()).thenReturn(new HashMap<>());
+        // the first player leaves a game of two, the second one ends it
+        when(mockGame.getRealPlayersNumber()).thenReturn(2, 1);
+        when(gameRepository.findBygameId(5L)).thenReturn(mockGame);
+        owner.setGame(mockGame);
+        player2.setGame(mockGame);
+
+        gameService.giveupGame(5L, List.of(1L, 2L));
+
+        assertNull(owner.getGame());
+        assertNull(player2.getGame());
+        verify(gameRepository, times(1)).deleteByGameId(5L);
+        verify(lobbyService).roomRemoved(5L);
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+    }
+
     @Test
     public void startSoloGame_validInput_gameStartedSuccessfully() {
         // Arrange
@@ -981,11 +1137,13 @@ public class GameServiceTest {
         // Mock owner
         when(userRepository.findByUserId(1L)).thenReturn(owner);
         when(gameRepository.findBygameName("Solo Game")).thenReturn(null);
+        Game[] savedGame = new Game[1];
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
-            Game savedGame = invocation.getArgument(0);
-            savedGame.setGameId(1L);
-            return savedGame;
+            savedGame[0] = invocation.getArgument(0);
+            savedGame[0].setGameId(1L);
+            return savedGame[0];
         });
+        when(gameRepository.findBygameId(1L)).thenAnswer(invocation -> savedGame[0]);
         
         // Act
         gameService.startSoloGame(inputGame);
@@ -1014,27 +1172,36 @@ public class GameServiceTest {
     }
     
     @Test
-    public void startSoloGame_lockNotAcquired_logsWarningAndReturns() {
+    public void startSoloGame_secondStartOfSameOwner_rejectedInsteadOfDropped() {
         // Arrange
         Game inputGame = new Game();
         inputGame.setOwnerId(1L);
-        inputGame.setGameName("Locked Game");
+        inputGame.setGameName("Double Click Game");
         inputGame.setModeType("solo");
-        
-        ReentrantLock lock = mock(ReentrantLock.class);
-        when(lock.tryLock()).thenReturn(false);
-        ReflectionTestUtils.setField(gameService, "userLocks", new ConcurrentHashMap<>(Map.of(1L, lock)));
-        
+        inputGame.setTime(5);
+        inputGame.setDifficulty("easy");
+
+        // the first start has created its game by the time the second one runs
+        when(gameRepository.findByownerId(1L)).thenReturn(null, testGameSolo);
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
+            Game savedGame = invocation.getArgument(0);
+            savedGame.setGameId(5L);
+            return savedGame;
+        });
+        // leave the start stages on the clock, only the starts themselves are under test
+        reset(gameClock);
+
         // Act
         gameService.startSoloGame(inputGame);
-        
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> gameService.startSoloGame(inputGame));
+
         // Assert
-        verify(gameRepository, never()).save(any());
-        verify(messagingTemplate, never()).convertAndSend(anyString(), (Object) any());
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(gameRepository, times(1)).save(any(Game.class));
     }
     
     @Test
-    void startSoloGame_threadInterrupted_sendsTimerInterruptedMessage() {
+    void startSoloGame_stageFails_sendsTimerInterruptedMessage() {
         // Arrange
         Game inputGame = new Game();
         inputGame.setOwnerId(1L);
@@ -1046,27 +1213,50 @@ public class GameServiceTest {
         
         when(userRepository.findByUserId(1L)).thenReturn(owner);
         when(gameRepository.findBygameName("Interrupted Solo Game")).thenReturn(null);
+        Game[] savedGame = new Game[1];
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
-            Game game = invocation.getArgument(0);
-            game.setGameId(1L);
-            return game;
+            savedGame[0] = invocation.getArgument(0);
+            savedGame[0].setGameId(1L);
+            return savedGame[0];
         });
+        when(gameRepository.findBygameId(1L)).thenAnswer(invocation -> savedGame[0]);
+        doThrow(new IllegalStateException("No hints")).when(gameService).getHintsOfOneCountry(any(), any(), any());
         
-        Thread gameThread = new Thread(() -> gameService.startSoloGame(inputGame));
-        gameThread.start();
-        
-        try {
-            Thread.sleep(100);
-            gameThread.interrupt();
-            gameThread.join();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // reset interrupt flag
-        }
+        // Act
+        gameService.startSoloGame(inputGame);
         
+        // Assert
+        verify(messagingTemplate).convertAndSend(eq("/topic/startsolo/1/gameId"), eq(1L));
         verify(messagingTemplate, atLeastOnce()).convertAndSend(
         eq("/topic/game/1/timer-interrupted"), eq("TIMER_STOPPED")
         );
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/start/1/hints"), any(GameGetDTO.class));
     } 
+
+    @Test
+    public void startSoloGame_returnsBeforeStagesRun() {
+        // Arrange
+        Game inputGame = new Game();
+        inputGame.setOwnerId(1L);
+        inputGame.setGameName("Solo Game");
+        inputGame.setModeType("solo");
+        inputGame.setTime(5);
+        inputGame.setPlayersNumber(1);
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
+            Game savedGame = invocation.getArgument(0);
+            savedGame.setGameId(1L);
+            return savedGame;
+        });
+        reset(gameClock);
+        
+        // Act
+        gameService.startSoloGame(inputGame);
+        
+        // Assert
+        verify(gameClock).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+        verify(messagingTemplate).convertAndSend(eq("/topic/startsolo/1/gameId"), eq(1L));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/start/1/ready-time"), eq(5));
+    }
     
     @Test
     public void startExerciseGame_validInput_gameStartedSuccessfully() {
@@ -1081,11 +1271,13 @@ public class GameServiceTest {
         // Mock owner
         when(userRepository.findByUserId(1L)).thenReturn(owner);
         when(gameRepository.findBygameName("Exercise Game")).thenReturn(null);
+        Game[] savedGame = new Game[1];
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
-            Game savedGame = invocation.getArgument(0);
-            savedGame.setGameId(1L);
-            return savedGame;
+            savedGame[0] = invocation.getArgument(0);
+            savedGame[0].setGameId(1L);
+            return savedGame[0];
         });
+        when(gameRepository.findBygameId(1L)).thenAnswer(invocation -> savedGame[0]);
         
         // Act
         gameService.startExerciseGame(inputGame);
@@ -1113,27 +1305,36 @@ public class GameServiceTest {
     }
     
     @Test
-    public void startExerciseGame_lockNotAcquired_logsWarningAndReturns() {
+    public void startExerciseGame_secondStartOfSameOwner_rejectedInsteadOfDropped() {
         // Arrange
         Game inputGame = new Game();
         inputGame.setOwnerId(1L);
-        inputGame.setGameName("Locked Game");
+        inputGame.setGameName("Double Click Game");
         inputGame.setModeType("exercise");
-        
-        ReentrantLock lock = mock(ReentrantLock.class);
-        when(lock.tryLock()).thenReturn(false);
-        ReflectionTestUtils.setField(gameService, "userLocks", new ConcurrentHashMap<>(Map.of(1L, lock)));
-        
+        inputGame.setTime(5);
+        inputGame.setDifficulty("easy");
+
+        // the first start has created its game by the time the second one runs
+        when(gameRepository.findByownerId(1L)).thenReturn(null, testGameSolo);
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
+            Game savedGame = invocation.getArgument(0);
+            savedGame.setGameId(5L);
+            return savedGame;
+        });
+        // leave the start stages on the clock, only the starts themselves are under test
+        reset(gameClock);
+
         // Act
         gameService.startExerciseGame(inputGame);
-        
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> gameService.startExerciseGame(inputGame));
+
         // Assert
-        verify(gameRepository, never()).save(any());
-        verify(messagingTemplate, never()).convertAndSend(anyString(), (Object) any());
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(gameRepository, times(1)).save(any(Game.class));
     }
     
     @Test
-    public void startExerciseGame_threadInterrupted_sendsTimerInterruptedMessage() {
+    public void startExerciseGame_stageFails_sendsTimerInterruptedMessage() {
         // Arrange
         Game inputGame = new Game();
         inputGame.setOwnerId(1L);
@@ -1144,23 +1345,20 @@ public class GameServiceTest {
         
         when(userRepository.findByUserId(1L)).thenReturn(owner);
         when(gameRepository.findBygameName("Interrupted Exercise Game")).thenReturn(null);
+        Game[] savedGame = new Game[1];
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
-            Game game = invocation.getArgument(0);
-            game.setGameId(1L);
-            return game;
+            savedGame[0] = invocation.getArgument(0);
+            savedGame[0].setGameId(1L);
+            return savedGame[0];
         });
+        when(gameRepository.findBygameId(1L)).thenAnswer(invocation -> savedGame[0]);
+        doThrow(new IllegalStateException("No hints")).when(gameService).getHintsOfOneCountry(any(), any(), any());
         
-        Thread gameThread = new Thread(() -> gameService.startExerciseGame(inputGame));
-        gameThread.start();
-        
-        try {
-            Thread.sleep(100);
-            gameThread.interrupt();
-            gameThread.join();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // reset interrupt flag
-        }
+        // Act
+        gameService.startExerciseGame(inputGame);
         
+        // Assert
+        verify(messagingTemplate).convertAndSend(eq("/topic/start/1/ready-time"), eq(5));
         verify(messagingTemplate, atLeastOnce()).convertAndSend(
         eq("/topic/game/1/timer-interrupted"), eq("TIMER_STOPPED")
         );
@@ -1204,8 +1402,7 @@ public class GameServiceTest {
     public void startCombatGame_validGame_startGameSuccessfully() throws InterruptedException {
         // Arrange
         Long gameId = 3L;
-        Map<Long, Boolean> currentReadyMap = testGameCombat.getReadyMap();
-        currentReadyMap.put(player2.getUserId(), true); // Set Player 2 to ready!
+        testGameCombat.setReadyStatus(player2.getUserId()); // Set Player 2 to ready!
         doReturn(true).when(gameService).checkAllReady(gameId);
         when(gameRepository.findBygameId(gameId)).thenReturn(testGameCombat);
 
@@ -1219,31 +1416,61 @@ public class GameServiceTest {
         verify(gameRepository, atLeastOnce()).flush();
         verify(messagingTemplate, atLeastOnce()).convertAndSend(matches("/topic/start/3/hints"), any(GameGetDTO.class));
         verify(messagingTemplate, atLeastOnce()).convertAndSend(matches("/topic/start/3/ready-time"), eq(5));
+        // the players are read once and handed to the scoreboard
+        verify(userRepository, times(1)).findAllById(any());
+        verify(scoreBoardService).playerJoined(gameId, owner);
+        verify(scoreBoardService).playerJoined(gameId, player2);
+        assertEquals(0, testGameCombat.getCorrectAnswers(player2.getUserId()));
     }
 
     @Test
-    public void startCombatGame_threadInterrupted_sendsTimerInterruptedMessage() {
+    public void startCombatGame_unknownPlayer_throwsBadRequest() {
+        Long gameId = 3L;
+        doReturn(true).when(gameService).checkAllReady(gameId);
+        when(gameRepository.findBygameId(gameId)).thenReturn(testGameCombat);
+        when(userRepository.findByUserId(2L)).thenReturn(null);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> gameService.startGame(gameId));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertFalse(testGameCombat.getGameRunning());
+    }
+
+    @Test
+    public void startCombatGame_stageFails_sendsTimerInterruptedMessage() {
         // Arrange
         Long gameId = 1L;
 
         when(gameRepository.findBygameId(gameId)).thenReturn(testGameCombat);
         doReturn(true).when(gameService).checkAllReady(gameId);
         when(gameRepository.save(any(Game.class))).thenReturn(testGameCombat);
+        doThrow(new IllegalStateException("Hint queue empty")).when(utilService).getFirstHint(gameId);
 
-        Thread combatGameThread = new Thread(() -> gameService.startGame(gameId));
-        combatGameThread.start();
-
-        try {
-            Thread.sleep(100); // allow thread to start
-            combatGameThread.interrupt(); // simulate interruption
-            combatGameThread.join(); // wait for thread to complete
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt status
-        }
+        // Act
+        gameService.startGame(gameId);
 
+        // Assert
         verify(messagingTemplate, atLeastOnce()).convertAndSend(
             eq("/topic/game/" + gameId + "/timer-interrupted"),
             eq("TIMER_STOPPED")
         );
+        assertTrue(testGameCombat.getReadyMap().get(owner.getUserId()), "Ready status is only reset after the hints went out.");
+    }
+
+    @Test
+    public void startCombatGame_schedulesHintsAfterReadyCountdown() {
+        // Arrange
+        Long gameId = 3L;
+        doReturn(true).when(gameService).checkAllReady(gameId);
+        when(gameRepository.findBygameId(gameId)).thenReturn(testGameCombat);
+        reset(gameClock);
+
+        // Act
+        gameService.startGame(gameId);
+
+        // Assert
+        verify(gameClock).schedule(any(Runnable.class), eq(6000L), eq(TimeUnit.MILLISECONDS));
+        verify(messagingTemplate).convertAndSend(matches("/topic/start/3/ready-time"), eq(5));
+        verify(messagingTemplate, never()).convertAndSend(matches("/topic/start/3/hints"), any(GameGetDTO.class));
     }
 }
\ No newline at end of file
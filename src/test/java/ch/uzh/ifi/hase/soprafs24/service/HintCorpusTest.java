@@ -0,0 +1,94 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HintCorpusTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Map<String, Object>> clues = List.of(
+        Map.of("text", "This country in Europe is known for its lakes.", "difficulty", 5),
+        Map.of("text", "It is famous for chocolate.", "difficulty", 1));
+
+    private HintCorpus corpus(Path file, int minVariants, int maxAgeDays) {
+        HintCorpus corpus = new HintCorpus(file.toString(), minVariants, maxAgeDays);
+        corpus.load();
+        return corpus;
+    }
+
+    @Test
+    public void store_isReloadedOnStartup() {
+        Path file = tempDir.resolve("corpus/hints.jsonl");
+        HintCorpus corpus = corpus(file, 1, 30);
+        corpus.store(Country.Switzerland, "easy", clues);
+        corpus.close();
+
+        HintCorpus reloaded = corpus(file, 1, 30);
+
+        assertEquals(1, reloaded.size(Country.Switzerland));
+        assertEquals(clues, reloaded.pick(Country.Switzerland).get(Country.Switzerland));
+        assertNull(reloaded.pick(Country.France));
+    }
+
+    @Test
+    public void needsNewClues_belowVarietyThreshold() {
+        HintCorpus corpus = corpus(tempDir.resolve("hints.jsonl"), 2, 30);
+        assertTrue(corpus.needsNewClues(Country.Switzerland));
+
+        corpus.store(Country.Switzerland, "easy", clues);
+        assertTrue(corpus.needsNewClues(Country.Switzerland));
+
+        corpus.store(Country.Switzerland, "hard", clues);
+        assertFalse(corpus.needsNewClues(Country.Switzerland));
+    }
+
+    @Test
+    public void needsNewClues_newestSetTooOld() throws IOException {
+        Path file = tempDir.resolve("hints.jsonl");
+        Files.writeString(file, "{\"country\":\"Japan\",\"difficulty\":\"easy\",\"createdAt\":0,"
+            + "\"clues\":[{\"text\":\"An island nation.\",\"difficulty\":1}]}\n", StandardCharsets.UTF_8);
+
+        HintCorpus corpus = corpus(file, 1, 30);
+
+        assertEquals(1, corpus.size(Country.Japan));
+        assertTrue(corpus.needsNewClues(Country.Japan));
+        assertNotNull(corpus.pick(Country.Japan));
+    }
+
+    @Test
+    public void load_skipsBrokenLines() throws IOException {
+        Path file = tempDir.resolve("hints.jsonl");
+        HintCorpus corpus = corpus(file, 1, 30);
+        corpus.store(Country.Chile, "easy", clues);
+        corpus.close();
+        Files.writeString(file, "{\"country\":\"Chi", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        HintCorpus reloaded = corpus(file, 1, 30);
+
+        assertEquals(1, reloaded.size(Country.Chile));
+    }
+
+    @Test
+    public void store_emptyClues_ignored() {
+        HintCorpus corpus = corpus(tempDir.resolve("hints.jsonl"), 1, 30);
+
+        corpus.store(Country.Chile, "easy", List.of());
+
+        assertEquals(0, corpus.size(Country.Chile));
+        assertFalse(Files.exists(tempDir.resolve("hints.jsonl")));
+    }
+}
@@ -0,0 +1,183 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HintPipelineTest {
+
+    private final List<List<Country>> providerCalls = new ArrayList<>();
+    private final List<Runnable> answers = new ArrayList<>();
+    private final List<Map<Country, List<Map<String, Object>>>> delivered = new ArrayList<>();
+
+    private HintProvider provider;
+
+    private HintPipeline hintPipeline;
+
+    @BeforeEach
+    public void setup() {
+        // calls only return a future, the test decides when their answers arrive
+        provider = new StubHintProvider() {
+            @Override
+            public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+                providerCalls.add(countries);
+                CompletableFuture<Map<Country, List<Map<String, Object>>>> answer = new CompletableFuture<>();
+                answers.add(() -> answer.complete(generateAll(countries, clueNumber, difficulty)));
+                return answer;
+            }
+        };
+        hintPipeline = new HintPipeline(provider, 2, 3);
+    }
+
+    private Supplier<Country> countries(Country... countries) {
+        Iterator<Country> it = List.of(countries).iterator();
+        return it::next;
+    }
+
+    private void answerAll() {
+        while (!answers.isEmpty()) {
+            answers.remove(0).run();
+        }
+    }
+
+    @Test
+    public void request_batchesSeveralCountriesIntoOneCall() {
+        hintPipeline.request(1L, "easy", 5, 3, countries(Country.Chile, Country.Japan, Country.Kenya), delivered::add);
+        answerAll();
+
+        assertEquals(List.of(List.of(Country.Chile, Country.Japan, Country.Kenya)), providerCalls);
+        assertEquals(3, delivered.size());
+        assertEquals(0, hintPipeline.pending(1L));
+    }
+
+    @Test
+    public void request_repeatedWhilePending_onlyAddsMissing() {
+        assertEquals(2, hintPipeline.request(1L, "easy", 5, 2, countries(Country.Chile, Country.Japan), delivered::add));
+        assertEquals(1, hintPipeline.request(1L, "easy", 5, 3, countries(Country.Kenya), delivered::add));
+        assertEquals(0, hintPipeline.request(1L, "easy", 5, 3, countries(), delivered::add));
+        answerAll();
+
+        assertEquals(3, delivered.size());
+    }
+
+    @Test
+    public void request_inFlightLimit_restWaitsAndIsCoalesced() {
+        hintPipeline.request(1L, "easy", 5, 1, countries(Country.Chile), delivered::add);
+        hintPipeline.request(2L, "easy", 5, 1, countries(Country.Japan), delivered::add);
+        hintPipeline.request(3L, "easy", 5, 1, countries(Country.Kenya), delivered::add);
+        hintPipeline.request(4L, "easy", 5, 1, countries(Country.Peru), delivered::add);
+
+        // two calls are out, the other games wait for a free slot
+        assertEquals(2, providerCalls.size());
+        answerAll();
+
+        assertEquals(3, providerCalls.size());
+        assertEquals(List.of(Country.Kenya, Country.Peru), providerCalls.get(2));
+        assertEquals(4, delivered.size());
+    }
+
+    @Test
+    public void request_differentDifficulties_notMixed() {
+        hintPipeline.request(1L, "easy", 5, 1, countries(Country.Chile), delivered::add);
+        hintPipeline.request(2L, "easy", 5, 1, countries(Country.Japan), delivered::add);
+        hintPipeline.request(3L, "hard", 5, 1, countries(Country.Kenya), delivered::add);
+        hintPipeline.request(4L, "easy", 5, 1, countries(Country.Peru), delivered::add);
+        answerAll();
+
+        assertEquals(List.of(Country.Kenya), providerCalls.get(2));
+        assertEquals(List.of(Country.Peru), providerCalls.get(3));
+    }
+
+    @Test
+    public void request_failedCall_freesSlotAndPending() {
+        HintProvider failing = new StubHintProvider() {
+            @Override
+            public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+                return CompletableFuture.failedFuture(new IllegalStateException("LLM down"));
+            }
+        };
+        hintPipeline = new HintPipeline(failing, 1, 3);
+
+        hintPipeline.request(1L, "easy", 5, 2, countries(Country.Chile, Country.Japan), delivered::add);
+        hintPipeline.request(2L, "easy", 5, 1, countries(Country.Kenya), delivered::add);
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(0, hintPipeline.pending(1L));
+        assertEquals(0, hintPipeline.pending(2L));
+    }
+
+    @Test
+    public void request_providerCannotAnswer_hintDroppedAndPendingFreed() {
+        HintProvider empty = new StubHintProvider() {
+            @Override
+            public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+                return CompletableFuture.completedFuture(Map.of());
+            }
+        };
+        hintPipeline = new HintPipeline(empty, 1, 3);
+
+        hintPipeline.request(1L, "easy", 5, 2, countries(Country.Chile, Country.Japan), delivered::add);
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(0, hintPipeline.pending(1L));
+        // the next refill asks for them again
+        assertEquals(2, hintPipeline.request(1L, "easy", 5, 2, countries(Country.Chile, Country.Japan), delivered::add));
+    }
+
+    @Test
+    public void request_providerAnswersRightAway_batchesRunWithoutNesting() {
+        List<Integer> stackDepths = new ArrayList<>();
+        HintProvider immediate = new StubHintProvider() {
+            @Override
+            public CompletableFuture<Map<Country, List<Map<String, Object>>>> generateAllAsync(List<Country> countries, int clueNumber, String difficulty) {
+                stackDepths.add(Thread.currentThread().getStackTrace().length);
+                return CompletableFuture.completedFuture(generateAll(countries, clueNumber, difficulty));
+            }
+        };
+        hintPipeline = new HintPipeline(immediate, 1, 1);
+
+        hintPipeline.request(1L, "easy", 5, 4, countries(Country.Chile, Country.Japan, Country.Kenya, Country.Peru), delivered::add);
+
+        assertEquals(4, delivered.size());
+        // every batch is started from the same frame of the dispatch loop
+        assertEquals(1, stackDepths.stream().distinct().count());
+        assertEquals(0, hintPipeline.pending(1L));
+    }
+
+    @Test
+    public void request_sinkThrows_pendingFreedAndQueueKeepsMoving() {
+        hintPipeline = new HintPipeline(provider, 1, 1);
+
+        hintPipeline.request(1L, "easy", 5, 1, countries(Country.Chile), hint -> { throw new IllegalStateException("game gone"); });
+        hintPipeline.request(2L, "easy", 5, 1, countries(Country.Japan), delivered::add);
+        assertEquals(1, providerCalls.size());
+        answerAll();
+
+        assertEquals(0, hintPipeline.pending(1L));
+        assertEquals(2, providerCalls.size());
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    public void cancel_dropsQueuedHints() {
+        hintPipeline.request(1L, "easy", 5, 1, countries(Country.Chile), delivered::add);
+        hintPipeline.request(2L, "easy", 5, 1, countries(Country.Japan), delivered::add);
+        hintPipeline.request(3L, "easy", 5, 1, countries(Country.Kenya), delivered::add);
+
+        hintPipeline.cancel(3L);
+        answerAll();
+
+        assertEquals(0, hintPipeline.pending(3L));
+        assertEquals(2, providerCalls.size());
+    }
+}
@@ -0,0 +1,130 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.HistoryBucket;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHistoryRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.HistoryBucketRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class HistoryCompactionServiceTest {
+
+    @Mock
+    private GameHistoryRepository gameHistoryRepository;
+
+    @Mock
+    private HistoryBucketRepository historyBucketRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private HistoryCompactionService compactionService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        compactionService = new HistoryCompactionService(gameHistoryRepository, historyBucketRepository, 2);
+        ReflectionTestUtils.setField(compactionService, "transactionTemplate", transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    private static GameHistory row(Long historyId, int month, int score) {
+        GameHistory history = new GameHistory();
+        history.setHistoryId(historyId);
+        history.setUserId(1L);
+        history.setModeType("solo");
+        history.setDifficulty("easy");
+        history.setScore(score);
+        history.setCorrectAnswers(2);
+        history.setTotalQuestions(3);
+        history.setGameCreationDate(LocalDateTime.of(2025, month, 10, 12, 0));
+        return history;
+    }
+
+    @Test
+    public void compactUser_olderGames_foldedIntoMonthlyBuckets() {
+        List<GameHistory> old = List.of(row(3L, 3, 10), row(2L, 3, 20), row(1L, 2, 30));
+        when(gameHistoryRepository.findHistoryPage(eq(1L), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 2))))
+            .thenReturn(List.of(row(5L, 4, 0), row(4L, 4, 0)));
+        when(gameHistoryRepository.findHistoryPage(1L, null, null, 4L, PageRequest.of(0, HistoryCompactionService.CHUNK_SIZE)))
+            .thenReturn(old);
+        HistoryBucket february = new HistoryBucket();
+        february.setUserId(1L);
+        february.setMonthStart(LocalDate.of(2025, 2, 1));
+        february.setModeType("solo");
+        february.setDifficulty("easy");
+        february.setGames(1);
+        february.setTotalScore(5);
+        when(historyBucketRepository.findByUserId(1L)).thenReturn(List.of(february));
+
+        compactionService.compactUser(1L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<HistoryBucket>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(historyBucketRepository).saveAll(captor.capture());
+        List<HistoryBucket> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        assertEquals(2, saved.size());
+        HistoryBucket march = saved.get(0);
+        assertEquals(LocalDate.of(2025, 3, 1), march.getMonthStart());
+        assertEquals(2, march.getGames());
+        assertEquals(30, march.getTotalScore());
+        assertEquals(4, march.getCorrectAnswers());
+        assertEquals(6, march.getTotalQuestions());
+        assertSame(february, saved.get(1));
+        assertEquals(2, february.getGames());
+        assertEquals(35, february.getTotalScore());
+        verify(gameHistoryRepository).deleteInBatch(old);
+        // a short chunk was the last one
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    public void compactUser_notMoreThanKeep_changesNothing() {
+        when(gameHistoryRepository.findHistoryPage(eq(1L), isNull(), isNull(), isNull(), any()))
+            .thenReturn(List.of(row(5L, 4, 0)));
+
+        compactionService.compactUser(1L);
+
+        verify(historyBucketRepository, never()).saveAll(anyIterable());
+        verify(gameHistoryRepository, never()).deleteInBatch(anyIterable());
+    }
+
+    @Test
+    public void compactAll_pagesThroughUsers_failedUserDoesNotStopOthers() {
+        when(gameHistoryRepository.findUsersToCompact(0L, 2, PageRequest.of(0, HistoryCompactionService.USERS_PER_PAGE)))
+            .thenReturn(List.of(1L, 7L));
+        when(gameHistoryRepository.findUsersToCompact(7L, 2, PageRequest.of(0, HistoryCompactionService.USERS_PER_PAGE)))
+            .thenReturn(List.of());
+        when(gameHistoryRepository.findHistoryPage(eq(1L), isNull(), isNull(), isNull(), any()))
+            .thenThrow(new IllegalStateException("broken"));
+        when(gameHistoryRepository.findHistoryPage(eq(7L), isNull(), isNull(), isNull(), any()))
+            .thenReturn(List.of());
+
+        compactionService.compactAll(Runnable::run);
+
+        verify(gameHistoryRepository).findHistoryPage(eq(7L), isNull(), isNull(), isNull(), any());
+        verify(gameHistoryRepository).findUsersToCompact(7L, 2, PageRequest.of(0, HistoryCompactionService.USERS_PER_PAGE));
+    }
+}
@@ -0,0 +1,131 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.HistoryBucket;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHistoryRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.HistoryBucketRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryBucketDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class HistoryServiceTest {
+
+    @Mock
+    private GameHistoryRepository gameHistoryRepository;
+
+    @Mock
+    private HistoryBucketRepository historyBucketRepository;
+
+    private HistoryService historyService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        historyService = new HistoryService(gameHistoryRepository, historyBucketRepository);
+        when(gameHistoryRepository.save(any(GameHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static GameHistory row(Long historyId) {
+        GameHistory history = new GameHistory();
+        history.setHistoryId(historyId);
+        history.setGameName("Game " + historyId);
+        return history;
+    }
+
+    @Test
+    public void record_writesOneRowForTheUser() {
+        Game game = new Game();
+        game.setGameName("Quiz");
+        game.setModeType("combat");
+        game.setDifficulty("hard");
+        game.setTime(5);
+        game.setGameCreationDate(LocalDateTime.of(2025, 5, 1, 12, 0));
+        game.setScoreBoard(Map.of(1L, 120, 2L, 40));
+        game.setCorrectAnswersMap(Map.of(1L, 3, 2L, 1));
+        game.setTotalQuestionsMap(Map.of(1L, 4, 2L, 4));
+
+        historyService.record(2L, game);
+
+        ArgumentCaptor<GameHistory> captor = ArgumentCaptor.forClass(GameHistory.class);
+        verify(gameHistoryRepository, times(1)).save(captor.capture());
+        GameHistory saved = captor.getValue();
+        assertEquals(2L, saved.getUserId());
+        assertEquals("Quiz", saved.getGameName());
+        assertEquals(40, saved.getScore());
+        assertEquals(1, saved.getCorrectAnswers());
+        assertEquals(4, saved.getTotalQuestions());
+        assertEquals("hard", saved.getDifficulty());
+    }
+
+    @Test
+    public void page_moreRowsThanSize_returnsCursorOfLastRow() {
+        List<GameHistory> rows = List.of(row(9L), row(7L), row(3L));
+        when(gameHistoryRepository.findHistoryPage(1L, "solo", "easy", 10L, PageRequest.of(0, 3))).thenReturn(rows);
+
+        HistoryPageDTO page = historyService.page(1L, "solo", "easy", 10L, 2);
+
+        assertEquals(2, page.getGameHistory().size());
+        assertEquals("Game 9", page.getGameHistory().get(0).getGameName());
+        assertEquals(7L, page.getNextCursor());
+    }
+
+    @Test
+    public void page_lastPage_noCursorAndDefaultSize() {
+        List<GameHistory> rows = List.of(row(4L));
+        when(gameHistoryRepository.findHistoryPage(1L, null, null, null, PageRequest.of(0, HistoryService.DEFAULT_PAGE_SIZE + 1)))
+            .thenReturn(rows);
+
+        HistoryPageDTO page = historyService.page(1L, null, null, null, null);
+
+        assertEquals(1, page.getGameHistory().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void page_sizeOutOfRange_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> historyService.page(1L, null, null, null, 0));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(gameHistoryRepository, never()).findHistoryPage(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void months_returnsBucketsOfTheUser() {
+        HistoryBucket bucket = new HistoryBucket();
+        bucket.setMonthStart(LocalDate.of(2025, 3, 1));
+        bucket.setModeType("solo");
+        bucket.setDifficulty("easy");
+        bucket.setGames(4);
+        bucket.setTotalScore(300);
+        bucket.setCorrectAnswers(9);
+        bucket.setTotalQuestions(12);
+        when(historyBucketRepository.findByUserIdOrderByMonthStartDesc(1L)).thenReturn(List.of(bucket));
+
+        List<HistoryBucketDTO> months = historyService.months(1L);
+
+        assertEquals(1, months.size());
+        assertEquals(LocalDate.of(2025, 3, 1), months.get(0).getMonthStart());
+        assertEquals(4, months.get(0).getGames());
+        assertEquals(300, months.get(0).getTotalScore());
+        assertEquals(12, months.get(0).getTotalQuestions());
+    }
+}
@@ -0,0 +1,202 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.LeaderboardRow;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardEntryDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LeaderboardServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private LeaderboardService leaderboardService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        // levels 3.5, 1.2, 3.5, 0.0 -> user 1 and 3 share the first rank
+        List<LeaderboardRow> rows = List.of(row(1L, "3.5"), row(2L, "1.2"), row(3L, "3.5"), row(4L, "0.0"));
+        when(userRepository.findLeaderboardRows()).thenReturn(rows);
+
+        leaderboardService = new LeaderboardService(userRepository);
+        leaderboardService.load();
+    }
+
+    private static LeaderboardRow row(Long userId, String level) {
+        LeaderboardRow row = mock(LeaderboardRow.class);
+        when(row.getUserId()).thenReturn(userId);
+        when(row.getUsername()).thenReturn("user" + userId);
+        when(row.getAvatar()).thenReturn("/avatar_1.png");
+        when(row.getLevel()).thenReturn(new BigDecimal(level));
+        return row;
+    }
+
+    private static User user(Long userId, String level) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername("user" + userId);
+        user.setAvatar("/avatar_1.png");
+        user.setLevel(new BigDecimal(level));
+        return user;
+    }
+
+    private static List<Long> userIds(List<LeaderboardEntryDTO> entries) {
+        List<Long> userIds = new ArrayList<>();
+        for (LeaderboardEntryDTO entry : entries) {
+            userIds.add(entry.getUserId());
+        }
+        return userIds;
+    }
+
+    @Test
+    public void top_noLimit_wholeBoardBestFirst() {
+        List<LeaderboardEntryDTO> board = leaderboardService.top(null, null);
+
+        assertEquals(List.of(1L, 3L, 2L, 4L), userIds(board));
+        assertEquals(350, board.get(0).getLevel());
+        assertEquals(1, board.get(0).getRank());
+        assertEquals(1, board.get(1).getRank());
+        assertEquals(3, board.get(2).getRank());
+        verify(userRepository, times(1)).findLeaderboardRows();
+    }
+
+    @Test
+    public void top_page_startsInsideATie() {
+        List<LeaderboardEntryDTO> page = leaderboardService.top(1, 2);
+
+        assertEquals(List.of(3L, 2L), userIds(page));
+        assertEquals(1, page.get(0).getRank());
+        assertEquals(3, page.get(1).getRank());
+        assertTrue(leaderboardService.top(10, 5).isEmpty());
+    }
+
+    @Test
+    public void top_limitOutOfRange_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> leaderboardService.top(0, LeaderboardService.MAX_PAGE_SIZE + 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    public void update_levelChanged_movesUser() {
+        leaderboardService.update(user(4L, "5.1"));
+        leaderboardService.update(user(5L, "0.0"));
+
+        assertEquals(List.of(4L, 1L, 3L, 2L, 5L), userIds(leaderboardService.top(null, null)));
+        assertEquals(2, leaderboardService.rankOf(3L).getRank());
+        assertEquals(5, leaderboardService.size());
+    }
+
+    @Test
+    public void update_sameLevel_onlyRenames() {
+        User renamed = user(2L, "1.2");
+        renamed.setUsername("renamed");
+
+        leaderboardService.update(renamed);
+
+        LeaderboardEntryDTO entry = leaderboardService.rankOf(2L);
+        assertEquals("renamed", entry.getUsername());
+        assertEquals(3, entry.getRank());
+        assertEquals(4, leaderboardService.size());
+    }
+
+    @Test
+    public void update_inTransaction_appliedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboardService.update(user(4L, "5.1"));
+            assertEquals(4, leaderboardService.rankOf(4L).getRank());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, leaderboardService.rankOf(4L).getRank());
+    }
+
+    @Test
+    public void update_transactionRolledBack_boardUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboardService.update(user(4L, "5.1"));
+            leaderboardService.update(user(6L, "2.0"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(4, leaderboardService.rankOf(4L).getRank());
+        assertEquals(4, leaderboardService.size());
+    }
+
+    @Test
+    public void around_firstUser_cutAtTheTop() {
+        List<LeaderboardEntryDTO> around = leaderboardService.around(1L, 1);
+
+        assertEquals(List.of(1L, 3L), userIds(around));
+        assertEquals(List.of(3L, 2L, 4L), userIds(leaderboardService.around(2L, 1)));
+    }
+
+    @Test
+    public void rankOf_unknownUser_throwsNotFound() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> leaderboardService.rankOf(99L));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    public void update_manyChanges_matchesSortedBoard() {
+        Random random = new Random(42);
+        Map<Long, Integer> levels = new HashMap<>(Map.of(1L, 350, 2L, 120, 3L, 350, 4L, 0));
+        for (int i = 0; i < 2000; i++) {
+            long userId = 1 + random.nextInt(200);
+            int level = random.nextInt(50) * 10;
+            levels.put(userId, level);
+            leaderboardService.update(user(userId, BigDecimal.valueOf(level, 2).toPlainString()));
+        }
+
+        List<Long> expected = new ArrayList<>(levels.keySet());
+        expected.sort(Comparator.comparing((Long userId) -> -levels.get(userId)).thenComparing(userId -> userId));
+        List<LeaderboardEntryDTO> board = leaderboardService.top(null, null);
+        assertEquals(expected, userIds(board));
+
+        for (int position = 0; position < expected.size(); position += 17) {
+            long userId = expected.get(position);
+            int above = 0;
+            for (int level : levels.values()) {
+                if (level > levels.get(userId)) { above++; }
+            }
+            assertEquals(above + 1, leaderboardService.rankOf(userId).getRank());
+            assertEquals(board.get(position).getRank(), leaderboardService.rankOf(userId).getRank());
+        }
+    }
+}
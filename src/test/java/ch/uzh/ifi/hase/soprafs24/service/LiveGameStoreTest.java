@@ -0,0 +1,307 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.service.LiveGameStore.LiveGame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LiveGameStoreTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private LiveGameStore liveGameStore;
+
+    private Game testGame;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        liveGameStore = new LiveGameStore(gameRepository);
+        ReflectionTestUtils.setField(liveGameStore, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(liveGameStore, "gameMailbox", new GameMailbox(Runnable::run));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        testGame = new Game();
+        testGame.setGameId(1L);
+        testGame.setModeType("combat");
+        testGame.setDifficulty("easy");
+        testGame.setGameRunning(true);
+        testGame.setPlayers(new ArrayList<>(List.of(1L, 2L)));
+        testGame.setScoreBoard(new HashMap<>(Map.of(1L, 40, 2L, 0)));
+        testGame.setCorrectAnswersMap(new HashMap<>(Map.of(1L, 1, 2L, 0)));
+        testGame.setTotalQuestionsMap(new HashMap<>(Map.of(1L, 2, 2L, 0)));
+        when(gameRepository.findBygameId(1L)).thenReturn(testGame);
+    }
+
+    @Test
+    public void open_takesOverStoredScores() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        assertEquals(40, liveGame.getScore(1L));
+        assertEquals(1, liveGame.getCorrectAnswers(1L));
+        assertEquals(2, liveGame.getTotalQuestions(1L));
+        assertEquals(Map.of(1L, 40, 2L, 0), liveGame.getScoreBoard());
+    }
+
+    @Test
+    public void recordAnswer_onlyCorrectAnswersScore() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        liveGame.recordAnswer(2L, true, 80);
+        liveGame.recordAnswer(2L, false, 0);
+
+        assertEquals(80, liveGame.getScore(2L));
+        assertEquals(1, liveGame.getCorrectAnswers(2L));
+        assertEquals(2, liveGame.getTotalQuestions(2L));
+        assertEquals(0, testGame.getScore(2L));
+    }
+
+    @Test
+    public void recordAnswer_correctCountryCountedPerCountryAndContinent() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        liveGame.recordAnswer(2L, Country.Switzerland, true, 100);
+        liveGame.recordAnswer(2L, Country.Japan, true, 80);
+        liveGame.recordAnswer(2L, Country.Brazil, false, 0);
+        // players added later grow the counters with the other arrays
+        liveGame.recordAnswer(5L, Country.Chile, true, 100);
+
+        assertEquals(1, liveGame.getCountryCorrect(2L)[Country.Japan.ordinal()]);
+        assertEquals(0, liveGame.getCountryCorrect(2L)[Country.Brazil.ordinal()]);
+        assertEquals(1, liveGame.getCountryCorrect(5L)[Country.Chile.ordinal()]);
+        int[] continentCorrect = liveGame.getContinentCorrect(2L);
+        assertEquals(1, continentCorrect[Continent.Europe.ordinal()]);
+        assertEquals(1, continentCorrect[Continent.Asia.ordinal()]);
+        assertEquals(0, continentCorrect[Continent.Americas.ordinal()]);
+        assertEquals(1, liveGame.getContinentCorrect(5L)[Continent.Americas.ordinal()]);
+        assertEquals(0, liveGame.getContinentCorrect(9L)[Continent.Europe.ordinal()]);
+    }
+
+    @Test
+    public void recordAnswer_unknownPlayer_getsOwnSlot() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        liveGame.recordAnswer(3L, true, 100);
+
+        assertEquals(100, liveGame.getScore(3L));
+        assertEquals(40, liveGame.getScore(1L));
+    }
+
+    @Test
+    public void setScore_newPlayersGrowSlots_scoreKept() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        liveGame.setScore(3L, 70);
+        liveGame.setScore(4L, 90);
+
+        assertEquals(70, liveGame.getScore(3L));
+        assertEquals(90, liveGame.getScore(4L));
+        assertEquals(40, liveGame.getScore(1L));
+    }
+
+    @Test
+    public void setAnswer_keptPerPlayer() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        liveGame.setAnswer(1L, Country.Switzerland);
+        liveGame.setAnswer(2L, Country.Japan);
+        liveGame.setAnswer(1L, Country.Brazil);
+
+        assertEquals(Country.Brazil, liveGame.getAnswer(1L));
+        assertEquals(Country.Japan, liveGame.getAnswer(2L));
+    }
+
+    @Test
+    public void getAnswer_noneHandedOut_returnsNull() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+
+        assertNull(liveGame.getAnswer(1L));
+        assertNull(liveGame.getAnswer(9L));
+    }
+
+    @Test
+    public void setAnswer_newPlayersGrowSheet_earlierAnswersKept() {
+        LiveGame liveGame = liveGameStore.open(testGame);
+        liveGame.setAnswer(1L, Country.Switzerland);
+
+        for (long userId = 3; userId < 20; userId++) {
+            liveGame.setAnswer(userId, Country.France);
+        }
+        liveGame.recordAnswer(20L, true, 100);
+
+        assertEquals(Country.Switzerland, liveGame.getAnswer(1L));
+        assertNull(liveGame.getAnswer(2L));
+        assertEquals(Country.France, liveGame.getAnswer(19L));
+        assertNull(liveGame.getAnswer(20L));
+    }
+
+    @Test
+    public void close_dropsAnswerSheet() {
+        liveGameStore.open(testGame).setAnswer(1L, Country.Switzerland);
+
+        liveGameStore.close(1L);
+
+        assertNull(liveGameStore.get(1L));
+        assertNull(liveGameStore.open(testGame).getAnswer(1L));
+    }
+
+    @Test
+    public void flushAll_savesDirtyGames() {
+        Game idleGame = new Game();
+        idleGame.setGameId(2L);
+        idleGame.setModeType("solo");
+        idleGame.setPlayers(new ArrayList<>(List.of(5L)));
+        liveGameStore.open(idleGame);
+        liveGameStore.open(testGame).recordAnswer(2L, true, 100);
+
+        liveGameStore.flushAll();
+
+        verify(gameRepository, times(1)).save(testGame);
+        verify(gameRepository, times(1)).save(any());
+        assertEquals(100, testGame.getScore(2L));
+        assertEquals(1, testGame.getTotalQuestions(2L));
+        verify(gameRepository, never()).findBygameId(2L);
+    }
+
+    @Test
+    public void flushAll_nothingChanged_doesNotTouchDatabase() {
+        liveGameStore.open(testGame);
+
+        liveGameStore.flushAll();
+
+        verifyNoInteractions(transactionTemplate);
+        verify(gameRepository, never()).save(any());
+    }
+
+    @Test
+    public void flushAll_failure_keepsChangesForNextFlush() {
+        liveGameStore.open(testGame).recordAnswer(1L, true, 60);
+        when(gameRepository.save(any())).thenThrow(new IllegalStateException("db down"));
+
+        liveGameStore.flushAll();
+        reset(gameRepository);
+        when(gameRepository.findBygameId(1L)).thenReturn(testGame);
+        liveGameStore.flushAll();
+
+        verify(gameRepository, times(1)).save(testGame);
+        assertEquals(100, testGame.getScore(1L));
+    }
+
+    @Test
+    public void flushAll_deletedGame_isDropped() {
+        liveGameStore.open(testGame).recordAnswer(1L, true, 60);
+        when(gameRepository.findBygameId(1L)).thenReturn(null);
+
+        liveGameStore.flushAll();
+
+        assertNull(liveGameStore.get(1L));
+    }
+
+    @Test
+    public void flushAll_gameMessageRunning_flushWaitsForIt() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        GameMailbox gameMailbox = new GameMailbox(pool);
+        ReflectionTestUtils.setField(liveGameStore, "gameMailbox", gameMailbox);
+        CountDownLatch messageStarted = new CountDownLatch(1);
+        CountDownLatch releaseMessage = new CountDownLatch(1);
+        try {
+            liveGameStore.open(testGame).recordAnswer(1L, true, 60);
+            // a message of the same game, e.g. finishing the round, holds the mailbox
+            gameMailbox.submit(1L, () -> {
+                messageStarted.countDown();
+                return await(releaseMessage);
+            });
+            assertTrue(messageStarted.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Void> flushed = CompletableFuture.runAsync(liveGameStore::flushAll);
+            Thread.sleep(100);
+            verify(gameRepository, never()).findBygameId(1L);
+            assertFalse(flushed.isDone());
+
+            releaseMessage.countDown();
+            flushed.get(5, TimeUnit.SECONDS);
+            verify(gameRepository, times(1)).save(testGame);
+        }
+        finally {
+            releaseMessage.countDown();
+            gameMailbox.shutdown();
+        }
+    }
+
+    @Test
+    public void flushAll_readyResetByGameMessage_notWrittenBack() {
+        // the live game was opened while both players were ready
+        Game openedGame = new Game();
+        openedGame.setGameId(1L);
+        openedGame.setGameRunning(true);
+        openedGame.setPlayers(new ArrayList<>(List.of(1L, 2L)));
+        openedGame.setReadyStatus(1L);
+        openedGame.setReadyStatus(2L);
+        liveGameStore.open(openedGame).recordAnswer(2L, true, 100);
+        // a later message of the game reset the ready flags in the stored row
+        testGame.setNotReadyStatus(1L);
+        testGame.setNotReadyStatus(2L);
+
+        liveGameStore.flushAll();
+
+        verify(gameRepository, times(1)).save(testGame);
+        verify(gameRepository, never()).save(openedGame);
+        assertEquals(100, testGame.getScore(2L));
+        assertFalse(testGame.getReadyStatus(1L));
+        assertFalse(testGame.getReadyStatus(2L));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Test
+    public void applyTo_writesLiveScoresIntoEntity() {
+        liveGameStore.open(testGame).recordAnswer(2L, true, 100);
+
+        liveGameStore.applyTo(testGame);
+
+        assertEquals(100, testGame.getScore(2L));
+        assertEquals(1, testGame.getCorrectAnswers(2L));
+        assertEquals(1, testGame.getTotalQuestions(2L));
+    }
+}
@@ -0,0 +1,138 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Country;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LlmHintProviderTest {
+
+    private final HintCorpus hintCorpus = mock(HintCorpus.class);
+
+    private final HttpClient httpClient = mock(HttpClient.class);
+
+    private final LlmHintProvider provider = new LlmHintProvider(hintCorpus, "test-key", Duration.ofSeconds(1), 3, httpClient);
+
+    private static final String JAPAN_BODY = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+        + "\"### Japan\\n1. Clue: An island nation in Asia. - Difficulty: 1\"}]}}]}";
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<String> response(int status, String body) {
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body);
+        return response;
+    }
+
+    @Test
+    public void generateAllAsync_retriesTimeoutAndServerError() throws Exception {
+        HttpResponse<String> unavailable = response(503, "busy");
+        HttpResponse<String> ok = response(200, JAPAN_BODY);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("timed out")))
+            .thenReturn(CompletableFuture.completedFuture(unavailable))
+            .thenReturn(CompletableFuture.completedFuture(ok));
+
+        Map<Country, List<Map<String, Object>>> clues = provider.generateAllAsync(List.of(Country.Japan), 1, "easy").join();
+
+        assertEquals("An island nation in Asia.", clues.get(Country.Japan).get(0).get("text"));
+        verify(httpClient, times(3)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(hintCorpus).store(eq(Country.Japan), eq("easy"), any());
+        verify(httpClient, never()).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void generateAllAsync_sendsConfiguredKey() {
+        HttpResponse<String> ok = response(200, JAPAN_BODY);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(ok));
+
+        provider.generateAllAsync(List.of(Country.Japan), 1, "easy").join();
+
+        verify(httpClient).sendAsync(argThat(request -> request.uri().getQuery().equals("key=test-key")), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void generateAllAsync_clientError_notRetried() {
+        HttpResponse<String> badRequest = response(400, "bad request");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(badRequest));
+
+        CompletableFuture<Map<Country, List<Map<String, Object>>>> clues = provider.generateAllAsync(List.of(Country.Japan), 1, "easy");
+
+        assertThrows(CompletionException.class, clues::join);
+        verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void backoffMillis_staysWithinExponentialBound() {
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            for (int i = 0; i < 100; i++) {
+                long backoff = LlmHintProvider.backoffMillis(attempt);
+                assertTrue(backoff >= 0 && backoff <= LlmHintProvider.BASE_BACKOFF_MILLIS << (attempt - 1));
+            }
+        }
+    }
+
+    @Test
+    public void extractClues_parsesNumberedClueLines() throws Exception {
+        String body = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+            + "\"1. Clue: This country in Europe has many lakes. - Difficulty: 1\\n"
+            + "Some chatter\\n"
+            + "2. Clue: It is famous for chocolate. - Difficulty: 2\"}]}}]}";
+
+        Map<Country, List<Map<String, Object>>> clues = provider.extractClues(body, List.of(Country.Switzerland));
+
+        List<Map<String, Object>> clueList = clues.get(Country.Switzerland);
+        assertEquals(2, clueList.size());
+        assertEquals("This country in Europe has many lakes.", clueList.get(0).get("text"));
+        assertEquals(2, clueList.get(1).get("difficulty"));
+    }
+
+    @Test
+    public void extractClues_severalCountries_splitsAtHeaders() throws Exception {
+        String body = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+            + "\"### Japan\\n"
+            + "1. Clue: An island nation in Asia. - Difficulty: 1\\n"
+            + "2. Clue: Home of sushi. - Difficulty: 2\\n"
+            + "### **Antigua and Barbuda**\\n"
+            + "1. Clue: Two islands in the Caribbean. - Difficulty: 1\"}]}}]}";
+
+        Map<Country, List<Map<String, Object>>> clues = provider.extractClues(body, List.of(Country.Japan, Country.AntiguaAndBarbuda));
+
+        assertEquals(2, clues.get(Country.Japan).size());
+        assertEquals(1, clues.get(Country.AntiguaAndBarbuda).size());
+        assertEquals("Two islands in the Caribbean.", clues.get(Country.AntiguaAndBarbuda).get(0).get("text"));
+    }
+
+    @Test
+    public void buildPrompt_hasOneSectionPerCountry() {
+        String prompt = provider.buildPrompt(List.of(Country.Japan, Country.Chile), 3);
+
+        assertTrue(prompt.contains("### Japan"));
+        assertTrue(prompt.contains("### Chile"));
+        assertTrue(prompt.contains("Japan, Chile"));
+    }
+
+    @Test
+    public void extractClues_noParts_throws() {
+        String body = "{\"candidates\":[{\"content\":{\"parts\":[]}}]}";
+
+        assertThrows(RuntimeException.class, () -> provider.extractClues(body, List.of(Country.Switzerland)));
+    }
+}
@@ -0,0 +1,185 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.LobbyRoom;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyUpdateDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LobbyServiceTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private GameClock gameClock;
+
+    private LobbyService lobbyService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        lobbyService = new LobbyService(gameRepository);
+        ReflectionTestUtils.setField(lobbyService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(lobbyService, "gameClock", gameClock);
+        when(gameRepository.findByModeType("combat")).thenReturn(new ArrayList<>(List.of(room(1L, "Existing", 1))));
+        // the debounce window is closed by calling publish in the tests
+        when(gameClock.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(new GameClock.Timeout(0, () -> {}));
+    }
+
+    private static Game room(Long gameId, String name, int realPlayers) {
+        Game game = new Game();
+        game.setGameId(gameId);
+        game.setGameName(name);
+        game.setModeType("combat");
+        game.setPlayersNumber(4);
+        game.setRealPlayersNumber(realPlayers);
+        game.setGameRunning(false);
+        return game;
+    }
+
+    private static LobbyRoom row(Long gameId, int playersNumber, int realPlayers) {
+        LobbyRoom row = mock(LobbyRoom.class);
+        when(row.getGameId()).thenReturn(gameId);
+        when(row.getGameName()).thenReturn("Room " + gameId);
+        when(row.getPlayersNumber()).thenReturn(playersNumber);
+        when(row.getRealPlayersNumber()).thenReturn(realPlayers);
+        when(row.getLocked()).thenReturn(true);
+        return row;
+    }
+
+    private LobbyUpdateDTO published() {
+        ArgumentCaptor<LobbyUpdateDTO> captor = ArgumentCaptor.forClass(LobbyUpdateDTO.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/lobby"), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void snapshot_loadsStoredRoomsOnce() {
+        LobbyUpdateDTO first = lobbyService.snapshot();
+        lobbyService.snapshot();
+
+        assertEquals(LobbyUpdateDTO.SNAPSHOT, first.getType());
+        assertEquals(0, first.getVersion());
+        assertEquals("Existing", first.getAdded().get(0).getGameName());
+        verify(gameRepository, times(1)).findByModeType("combat");
+    }
+
+    @Test
+    public void roomChanged_changesInOneWindow_publishedAsOneDelta() {
+        Game created = room(2L, "New", 1);
+        lobbyService.roomChanged(created);
+        created.setRealPlayersNumber(2);
+        lobbyService.roomChanged(created);
+        lobbyService.roomChanged(room(1L, "Existing", 3));
+        lobbyService.roomRemoved(1L);
+
+        lobbyService.publish();
+
+        verify(gameClock, times(1)).schedule(any(Runnable.class), eq(LobbyService.DEBOUNCE_MILLIS), eq(TimeUnit.MILLISECONDS));
+        LobbyUpdateDTO delta = published();
+        assertEquals(LobbyUpdateDTO.DELTA, delta.getType());
+        assertEquals(1, delta.getVersion());
+        assertEquals(1, delta.getAdded().size());
+        assertEquals(2, delta.getAdded().get(0).getRealPlayersNumber());
+        assertTrue(delta.getUpdated().isEmpty());
+        assertEquals(List.of(1L), delta.getRemoved());
+    }
+
+    @Test
+    public void roomChanged_knownRoom_sentAsUpdate() {
+        lobbyService.roomChanged(room(1L, "Existing", 2));
+
+        lobbyService.publish();
+
+        LobbyUpdateDTO delta = published();
+        assertTrue(delta.getAdded().isEmpty());
+        assertEquals(2, delta.getUpdated().get(0).getRealPlayersNumber());
+        assertEquals(2, lobbyService.snapshot().getAdded().get(0).getRealPlayersNumber());
+        assertEquals(1, lobbyService.snapshot().getVersion());
+    }
+
+    @Test
+    public void roomChanged_otherModes_ignored() {
+        Game solo = room(3L, "Solo", 1);
+        solo.setModeType("solo");
+
+        lobbyService.roomChanged(solo);
+        lobbyService.roomRemoved(3L);
+
+        verify(gameClock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void publish_createdAndRemovedInOneWindow_sendsNothing() {
+        lobbyService.roomChanged(room(2L, "Short lived", 1));
+        lobbyService.roomRemoved(2L);
+
+        lobbyService.publish();
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertEquals(0, lobbyService.snapshot().getVersion());
+    }
+
+    @Test
+    public void page_moreRoomsThanSize_returnsCursorOfLastRoom() {
+        List<LobbyRoom> rows = List.of(row(6L, 4, 1), row(9L, 4, 3), row(12L, 2, 1));
+        when(gameRepository.findLobbyRooms(5L, "hard", 1, true, 3, PageRequest.of(0, 3))).thenReturn(rows);
+
+        LobbyPageDTO page = lobbyService.page("hard", 1, true, 3, 5L, 2);
+
+        assertEquals(2, page.getRooms().size());
+        assertEquals(6L, page.getRooms().get(0).getGameId());
+        assertEquals(3, page.getRooms().get(0).getOpenSlots());
+        assertTrue(page.getRooms().get(0).getLocked());
+        assertEquals(9L, page.getNextCursor());
+    }
+
+    @Test
+    public void page_lastPage_noCursorAndDefaultsApplied() {
+        List<LobbyRoom> rows = List.of(row(1L, 4, 1));
+        when(gameRepository.findLobbyRooms(0L, null, 0, null, null, PageRequest.of(0, LobbyService.DEFAULT_PAGE_SIZE + 1))).thenReturn(rows);
+        lobbyService.roomChanged(room(2L, "New", 1));
+        lobbyService.publish();
+
+        LobbyPageDTO page = lobbyService.page(null, null, null, null, null, null);
+
+        assertEquals(1, page.getRooms().size());
+        assertNull(page.getNextCursor());
+        assertEquals(1, page.getVersion());
+    }
+
+    @Test
+    public void page_sizeOutOfRange_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> lobbyService.page(null, null, null, null, null, LobbyService.MAX_PAGE_SIZE + 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(gameRepository, never()).findLobbyRooms(anyLong(), any(), anyInt(), any(), any(), any());
+    }
+}
@@ -0,0 +1,188 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PresenceDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PresenceServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private GameClock gameClock;
+
+    // the checks the game clock would run, run by hand in the tests
+    private final List<Runnable> checks = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(gameClock.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            checks.add(invocation.getArgument(0));
+            return null;
+        });
+    }
+
+    private PresenceService presenceService(long timeoutMillis) {
+        return presenceService(timeoutMillis, 0);
+    }
+
+    private PresenceService presenceService(long timeoutMillis, long graceMillis) {
+        PresenceService presenceService = new PresenceService(timeoutMillis, graceMillis);
+        ReflectionTestUtils.setField(presenceService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(presenceService, "gameClock", gameClock);
+        return presenceService;
+    }
+
+    private List<PresenceDTO> published() {
+        ArgumentCaptor<PresenceDTO> captor = ArgumentCaptor.forClass(PresenceDTO.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/presence"), captor.capture());
+        return captor.getAllValues();
+    }
+
+    private void runDueChecks() {
+        List<Runnable> due = new ArrayList<>(checks);
+        checks.clear();
+        due.forEach(Runnable::run);
+    }
+
+    @Test
+    public void online_publishedOnceAndCheckedOnce() {
+        PresenceService presenceService = presenceService(6000);
+
+        presenceService.online(1L);
+        presenceService.online(1L);
+
+        assertTrue(presenceService.heartbeat(1L));
+        assertEquals(1, published().size());
+        assertTrue(published().get(0).getOnline());
+        verify(gameClock, times(1)).schedule(any(Runnable.class), eq(6000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void heartbeat_unknownUser_returnsFalse() {
+        PresenceService presenceService = presenceService(6000);
+
+        assertFalse(presenceService.heartbeat(1L));
+        assertFalse(presenceService.isOnline(1L));
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    public void check_beforeTimeout_waitsForTheRest() {
+        PresenceService presenceService = presenceService(60000);
+        presenceService.online(1L);
+
+        runDueChecks();
+
+        assertTrue(presenceService.isOnline(1L));
+        assertEquals(1, checks.size());
+    }
+
+    @Test
+    public void check_afterTimeout_offlineAndListenersCalled() {
+        PresenceService presenceService = presenceService(0);
+        List<Long> expired = new ArrayList<>();
+        presenceService.onExpired(expired::add);
+        presenceService.online(1L);
+
+        runDueChecks();
+
+        assertFalse(presenceService.isOnline(1L));
+        assertEquals(List.of(1L), expired);
+        assertFalse(published().get(1).getOnline());
+        assertTrue(checks.isEmpty());
+    }
+
+    @Test
+    public void offline_staleCheckIgnored() {
+        PresenceService presenceService = presenceService(0);
+        List<Long> expired = new ArrayList<>();
+        presenceService.onExpired(expired::add);
+        presenceService.online(1L);
+        presenceService.offline(1L);
+        presenceService.offline(1L);
+
+        runDueChecks();
+
+        assertTrue(expired.isEmpty());
+        assertEquals(2, published().size());
+        assertTrue(presenceService.onlineUsers().isEmpty());
+    }
+
+    @Test
+    public void connected_openSession_neverTimesOut() {
+        PresenceService presenceService = presenceService(0);
+        List<Long> expired = new ArrayList<>();
+        presenceService.onExpired(expired::add);
+
+        presenceService.connected("session-1", 1L);
+        runDueChecks();
+        runDueChecks();
+
+        assertTrue(presenceService.isOnline(1L));
+        assertTrue(expired.isEmpty());
+        assertEquals(1, checks.size());
+    }
+
+    @Test
+    public void disconnected_lastSession_offlineAfterGrace() {
+        PresenceService presenceService = presenceService(60000, 0);
+        List<Long> expired = new ArrayList<>();
+        presenceService.onExpired(expired::add);
+        presenceService.connected("session-1", 1L);
+        presenceService.connected("session-2", 1L);
+
+        presenceService.disconnected("session-1");
+        assertTrue(presenceService.isOnline(1L));
+
+        presenceService.disconnected("session-2");
+        verify(gameClock).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+        runDueChecks();
+
+        assertFalse(presenceService.isOnline(1L));
+        assertEquals(List.of(1L), expired);
+    }
+
+    @Test
+    public void disconnected_reconnectWithinGrace_staysOnline() {
+        PresenceService presenceService = presenceService(0, 60000);
+        List<Long> expired = new ArrayList<>();
+        presenceService.onExpired(expired::add);
+        presenceService.connected("session-1", 1L);
+        presenceService.disconnected("session-1");
+
+        presenceService.connected("session-2", 1L);
+        runDueChecks();
+
+        assertTrue(presenceService.isOnline(1L));
+        assertTrue(expired.isEmpty());
+        assertEquals(1, published().size());
+    }
+
+    @Test
+    public void disconnected_unknownSession_ignored() {
+        PresenceService presenceService = presenceService(6000);
+
+        presenceService.disconnected("session-1");
+
+        verifyNoInteractions(gameClock, messagingTemplate);
+    }
+}
@@ -0,0 +1,172 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ScoreBoardUpdateDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ScoreEntryDTO;
+import ch.uzh.ifi.hase.soprafs24.service.LiveGameStore.LiveGame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ScoreBoardServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private GameClock gameClock;
+
+    private LiveGameStore liveGameStore;
+
+    private ScoreBoardService scoreBoardService;
+
+    private LiveGame liveGame;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        liveGameStore = new LiveGameStore(gameRepository);
+        scoreBoardService = new ScoreBoardService(userRepository);
+        ReflectionTestUtils.setField(scoreBoardService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(scoreBoardService, "liveGameStore", liveGameStore);
+        ReflectionTestUtils.setField(scoreBoardService, "gameClock", gameClock);
+
+        Game game = new Game();
+        game.setGameId(1L);
+        game.setModeType("combat");
+        game.setPlayers(new ArrayList<>(List.of(1L, 2L, 3L)));
+        game.setScoreBoard(new HashMap<>(Map.of(1L, 0, 2L, 0, 3L, 0)));
+        liveGame = liveGameStore.open(game);
+
+        scoreBoardService.playerJoined(1L, user(1L, "alice"));
+        scoreBoardService.playerJoined(1L, user(2L, "bob"));
+        scoreBoardService.playerJoined(1L, user(3L, "carol"));
+    }
+
+    private User user(Long userId, String username) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        return user;
+    }
+
+    private List<ScoreBoardUpdateDTO> sentUpdates() {
+        ArgumentCaptor<ScoreBoardUpdateDTO> updates = ArgumentCaptor.forClass(ScoreBoardUpdateDTO.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/user/1/scoreBoard"), updates.capture());
+        return updates.getAllValues();
+    }
+
+    @Test
+    public void open_sendsSnapshotAndSchedulesNext() {
+        scoreBoardService.open(1L);
+
+        List<ScoreBoardUpdateDTO> updates = sentUpdates();
+        assertEquals(1, updates.size());
+        assertEquals(ScoreBoardUpdateDTO.SNAPSHOT, updates.get(0).getType());
+        assertEquals(3, updates.get(0).getEntries().size());
+        verify(gameClock).schedule(any(Runnable.class), eq(ScoreBoardService.SNAPSHOT_INTERVAL), eq(TimeUnit.MILLISECONDS));
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void scoreChanged_sendsOnlyChangedEntries() {
+        liveGame.setScore(1L, 300);
+        liveGame.setScore(2L, 200);
+        liveGame.setScore(3L, 100);
+        scoreBoardService.open(1L);
+        reset(messagingTemplate);
+
+        liveGame.recordAnswer(3L, true, 60);
+        scoreBoardService.scoreChanged(1L, 3L);
+
+        ScoreBoardUpdateDTO delta = sentUpdates().get(0);
+        assertEquals(ScoreBoardUpdateDTO.DELTA, delta.getType());
+        assertEquals(1, delta.getVersion());
+        assertEquals(1, delta.getEntries().size());
+        ScoreEntryDTO entry = delta.getEntries().get(0);
+        assertEquals(3L, entry.getUserId());
+        assertEquals("carol", entry.getUsername());
+        assertEquals(160, entry.getScore());
+        assertEquals(3, entry.getRank());
+        assertEquals(0, entry.getRankChange());
+        verify(userRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    public void scoreChanged_includesOvertakenPlayers() {
+        liveGame.setScore(1L, 60);
+        liveGame.setScore(3L, 20);
+        scoreBoardService.open(1L);
+        reset(messagingTemplate);
+
+        liveGame.recordAnswer(3L, true, 100);
+        scoreBoardService.scoreChanged(1L, 3L);
+
+        List<ScoreEntryDTO> entries = sentUpdates().get(0).getEntries();
+        Map<Long, ScoreEntryDTO> byUser = new HashMap<>();
+        entries.forEach(entry -> byUser.put(entry.getUserId(), entry));
+        assertEquals(2, entries.size());
+        assertEquals(1, byUser.get(3L).getRank());
+        assertEquals(1, byUser.get(3L).getRankChange());
+        assertEquals(2, byUser.get(1L).getRank());
+        assertEquals(-1, byUser.get(1L).getRankChange());
+    }
+
+    @Test
+    public void open_unknownPlayers_loadedInOneQuery() {
+        scoreBoardService.close(1L);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user(1L, "alice"), user(2L, "bob"), user(3L, "carol")));
+
+        scoreBoardService.open(1L);
+
+        verify(userRepository, times(1)).findAllById(any());
+        assertEquals("carol", sentUpdates().get(0).getEntries().stream()
+            .filter(entry -> entry.getUserId().equals(3L)).findFirst().get().getUsername());
+    }
+
+    @Test
+    public void close_stopsUpdates() {
+        scoreBoardService.open(1L);
+        scoreBoardService.close(1L);
+        reset(messagingTemplate);
+
+        scoreBoardService.scoreChanged(1L, 1L);
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    public void byUsername_usesCachedNames() {
+        Map<String, Integer> scoreBoard = scoreBoardService.byUsername(1L, Map.of(1L, 10, 2L, 20));
+
+        assertEquals(Map.of("alice", 10, "bob", 20), scoreBoard);
+        verify(userRepository, never()).findByUserId(anyLong());
+    }
+}
@@ -0,0 +1,119 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
+import ch.uzh.ifi.hase.soprafs24.entity.UserStats;
+import ch.uzh.ifi.hase.soprafs24.repository.UserStatsRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.ModeStatisticsDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StatisticsServiceTest {
+
+    @Mock
+    private UserStatsRepository userStatsRepository;
+
+    private StatisticsService statisticsService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        statisticsService = new StatisticsService(userStatsRepository);
+    }
+
+    private static GameHistory history(int score, int correct, int total) {
+        GameHistory history = new GameHistory();
+        history.setUserId(1L);
+        history.setModeType("combat");
+        history.setDifficulty("easy");
+        history.setScore(score);
+        history.setCorrectAnswers(correct);
+        history.setTotalQuestions(total);
+        return history;
+    }
+
+    private static int[] continents(int europe, int asia) {
+        int[] correct = new int[Continent.values().length];
+        correct[Continent.Europe.ordinal()] = europe;
+        correct[Continent.Asia.ordinal()] = asia;
+        return correct;
+    }
+
+    @Test
+    public void record_firstGameOfMode_createsRow() {
+        statisticsService.record(history(300, 3, 4), continents(2, 1));
+
+        ArgumentCaptor<UserStats> captor = ArgumentCaptor.forClass(UserStats.class);
+        verify(userStatsRepository).save(captor.capture());
+        UserStats stats = captor.getValue();
+        assertEquals(1L, stats.getUserId());
+        assertEquals("combat", stats.getModeType());
+        assertEquals(1, stats.getGamesPlayed());
+        assertEquals(300, stats.getTotalScore());
+        assertEquals(2, stats.getCorrect(Continent.Europe));
+        assertEquals(1, stats.getCorrect(Continent.Asia));
+    }
+
+    @Test
+    public void record_existingRow_addsToTotals() {
+        UserStats stats = new UserStats();
+        stats.setUserId(1L);
+        stats.setGamesPlayed(2);
+        stats.setTotalScore(100);
+        stats.setEuropeCorrect(4);
+        when(userStatsRepository.findByUserIdAndModeTypeAndDifficulty(1L, "combat", "easy")).thenReturn(stats);
+
+        // a player that left before answering has no live counters
+        statisticsService.record(history(-1, 0, 1), null);
+
+        verify(userStatsRepository).save(stats);
+        assertEquals(3, stats.getGamesPlayed());
+        assertEquals(99, stats.getTotalScore());
+        assertEquals(1, stats.getTotalQuestions());
+        assertEquals(4, stats.getCorrect(Continent.Europe));
+    }
+
+    @Test
+    public void statistics_derivesRatesPerModeAndTotals() {
+        UserStats combat = new UserStats();
+        combat.add(history(300, 6, 8), continents(4, 2));
+        combat.add(history(100, 2, 8), continents(1, 1));
+        UserStats solo = new UserStats();
+        solo.setModeType("solo");
+        solo.add(history(50, 0, 4), continents(0, 0));
+        when(userStatsRepository.findByUserId(1L)).thenReturn(List.of(combat, solo));
+
+        UserStatisticsDTO statistics = statisticsService.statistics(1L);
+
+        assertEquals(3, statistics.getGamesPlayed());
+        assertEquals(0.4, statistics.getAccuracy(), 1e-9);
+        assertEquals(5L, statistics.getContinentCorrect().get(Continent.Europe));
+        assertEquals(0L, statistics.getContinentCorrect().get(Continent.Oceania));
+        ModeStatisticsDTO first = statistics.getModes().get(0);
+        assertEquals(2, first.getGamesPlayed());
+        assertEquals(0.5, first.getAccuracy(), 1e-9);
+        assertEquals(200, first.getAverageScore(), 1e-9);
+    }
+
+    @Test
+    public void statistics_noGames_zeroRates() {
+        when(userStatsRepository.findByUserId(1L)).thenReturn(List.of());
+
+        UserStatisticsDTO statistics = statisticsService.statistics(1L);
+
+        assertEquals(0, statistics.getGamesPlayed());
+        assertEquals(0, statistics.getAccuracy());
+        assertTrue(statistics.getModes().isEmpty());
+        assertEquals(Continent.values().length, statistics.getContinentCorrect().size());
+    }
+}
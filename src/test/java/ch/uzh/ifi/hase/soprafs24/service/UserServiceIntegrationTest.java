@@ -2,9 +2,13 @@ package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameHistoryDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserPostDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +24,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.math.BigDecimal;
 
@@ -39,6 +46,9 @@ public class UserServiceIntegrationTest {
 
   @Autowired
   private UserService userService;
+
+  @Autowired
+  private HistoryService historyService;
   private User testUser;
 
   @BeforeEach
@@ -314,14 +324,55 @@ public class UserServiceIntegrationTest {
         userService.updateUserProfile(testUser.getUserId(), update));
   }
 
+  private Game finishedGame(String gameName, String modeType, LocalDateTime gameCreationDate) {
+    Game game = new Game();
+    game.setGameName(gameName);
+    game.setModeType(modeType);
+    game.setDifficulty("easy");
+    game.setTime(5);
+    game.setGameCreationDate(gameCreationDate);
+    game.setScoreBoard(Map.of(testUser.getUserId(), 100));
+    game.setCorrectAnswersMap(Map.of(testUser.getUserId(), 8));
+    game.setTotalQuestionsMap(Map.of(testUser.getUserId(), 10));
+    return game;
+  }
+
+  private static List<String> gameNames(HistoryPageDTO page) {
+    List<String> gameNames = new ArrayList<>();
+    for (GameHistoryDTO game : page.getGameHistory()) {
+      gameNames.add(game.getGameName());
+    }
+    return gameNames;
+  }
+
   @Test
   public void getGameHistory_success() {
-    testUser.setGameHistory("game1", 100, 8, 10, LocalDateTime.now(), 5, "solo", "easy");
-    userRepository.save(testUser);
+    historyService.record(testUser.getUserId(), finishedGame("game1", "solo", LocalDateTime.now()));
 
-    UserGetDTO result = userService.getHistory(testUser.getUserId());
+    HistoryPageDTO result = userService.getHistory(testUser.getUserId(), null, null, null, null);
 
-    assertNotNull(result.getGameHistory());
+    assertEquals(List.of("game1"), gameNames(result));
+    assertEquals(100, result.getGameHistory().get(0).getScore());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  public void getGameHistory_pagedNewestFirstAndFiltered() {
+    Long userId = testUser.getUserId();
+    LocalDateTime now = LocalDateTime.now();
+    historyService.record(userId, finishedGame("old", "solo", now.minusDays(2)));
+    historyService.record(userId, finishedGame("tie-1", "combat", now));
+    historyService.record(userId, finishedGame("tie-2", "solo", now));
+
+    HistoryPageDTO first = userService.getHistory(userId, null, null, null, 2);
+    HistoryPageDTO second = userService.getHistory(userId, null, null, first.getNextCursor(), 2);
+    HistoryPageDTO solo = userService.getHistory(userId, "solo", null, null, null);
+
+    // games of the same moment come newest row first
+    assertEquals(List.of("tie-2", "tie-1"), gameNames(first));
+    assertEquals(List.of("old"), gameNames(second));
+    assertNull(second.getNextCursor());
+    assertEquals(List.of("tie-2", "old"), gameNames(solo));
   }
 
   @Test
@@ -334,13 +385,14 @@ public class UserServiceIntegrationTest {
   }
 
   @Test
-  public void getLearningTracking_success() {
+  public void getStatistics_success() {
     testUser.updateLearningTrack(Country.Australia);
     userRepository.saveAndFlush(testUser);
   
-    UserGetDTO dto = userService.getLearningTracking(testUser.getUserId());
+    UserStatisticsDTO dto = userService.getStatistics(testUser.getUserId());
   
     assertNotNull(dto);
+    assertEquals(0, dto.getGamesPlayed());
     assertTrue(dto.getLearningTracking().containsKey(Country.Australia));
     assertEquals(1, dto.getLearningTracking().get(Country.Australia));
   }
@@ -4,9 +4,12 @@ import java.util.Optional;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.PlayerGame;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.HistoryPageDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserGetDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,20 +18,25 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.Optional;
-import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 public class UserServiceTest {
@@ -37,7 +45,22 @@ public class UserServiceTest {
   private UserRepository userRepository;
 
   @Mock
-  private final ConcurrentHashMap<Long, Long> userLastHeartBeatMap = new ConcurrentHashMap<>();
+  private LeaderboardService leaderboardService;
+
+  @Mock
+  private PresenceService presenceService;
+
+  @Mock
+  private GameService gameService;
+
+  @Mock
+  private HistoryService historyService;
+
+  @Mock
+  private StatisticsService statisticsService;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
 
   @InjectMocks
   private UserService userService;
@@ -45,8 +68,21 @@ public class UserServiceTest {
   private User testUser;
 
   @BeforeEach
+  @SuppressWarnings("unchecked")
   public void setup() {
     MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(userService, "leaderboardService", leaderboardService);
+    ReflectionTestUtils.setField(userService, "presenceService", presenceService);
+    ReflectionTestUtils.setField(userService, "gameService", gameService);
+    ReflectionTestUtils.setField(userService, "historyService", historyService);
+    ReflectionTestUtils.setField(userService, "statisticsService", statisticsService);
+    // games of reaped users are settled on the test thread
+    ReflectionTestUtils.setField(userService, "gameSettlers", (Executor) Runnable::run);
+    ReflectionTestUtils.setField(userService, "transactionTemplate", transactionTemplate);
+    Mockito.doAnswer(invocation -> {
+        ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+        return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
 
     // given
     testUser = new User();
@@ -69,6 +105,7 @@ public class UserServiceTest {
     User createdUser = userService.createUser(testUser);
     // then
     Mockito.verify(userRepository, Mockito.times(1)).save(Mockito.any());
+    Mockito.verify(leaderboardService, Mockito.times(1)).update(testUser);
 
     assertEquals(testUser.getUserId(), createdUser.getUserId());
     assertEquals(testUser.getUsername(), createdUser.getUsername());
@@ -208,7 +245,6 @@ public class UserServiceTest {
     User user = new User();
     user.setToken("validToken");
     user.setUserId(1L);
-    userLastHeartBeatMap.put(1L, 0L);
 
     Mockito.when(userRepository.findByToken("validToken")).thenReturn(user);
 
@@ -217,6 +253,7 @@ public class UserServiceTest {
 
     // then
     Mockito.verify(userRepository).save(user);
+    Mockito.verify(presenceService).offline(1L);
     assertEquals(UserStatus.OFFLINE, user.getStatus());
   }
   
@@ -291,6 +328,8 @@ public class UserServiceTest {
     assertEquals("/avatar_1.png", testUser.getAvatar());
     assertEquals("new@email.com", testUser.getEmail());
     assertEquals("new bio", testUser.getBio());
+    Mockito.verify(leaderboardService, Mockito.times(1)).update(testUser);
+    Mockito.verify(historyService).renameGames(1L, "solo", "newUsername-Solo");
   }
 
   @Test
@@ -423,28 +462,30 @@ public class UserServiceTest {
   }
 
   @Test
-  public void getHistory_validUser_returnsGameHistory() {
-      User userWithHistory = new User();
-      userWithHistory.setUserId(1L);
-      userWithHistory.setUsername("testUser");
-      userWithHistory.setAvatar("/avatar_1.png");
-      userWithHistory.setBio("");
-      userWithHistory.setEmail("");
+  public void getHistory_validUser_returnsPage() {
+      HistoryPageDTO page = new HistoryPageDTO();
+      page.setGameHistory(new ArrayList<>());
+      Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+      Mockito.when(historyService.page(1L, "solo", null, 7L, 10)).thenReturn(page);
 
-      userWithHistory.setGameHistory("TestGame", 100, 5, 10, LocalDateTime.now(), 60, "combat", "easy");
+      HistoryPageDTO result = userService.getHistory(1L, "solo", null, 7L, 10);
 
-      Mockito.when(userRepository.findByUserId(1L)).thenReturn(userWithHistory);
+      assertSame(page, result);
+  }
 
-      UserGetDTO result = userService.getHistory(1L);
+  @Test
+  public void getHistory_unknownUser_throwsNotFound() {
+      Mockito.when(userRepository.existsById(9L)).thenReturn(false);
+
+      ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+          () -> userService.getHistory(9L, null, null, null, null));
 
-      assertNotNull(result);
-      assertNotNull(result.getGameHistory());
-      assertEquals(1, result.getGameHistory().size());
-      assertEquals("TestGame", result.getGameHistory().get(0).getGameName());
+      assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+      Mockito.verify(historyService, Mockito.never()).page(any(), any(), any(), any(), any());
   }
 
   @Test
-  public void getLearningTracking_validUser_returnsMap() {
+  public void getStatistics_validUser_returnsTotalsAndLearningTracking() {
       User userWithTracking = new User();
       userWithTracking.setUserId(1L);
 
@@ -453,37 +494,150 @@ public class UserServiceTest {
       userWithTracking.updateLearningTrack(Country.Germany);
 
       Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(userWithTracking));
+      UserStatisticsDTO totals = new UserStatisticsDTO();
+      totals.setGamesPlayed(3);
+      Mockito.when(statisticsService.statistics(1L)).thenReturn(totals);
 
-      UserGetDTO dto = userService.getLearningTracking(1L);
+      UserStatisticsDTO dto = userService.getStatistics(1L);
 
-      assertNotNull(dto);
+      assertEquals(3, dto.getGamesPlayed());
       assertEquals(2, dto.getLearningTracking().get(Country.France));
       assertEquals(1, dto.getLearningTracking().get(Country.Germany));
   }
 
   @Test
-  public void updateUserHeartBeatTime_validUserId_addsToMap() {
-      User user = new User();
-      user.setUserId(1L);
-      user.setStatus(UserStatus.ONLINE);
-    
-      Mockito.when(userRepository.findByUserId(1L)).thenReturn(user);
+  public void updateUserHeartBeatTime_onlineUser_noDatabaseLookup() {
+      Mockito.when(presenceService.heartbeat(1L)).thenReturn(true);
+
+      userService.updateUserHeartBeatTime(1L);
+
+      Mockito.verify(userRepository, Mockito.never()).findStatusByUserId(any());
+      Mockito.verify(presenceService, Mockito.never()).online(any());
+  }
+
+  @Test
+  public void updateUserHeartBeatTime_firstHeartbeat_comesOnline() {
+      Mockito.when(presenceService.heartbeat(1L)).thenReturn(false);
+      Mockito.when(userRepository.findStatusByUserId(1L)).thenReturn(UserStatus.ONLINE);
 
-      List<UserGetDTO> result = userService.updateUserHeartBeatTime(1L);
+      userService.updateUserHeartBeatTime(1L);
 
-      assertTrue(result.stream().anyMatch(dto -> dto.getUserId().equals(1L)));
+      Mockito.verify(presenceService).online(1L);
   }
 
   @Test
-  public void updateUserHeartBeatTime_offlineUser_doesNotAddToMap() {
+  public void updateUserHeartBeatTime_offlineUser_staysOffline() {
+      Mockito.when(presenceService.heartbeat(2L)).thenReturn(false);
+      Mockito.when(userRepository.findStatusByUserId(2L)).thenReturn(UserStatus.OFFLINE);
+
+      userService.updateUserHeartBeatTime(2L);
+
+      Mockito.verify(presenceService, Mockito.never()).online(any());
+  }
+
+  private User withToken(Long userId, String token, UserStatus status) {
       User user = new User();
-      user.setUserId(2L);
-      user.setStatus(UserStatus.OFFLINE);
+      user.setUserId(userId);
+      user.setToken(token);
+      user.setStatus(status);
+      Mockito.when(userRepository.findByToken(token)).thenReturn(user);
+      return user;
+  }
+
+  @Test
+  public void sessionConnected_loggedInUser_tracked() {
+      withToken(1L, "token-1", UserStatus.ONLINE);
+
+      userService.sessionConnected("session-1", 1L, "token-1");
+      userService.sessionDisconnected("session-1");
+
+      Mockito.verify(presenceService).connected("session-1", 1L);
+      Mockito.verify(presenceService).disconnected("session-1");
+  }
+
+  @Test
+  public void sessionConnected_loggedOutUser_notTracked() {
+      withToken(2L, "token-2", UserStatus.OFFLINE);
+
+      userService.sessionConnected("session-1", 2L, "token-2");
+
+      Mockito.verify(presenceService, Mockito.never()).connected(any(), any());
+  }
+
+  @Test
+  public void sessionConnected_tokenOfAnotherUser_notTracked() {
+      withToken(1L, "token-1", UserStatus.ONLINE);
+
+      userService.sessionConnected("session-1", 2L, "token-1");
+      userService.sessionConnected("session-2", 2L, "unknown");
+
+      Mockito.verify(presenceService, Mockito.never()).connected(any(), any());
+  }
+
+  private static PlayerGame playerIn(Long userId, Long gameId, String modeType) {
+      PlayerGame playerGame = Mockito.mock(PlayerGame.class);
+      Mockito.when(playerGame.getUserId()).thenReturn(userId);
+      Mockito.when(playerGame.getGameId()).thenReturn(gameId);
+      Mockito.when(playerGame.getModeType()).thenReturn(modeType);
+      return playerGame;
+  }
+
+  private List<User> onlineUsers(List<Long> userIds) {
+      List<User> users = new ArrayList<>();
+      for (Long userId : userIds) {
+          User user = new User();
+          user.setUserId(userId);
+          user.setStatus(UserStatus.ONLINE);
+          user.setToken("token-" + userId);
+          users.add(user);
+      }
+      Mockito.when(userRepository.findAllById(userIds)).thenReturn(users);
+      return users;
+  }
+
+  @Test
+  public void reap_usersGroupedByGame_eachGameSettledOnce() {
+      // user 4 is in no game and has no row
+      List<PlayerGame> playerGames = List.of(playerIn(1L, 10L, "combat"), playerIn(2L, 10L, "combat"), playerIn(3L, 20L, "exercise"));
+      List<Long> userIds = List.of(1L, 2L, 3L, 4L);
+      Mockito.when(userRepository.findPlayerGames(userIds)).thenReturn(playerGames);
+      List<User> users = onlineUsers(userIds);
+
+      userService.reap(userIds);
+
+      Mockito.verify(gameService, Mockito.times(1)).giveupGame(10L, List.of(1L, 2L));
+      Mockito.verify(gameService, Mockito.times(1)).saveGame(20L);
+      Mockito.verify(transactionTemplate, Mockito.times(1)).executeWithoutResult(any());
+      Mockito.verify(userRepository, Mockito.never()).save(any());
+      users.forEach(user -> assertEquals(UserStatus.OFFLINE, user.getStatus()));
+  }
+
+  @Test
+  public void reap_eachUserGetsOwnRandomToken() {
+      List<Long> userIds = List.of(1L, 2L, 3L);
+      List<User> users = onlineUsers(userIds);
+
+      userService.reap(userIds);
+
+      Set<String> tokens = new HashSet<>();
+      for (User user : users) {
+          UUID.fromString(user.getToken());
+          tokens.add(user.getToken());
+      }
+      assertEquals(3, tokens.size());
+  }
+
+  @Test
+  public void reap_settlingFails_usersStillLoggedOut() {
+      List<PlayerGame> playerGames = List.of(playerIn(1L, 10L, "combat"));
+      Mockito.when(userRepository.findPlayerGames(List.of(1L))).thenReturn(playerGames);
+      Mockito.doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"))
+          .when(gameService).giveupGame(Mockito.eq(10L), Mockito.anyCollection());
 
-      Mockito.when(userRepository.findByUserId(2L)).thenReturn(user);
+      List<User> users = onlineUsers(List.of(1L));
 
-      List<UserGetDTO> result = userService.updateUserHeartBeatTime(2L);
+      userService.reap(List.of(1L));
 
-      assertTrue(result.stream().noneMatch(dto -> dto.getUserId().equals(2L)));
+      assertEquals(UserStatus.OFFLINE, users.get(0).getStatus());
   }
 }
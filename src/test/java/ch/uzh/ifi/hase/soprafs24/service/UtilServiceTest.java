@@ -9,15 +9,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
 
+import ch.uzh.ifi.hase.soprafs24.constant.Continent;
 import ch.uzh.ifi.hase.soprafs24.constant.Country;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 
@@ -31,6 +37,9 @@ public class UtilServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private GameClock gameClock;
+
     @InjectMocks
     private UtilService utilService;
     
@@ -39,17 +48,17 @@ public class UtilServiceTest {
     
     @BeforeEach
     public void setup() {
+        ReflectionTestUtils.setField(utilService, "hintPipeline", new HintPipeline(new StubHintProvider(), 2, 4));
         utilService.removeCacheForGame(gameId);  // clean state
         // utilService is injected by @InjectMocks, no need to instantiate manually
     }
     
     @Test
-    void testAddHintForGame() {
+    void testRequestHints() {
         utilService.initHintQueue(gameId, List.of(userId));
-        utilService.addHintForGame(gameId, "easy");
+        utilService.requestHints(gameId, "easy", 3);
         
-        // Let it complete async logic, you may mock generateClues to isolate test
-        assertTrue(utilService.getHintCache().containsKey(gameId));
+        assertEquals(3, utilService.getHintCache().get(gameId).size());
     }
     
     @Test
@@ -60,16 +69,23 @@ public class UtilServiceTest {
     }
     
     @Test
-    void testGenerateClues() {
-        Map<Country, List<Map<String, Object>>> clues = utilService.generateClues(3, "easy", gameId);
-        assertNotNull(clues);
-        assertFalse(clues.isEmpty());
+    void testRequestHints_hardDifficulty_rotatesThroughContinents() {
+        utilService.initHintQueue(gameId, List.of(userId));
+        utilService.requestHints(gameId, "hard", 5);
+
+        UtilService.HintList hintList = utilService.getHintCache().get(gameId);
+        assertEquals(5, hintList.size());
+        Set<Continent> continents = EnumSet.noneOf(Continent.class);
+        for (int i = 0; i < hintList.size(); i++) {
+            continents.add(hintList.get(i).keySet().iterator().next().getRegion());
+        }
+        assertEquals(EnumSet.allOf(Continent.class), continents);
     }
     
     @Test
     void testGetFirstHint() {
         utilService.initHintQueue(gameId, List.of(userId));
-        Map<Country, List<Map<String, Object>>> dummyClue = utilService.generateClues(3, "easy", gameId);
+        Map<Country, List<Map<String, Object>>> dummyClue = new StubHintProvider().generate(Country.Japan, 3, "easy");
         utilService.getHintCache().get(gameId).add(dummyClue);
         
         Map<Country, List<Map<String, Object>>> result = utilService.getFirstHint(gameId);
@@ -154,18 +170,28 @@ public class UtilServiceTest {
     }
     
     @Test
-    void testTimingCounter() throws InterruptedException {
+    void testStartTimingCounter() {
         Game mockGame = new Game();
         mockGame.setGameId(gameId);
         mockGame.setPlayers(List.of(userId));
         
         when(gameRepository.findBygameId(gameId)).thenReturn(mockGame);
+        ReflectionTestUtils.setField(utilService, "gameClock", gameClock);
+        
+        utilService.startTimingCounter(60, gameId);
+        
+        verify(gameClock).startCountdown(eq(gameId), eq(60), any(), any());
+        verify(gameRepository, times(1)).findBygameId(gameId);
+    }
+    
+    @Test
+    void testStartTimingCounter_gameNotFound_doesNotStartCountdown() {
+        when(gameRepository.findBygameId(gameId)).thenReturn(null);
+        ReflectionTestUtils.setField(utilService, "gameClock", gameClock);
         
-        Thread timingThread = new Thread(() -> utilService.timingCounter(1, gameId));
-        timingThread.start();
-        timingThread.join();  // Wait for thread to finish
+        utilService.startTimingCounter(60, gameId);
         
-        verify(gameRepository, atLeastOnce()).findBygameId(gameId);
+        verify(gameClock, never()).startCountdown(any(), anyInt(), any(), any());
     }
     
     //    @Test
@@ -3,6 +3,10 @@ package ch.uzh.ifi.hase.soprafs24.service;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -43,25 +47,101 @@ public class UtilService_HintListTest {
     }
 
     @Test
-    void testCompactHintList() {
+    void testAdd_fullRing_waitsForSlowestPlayer() {
+        hintList = new UtilService.HintList(2, 4);
+        hintList.userProgress.put(user1, new AtomicInteger(0));
+        hintList.userProgress.put(user2, new AtomicInteger(0));
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(hintList.add(createDummyHint("Hint " + i)));
+        }
+
+        assertFalse(hintList.add(createDummyHint("Hint 5")));
+
+        hintList.userProgress.get(user1).set(3);
+        assertFalse(hintList.add(createDummyHint("Hint 5")));
+
+        hintList.userProgress.get(user2).set(2);
+        assertTrue(hintList.add(createDummyHint("Hint 5")));
+        assertTrue(hintList.add(createDummyHint("Hint 6")));
+
+        // the two slots both players were done with got reused, nothing was copied or renumbered
+        assertEquals(6, hintList.size());
+        assertNull(hintList.get(0));
+        assertNull(hintList.get(1));
+        assertEquals("Hint 3", hintList.get(2).get(Country.Brazil).get(0).get("text"));
+        assertEquals("Hint 6", hintList.get(5).get(Country.Brazil).get(0).get("text"));
+        assertEquals(3, hintList.userProgress.get(user1).get());
+        assertEquals(2, hintList.userProgress.get(user2).get());
+    }
+
+    @Test
+    void testNext_movesOwnCursorOnly() {
         hintList.add(createDummyHint("Hint 1"));
         hintList.add(createDummyHint("Hint 2"));
-        hintList.add(createDummyHint("Hint 3"));
-        hintList.add(createDummyHint("Hint 4"));
-
-        final int CLEANUP_THRESHOLD = 2;
 
-        hintList.userProgress.get(user1).set(CLEANUP_THRESHOLD + 1);
-        hintList.userProgress.get(user2).set(CLEANUP_THRESHOLD + 2);
+        assertEquals("Hint 1", hintList.next(user1).get(Country.Brazil).get(0).get("text"));
+        assertEquals("Hint 2", hintList.next(user1).get(Country.Brazil).get(0).get("text"));
+        assertNull(hintList.next(user1));
 
-        hintList.compactHintList();
+        assertEquals(2, hintList.userProgress.get(user1).get());
+        assertEquals(0, hintList.userProgress.get(user2).get());
+        assertEquals("Hint 1", hintList.next(user2).get(Country.Brazil).get(0).get("text"));
+    }
 
-        assertEquals(4, hintList.size());
+    @Test
+    void testNext_latePlayerStartsAtSlowestCursor() {
+        hintList.add(createDummyHint("Hint 1"));
+        hintList.add(createDummyHint("Hint 2"));
+        hintList.userProgress.get(user1).set(2);
+        hintList.userProgress.get(user2).set(1);
 
-        assertEquals(3, hintList.userProgress.get(user1).get());
-        assertEquals(4, hintList.userProgress.get(user2).get());
+        assertEquals("Hint 2", hintList.next(103L).get(Country.Brazil).get(0).get("text"));
+    }
 
-        assertEquals("Hint 1", hintList.get(0).get(Country.Brazil).get(0).get("text"));
+    @Test
+    void testNext_concurrentPlayers_everyPlayerSeesEveryHintOnceInOrder() throws Exception {
+        final int players = 8;
+        final int hints = 20000;
+        hintList = new UtilService.HintList(players, 16);
+        for (long userId = 0; userId < players; userId++) {
+            hintList.userProgress.put(userId, new AtomicInteger(0));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(players + 1);
+        List<Future<List<String>>> reads = new ArrayList<>();
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < hints; i++) {
+                Map<Country, List<Map<String, Object>>> hint = createDummyHint(String.valueOf(i));
+                while (!hintList.add(hint)) {
+                    Thread.yield();
+                }
+            }
+        });
+        for (long userId = 0; userId < players; userId++) {
+            final Long player = userId;
+            reads.add(pool.submit(() -> {
+                List<String> seen = new ArrayList<>(hints);
+                while (seen.size() < hints) {
+                    Map<Country, List<Map<String, Object>>> hint = hintList.next(player);
+                    if (hint == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    seen.add((String) hint.get(Country.Brazil).get(0).get("text"));
+                }
+                return seen;
+            }));
+        }
+
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<List<String>> read : reads) {
+            List<String> seen = read.get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < hints; i++) {
+                assertEquals(String.valueOf(i), seen.get(i));
+            }
+        }
+        pool.shutdownNow();
+        assertEquals(hints, hintList.size());
     }
 
     @Test
@@ -101,28 +181,6 @@ public class UtilService_HintListTest {
         assertEquals("Hint list is empty", ex.getMessage());
     }
 
-    @Test
-    void testRemoveUsedHints() {
-        hintList.add(createDummyHint("Hint 1"));
-        hintList.add(createDummyHint("Hint 2"));
-        hintList.add(createDummyHint("Hint 3"));
-
-        hintList.userProgress.remove(user2);
-        hintList.userProgress.get(user1).set(2);
-        hintList.removeUsedHints();
-
-        assertNotNull(hintList.get(0));
-        assertNotNull(hintList.get(1));
-        assertNotNull(hintList.get(2));
-
-        hintList.userProgress.put(user2, new AtomicInteger(2));
-        hintList.removeUsedHints();
-
-        assertNull(hintList.get(0));
-        assertNull(hintList.get(1));
-        assertNotNull(hintList.get(2));
-    }
-
     @Test
     void testSize() {
         assertEquals(0, hintList.size());